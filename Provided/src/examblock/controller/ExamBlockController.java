@@ -1,6 +1,8 @@
 package examblock.controller;
 
 import examblock.model.ExamBlockModel;
+import examblock.model.JournalingRegistry;
+import examblock.model.MeteredRegistry;
 import examblock.model.Registry;
 import examblock.model.RegistryImpl;
 import examblock.view.ExamBlockView;
@@ -8,12 +10,22 @@ import examblock.view.ExamBlockView;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 
 public class ExamBlockController {
 
     private ExamBlockView myView;
     private ExamBlockModel myModel;
 
+    /** The journal of changes to the exam block file, or null if changes are not journaled. */
+    private JournalingRegistry myJournal;
+
     private void clearButtonClicked() {
         myModel.notifyObservers("CMD_CLEAR");
     }
@@ -23,16 +35,37 @@ public class ExamBlockController {
     }
 
     public ExamBlockController() {
+        this(null);
+    }
 
-        Registry registry = new RegistryImpl(); // Registry is the interface
+    /**
+     * Builds the application over an exam block file. Changes are journaled beside the
+     * file (see {@link #journalFor(Path)}); on start-up the file is loaded and the journal
+     * left by the last run replayed on top of it. The model and the view share one
+     * registry, so everything the user changes is journaled.
+     *
+     * @param file the exam block file, or null to start an empty block without a journal
+     */
+    public ExamBlockController(Path file) {
+
+        ExamBlockModel model = openModel(file);
+        Registry registry = model.getRegistry(); // Registry is the interface
         ExamBlockView view = new ExamBlockView(registry);
-        ExamBlockModel model = new ExamBlockModel();
+        view.setModel(model);
         model.addObserver(view); // register the view as an observer
+        this.myModel = model;
+        this.myView = view;
 
         view.addClearButtonListener(e -> clearButtonClicked());
 
         view.addAddButtonListener(e-> addButtonClicked());
 
+        view.getFrame().addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                closeJournal();
+            }
+        });
 
         view.display();
 
@@ -44,10 +77,138 @@ public class ExamBlockController {
 
     }
 
+    /**
+     * Returns the journal kept for an exam block file: the file's name with
+     * {@code .journal} added, in the same directory.
+     *
+     * @param file the exam block file
+     * @return the journal file
+     */
+    static Path journalFor(Path file) {
+        return file.resolveSibling(file.getFileName() + ".journal");
+    }
+
+    /**
+     * Builds the model over a journaling registry, loading the exam block file and
+     * replaying the journal left by the last run on top of it. A journal that cannot be
+     * replayed is moved aside (see {@link #setAsideFor(Path)}) and the file loaded under a
+     * fresh journal; only if the file itself cannot be loaded is the model left empty and
+     * unjournaled. The user is told of either.
+     *
+     * @param file the exam block file, or null for an empty, unjournaled model
+     * @return the model
+     */
+    private ExamBlockModel openModel(Path file) {
+        if (file == null) {
+            return new ExamBlockModel(MeteredRegistry.wrap(new RegistryImpl()));
+        }
+        Path journalFile = journalFor(file);
+        boolean[] loaded = new boolean[1];
+        try {
+            return openJournaled(file, journalFile, loaded);
+        } catch (IOException | RuntimeException e) {
+            Exception failure = e;
+            if (loaded[0]) {
+                Path aside = setAsideFor(journalFile);
+                try {
+                    Files.move(journalFile, aside, StandardCopyOption.REPLACE_EXISTING);
+                    ExamBlockModel model = openJournaled(file, journalFile, loaded);
+                    warn("The changes journaled in " + journalFile + " could not be replayed ("
+                            + e.getMessage() + ").\nThe journal was moved to " + aside
+                            + " and " + file + " was opened without them.");
+                    return model;
+                } catch (IOException | RuntimeException again) {
+                    failure = again;
+                }
+            }
+            warn("Unable to open " + file + ": " + failure.getMessage()
+                    + "\nStarting with an empty exam block; changes are not journaled.");
+            ExamBlockModel model = new ExamBlockModel(MeteredRegistry.wrap(new RegistryImpl()));
+            model.setFilename(file.toString());
+            return model;
+        }
+    }
+
+    /**
+     * Builds the model over a new journaling registry, loads the exam block file through
+     * it and replays the journal. The journal is closed again if either fails.
+     *
+     * @param file        the exam block file
+     * @param journalFile the journal of the file
+     * @param loaded      set to true once the file has been loaded, before the replay
+     * @return the model
+     * @throws IOException if the file or the journal cannot be read
+     */
+    private ExamBlockModel openJournaled(Path file, Path journalFile, boolean[] loaded)
+            throws IOException {
+        JournalingRegistry journal = new JournalingRegistry(
+                MeteredRegistry.wrap(new RegistryImpl()), journalFile);
+        try {
+            ExamBlockModel model = new ExamBlockModel(journal);
+            model.setFilename(file.toString());
+            journal.recover(() -> {
+                if (Files.exists(file)) {
+                    model.load(journal, file.toString());
+                    // register any sections left to the background while not journaling
+                    model.getRegistry();
+                }
+                loaded[0] = true;
+            });
+            this.myJournal = journal;
+            return model;
+        } catch (IOException | RuntimeException e) {
+            try {
+                journal.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns where a journal that cannot be replayed is moved: its name with
+     * {@code .bad} added, in the same directory.
+     *
+     * @param journalFile the journal
+     * @return the file the journal is moved to
+     */
+    static Path setAsideFor(Path journalFile) {
+        return journalFile.resolveSibling(journalFile.getFileName() + ".bad");
+    }
+
+    /**
+     * Tells the user of a problem opening the exam block, on the console and in a dialog.
+     *
+     * @param message the message
+     */
+    private static void warn(String message) {
+        System.err.println(message);
+        if (!GraphicsEnvironment.isHeadless()) {
+            JOptionPane.showMessageDialog(null, message, "Exam Block",
+                    JOptionPane.WARNING_MESSAGE);
+        }
+    }
 
+    /**
+     * Writes the journal's buffered changes and closes it, once the window is closing.
+     */
+    private void closeJournal() {
+        if (myJournal == null) {
+            return;
+        }
+        try {
+            myJournal.close();
+        } catch (IOException e) {
+            System.err.println("Unable to close journal " + myJournal.getJournal() + ": "
+                    + e.getMessage());
+        }
+        myJournal = null;
+    }
 
-    // Main method for testing
+    // Main method for testing; the optional argument names the exam block file
     public static void main(String[] args) {
-        SwingUtilities.invokeLater(ExamBlockController::new);
+        Path file = args.length > 0 ? Paths.get(args[0]) : null;
+        SwingUtilities.invokeLater(() -> new ExamBlockController(file));
     }
 }
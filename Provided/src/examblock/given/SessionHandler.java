@@ -78,7 +78,7 @@ public class SessionHandler {
         model.getVenues().allocateStudents(model.getSessions(), model.getExams(), model.getStudents());
 
         // Get the save filename first.
-        if (!model.saveToFile(model.getRegistry(), null, model.getTitle(), model.getVersion())) {
+        if (!model.saveToFile(null, model.getTitle(), model.getVersion())) {
             return;
         }
 
@@ -113,6 +113,8 @@ public class SessionHandler {
      * @return the output for the window
      */
     public static String printEverything(ExamBlockModel model) {
+        // report from one snapshot, so concurrent edits cannot tear the output
+        ExamBlockModel frozen = model.snapshot();
         StringBuilder sb = new StringBuilder();
         String dateNow = new SimpleDateFormat("yyyy-MM-dd' at 'HH:mm:ss").format(new Date());
         sb.append("Here is the Exam Block ").append(System.lineSeparator());
@@ -123,29 +125,29 @@ public class SessionHandler {
         sb.append("|----------  ALL SUBJECTS  ----------|").append(System.lineSeparator());
         sb.append("\\====================================/").append(System.lineSeparator());
 
-        sb.append(model.getSubjects().getFullDetail()).append(System.lineSeparator());
+        sb.append(frozen.getSubjects().getFullDetail()).append(System.lineSeparator());
 
         sb.append("/================================\\").append(System.lineSeparator());
         sb.append("----------  ALL UNITS  ----------|").append(System.lineSeparator());
         sb.append("\\================================/").append(System.lineSeparator());
 
-        sb.append(model.getUnits().getFullDetail()).append(System.lineSeparator());
+        sb.append(frozen.getUnits().getFullDetail()).append(System.lineSeparator());
 
         sb.append("/=================================\\").append(System.lineSeparator());
         sb.append("|----------  ALL EXAMS  ----------|").append(System.lineSeparator());
         sb.append("\\=================================/").append(System.lineSeparator());
 
-        sb.append(model.getExams().getFullDetail()).append(System.lineSeparator());
+        sb.append(frozen.getExams().getFullDetail()).append(System.lineSeparator());
 
         sb.append("/====================================\\").append(System.lineSeparator());
         sb.append("|----------  ALL STUDENTS  ----------|").append(System.lineSeparator());
         sb.append("\\====================================/").append(System.lineSeparator());
 
-        sb.append(model.getStudents().getFullDetail()).append(System.lineSeparator());
+        sb.append(frozen.getStudents().getFullDetail()).append(System.lineSeparator());
 
         sb.append("=".repeat(60)).append(System.lineSeparator());
 
-        model.getVenues().writeAllocations(sb, model.getSessions());
+        frozen.getVenues().writeAllocations(sb, frozen.getSessions());
         String reportResult = sb.toString();
 
         DialogUtils.showTextViewer(reportResult, "Exam Block Viewer",
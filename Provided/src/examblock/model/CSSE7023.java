@@ -248,6 +248,11 @@ public class CSSE7023 {
          */
         EBD,
 
+        /**
+         * Exam Block Binary Data File
+         */
+        EBB,
+
         /**
          * Exam Block Finalise Report File
          */
@@ -267,6 +272,8 @@ public class CSSE7023 {
             switch (this) {
                 case EBD:
                     return "ebd";
+                case EBB:
+                    return "ebb";
                 case EFR:
                     return "efr";
                 case TXT:
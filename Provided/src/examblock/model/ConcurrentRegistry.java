@@ -0,0 +1,694 @@
+package examblock.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Thread-safe implementation of the {@link Registry} interface. Items of each type live in
+ * their own stripe, so loading students on one thread does not block the view reading exams
+ * on another. Each stripe keeps its items in an {@link OrderedStore} guarded by the
+ * stripe's read/write lock, so readers of the same type run in parallel and only writers
+ * of that type wait for each other.
+ */
+public class ConcurrentRegistry implements Registry {
+
+    /**
+     * The per-type stripes, keyed by the item's class (e.g., {@code Exam.class}).
+     */
+    private final Map<Class<? extends ManageableListItem>, Stripe<?>> stripes;
+
+    /**
+     * All the state held for a single item type, guarded by its own lock.
+     *
+     * @param <T> the type of the items in this stripe
+     */
+    private static final class Stripe<T extends ManageableListItem> {
+
+        /**
+         * Guards {@code store}.
+         */
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        /**
+         * Items of this type in insertion order.
+         */
+        private final OrderedStore<T> store;
+
+        /**
+         * Constructs the stripe for a type.
+         *
+         * @param type the class of the items
+         */
+        private Stripe(Class<T> type) {
+            store = new OrderedStore<>(type);
+        }
+    }
+
+    /**
+     * Constructs a new, empty concurrent registry.
+     */
+    public ConcurrentRegistry() {
+        stripes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Retrieves or creates the stripe for the specified type, for writes.
+     *
+     * @param type the class of the items
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @return the stripe holding items of the type
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends ManageableListItem> Stripe<T> stripe(Class<T> type) {
+        return (Stripe<T>) stripes.computeIfAbsent(type, k -> new Stripe<>(type));
+    }
+
+    /**
+     * Retrieves the stripe for the specified type, without creating it, so that reads of
+     * a type never registered leave the registry as it was.
+     *
+     * @param type the class of the items
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @return the stripe holding items of the type, or {@code null} if there is none
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends ManageableListItem> Stripe<T> findStripe(Class<T> type) {
+        return (Stripe<T>) stripes.get(type);
+    }
+
+    /**
+     * Checks if an item with the given ID exists for the specified type.
+     *
+     * @param id   the unique identifier to check
+     * @param type the class of the item
+     * @param <T>  the type of the item, extending {@link ManageableListItem}
+     * @return {@code true} if an item with the ID exists, {@code false} otherwise
+     */
+    @Override
+    public <T extends ManageableListItem> boolean contains(String id, Class<T> type) {
+        Stripe<T> stripe = findStripe(type);
+        if (stripe == null) {
+            return false;
+        }
+        stripe.lock.readLock().lock();
+        try {
+            return stripe.store.contains(id);
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds an item to the registry for the specified type. If the item is already
+     * registered (same ID and instance), it is not re-added. During a bulk load of the
+     * type the item is queued until {@link #commitBulk()}.
+     *
+     * @param item the item to add
+     * @param type the class of the item
+     * @param <T>  the type of the item, extending {@link ManageableListItem}
+     * @throws IllegalStateException if a different item with the same ID exists
+     * @throws NullPointerException  if the item's ID is null
+     */
+    @Override
+    public <T extends ManageableListItem> void add(T item, Class<T> type) {
+        String id = Objects.requireNonNull(item.getId(), "Item ID cannot be null");
+        Stripe<T> stripe = stripe(type);
+        stripe.lock.writeLock().lock();
+        try {
+            if (stripe.store.inBulk()) {
+                stripe.store.addPending(id, item);
+                return;
+            }
+            T existing = stripe.store.putIfAbsent(id, item);
+            if (existing != null && existing != item) {
+                throw new IllegalStateException("Item with ID " + id + " already exists for type "
+                        + type.getSimpleName());
+            }
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds an item by its unique ID for the specified type. Unlike {@code find()},
+     * get will throw a RuntimeException if the item is not found
+     *
+     * @param id   the unique identifier of the item
+     * @param type the class of the item
+     * @param <T>  the type of the item, extending {@link ManageableListItem}
+     * @return the item if found, or {@code throw new RuntimeException} if not found
+     */
+    @Override
+    public <T extends ManageableListItem> T get(String id, Class<T> type) throws RuntimeException {
+        T item = find(id, type);
+        if (item == null) {
+            throw new RuntimeException("Item with ID " + id + " not found for type "
+                    + type.getSimpleName());
+        }
+        return item;
+    }
+
+    /**
+     * Finds an item by its unique ID for the specified type.
+     *
+     * @param id   the unique identifier of the item
+     * @param type the class of the item
+     * @param <T>  the type of the item, extending {@link ManageableListItem}
+     * @return the item if found, or {@code null} if not found
+     */
+    @Override
+    public <T extends ManageableListItem> T find(String id, Class<T> type) {
+        if (id == null) {
+            return null;
+        }
+        Stripe<T> stripe = findStripe(type);
+        if (stripe == null) {
+            return null;
+        }
+        stripe.lock.readLock().lock();
+        try {
+            return stripe.store.get(id);
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes an item by its unique ID for the specified type. A subject is first
+     * withdrawn from the students taking it; see {@link #removeSubjects(String)}.
+     *
+     * @param id   the unique identifier of the item
+     * @param type the class of the item
+     * @param <T>  the type of the item, extending {@link ManageableListItem}
+     */
+    @Override
+    public <T extends ManageableListItem> void remove(String id, Class<T> type) {
+        if (type == Subject.class) {
+            removeSubjects(id);
+            return;
+        }
+        Stripe<T> stripe = findStripe(type);
+        if (stripe == null) {
+            return;
+        }
+        stripe.lock.writeLock().lock();
+        try {
+            stripe.store.remove(id);
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all items of the specified type from the registry. The stripe itself is kept,
+     * so threads already holding it keep adding to the live registry. Subjects are first
+     * withdrawn from the students taking them; see {@link #removeSubjects(String)}.
+     *
+     * @param type the class of the items to remove
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     */
+    @Override
+    public <T extends ManageableListItem> void removeAll(Class<T> type) {
+        if (type == Subject.class) {
+            removeSubjects(null);
+            return;
+        }
+        Stripe<T> stripe = findStripe(type);
+        if (stripe == null) {
+            return;
+        }
+        stripe.lock.writeLock().lock();
+        try {
+            stripe.store.clear();
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Withdraws the students from one subject, or from all of them, and then removes the
+     * subjects. The student and subject stripes are write-locked throughout, in class name
+     * order as {@link #snapshot()} takes them, so no student can take a subject between
+     * its withdrawal and its removal and leave its freed ordinal set.
+     *
+     * @param id the ID of the subject, or {@code null} for every subject
+     */
+    private void removeSubjects(String id) {
+        Stripe<Subject> subjects = findStripe(Subject.class);
+        if (subjects == null) {
+            return;
+        }
+        Stripe<Student> students = findStripe(Student.class);
+        if (students != null) {
+            students.lock.writeLock().lock();
+        }
+        subjects.lock.writeLock().lock();
+        try {
+            if (id == null) {
+                for (Subject subject : subjects.store.toList()) {
+                    Student.withdrawAll(this, subject);
+                }
+                subjects.store.clear();
+            } else {
+                Subject subject = subjects.store.get(id);
+                if (subject != null) {
+                    Student.withdrawAll(this, subject);
+                    subjects.store.remove(id);
+                }
+            }
+        } finally {
+            subjects.lock.writeLock().unlock();
+            if (students != null) {
+                students.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns a new list of all items for the specified type, in insertion order.
+     *
+     * @param type the class of the items
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @return a new list containing all items of the specified type
+     */
+    @Override
+    public <T extends ManageableListItem> List<T> getAll(Class<T> type) {
+        Stripe<T> stripe = findStripe(type);
+        if (stripe == null) {
+            return new ArrayList<>();
+        }
+        stripe.lock.readLock().lock();
+        try {
+            return stripe.store.toList();
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves an item at the specified index in the ordered list for the given type.
+     *
+     * @param row  the index of the item (0-based)
+     * @param type the class of the item
+     * @param <T>  the type of the item, extending {@link ManageableListItem}
+     * @return the item at the index, or {@code null} if the index is invalid
+     */
+    @Override
+    public <T extends ManageableListItem> T getAt(int row, Class<T> type) {
+        Stripe<T> stripe = findStripe(type);
+        if (stripe == null) {
+            return null;
+        }
+        stripe.lock.readLock().lock();
+        try {
+            return stripe.store.getAt(row);
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Clears all items from the registry, one stripe at a time.
+     */
+    @Override
+    public void clear() {
+        for (Class<? extends ManageableListItem> type : stripes.keySet()) {
+            removeAll(type);
+        }
+    }
+
+    /**
+     * Returns the number of items stored for the specified type.
+     *
+     * @param type the class of the items
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @return the number of items
+     */
+    @Override
+    public <T extends ManageableListItem> int count(Class<T> type) {
+        Stripe<T> stripe = findStripe(type);
+        if (stripe == null) {
+            return 0;
+        }
+        stripe.lock.readLock().lock();
+        try {
+            return stripe.store.size();
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a stamp that changes whenever an item of the specified type is registered
+     * or unregistered.
+     *
+     * @param type the class of the items
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @return the current stamp for the type
+     */
+    @Override
+    public <T extends ManageableListItem> long modCount(Class<T> type) {
+        Stripe<T> stripe = findStripe(type);
+        if (stripe == null) {
+            return 0;
+        }
+        stripe.lock.readLock().lock();
+        try {
+            return stripe.store.modCount();
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Defines an index on the type's stripe while holding its write lock.
+     *
+     * @param index the new, empty index
+     * @param <T>   the type of the items, extending {@link ManageableListItem}
+     * @param <K>   the type of the key
+     * @return the index now registered under the index's name
+     */
+    private <T extends ManageableListItem, K> RegistryIndex<T, K> addIndex(
+            RegistryIndex<T, K> index) {
+        Stripe<T> stripe = stripe(index.getType());
+        stripe.lock.writeLock().lock();
+        try {
+            return stripe.store.addIndex(index);
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds a registered {@link Student} by LUI, without boxing or building an ID string.
+     *
+     * @param lui the student's 10-digit Learner Unique Identifier
+     * @return the student if found, or {@code null} if not found
+     */
+    @Override
+    public Student findByLui(long lui) {
+        Stripe<Student> stripe = findStripe(Student.class);
+        if (stripe == null) {
+            return null;
+        }
+        stripe.lock.readLock().lock();
+        try {
+            return stripe.store.findByLui(lui);
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns one past the highest ordinal held by a registered item of the specified type.
+     *
+     * @param type the class of the items
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @return the exclusive upper bound of the type's ordinals
+     */
+    @Override
+    public <T extends ManageableListItem> int ordinalBound(Class<T> type) {
+        Stripe<T> stripe = findStripe(type);
+        if (stripe == null) {
+            return 0;
+        }
+        stripe.lock.readLock().lock();
+        try {
+            return stripe.store.ordinalBound();
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the registered item holding an ordinal for the specified type.
+     *
+     * @param ordinal the ordinal of the item
+     * @param type    the class of the item
+     * @param <T>     the type of the item, extending {@link ManageableListItem}
+     * @return the item, or {@code null} if no registered item holds the ordinal
+     */
+    @Override
+    public <T extends ManageableListItem> T byOrdinal(int ordinal, Class<T> type) {
+        Stripe<T> stripe = findStripe(type);
+        if (stripe == null) {
+            return null;
+        }
+        stripe.lock.readLock().lock();
+        try {
+            return stripe.store.byOrdinal(ordinal);
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Creates a multi-valued secondary index over the items of a type, filled from the
+     * items already registered. Returns the existing index if the name is taken.
+     *
+     * @param type the class of the items to index
+     * @param name the name of the index, unique per type
+     * @param key  derives the key of an item; items with a {@code null} key are not indexed
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @param <K>  the type of the key
+     * @return the index
+     */
+    @Override
+    public <T extends ManageableListItem, K> RegistryIndex<T, K> createIndex(Class<T> type,
+                                                                            String name,
+                                                                            Function<T, K> key) {
+        return addIndex(new RegistryIndex<>(type, name, RegistryIndex.singleKey(key), false));
+    }
+
+    /**
+     * Creates a unique secondary index over the items of a type, filled from the items
+     * already registered. Returns the existing index if the name is taken.
+     *
+     * @param type the class of the items to index
+     * @param name the name of the index, unique per type
+     * @param key  derives the key of an item; items with a {@code null} key are not indexed
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @param <K>  the type of the key
+     * @return the index
+     * @throws IllegalStateException if the items already registered share a key
+     */
+    @Override
+    public <T extends ManageableListItem, K> RegistryIndex<T, K> createUniqueIndex(
+            Class<T> type, String name, Function<T, K> key) {
+        return addIndex(new RegistryIndex<>(type, name, RegistryIndex.singleKey(key), true));
+    }
+
+    /**
+     * Creates a multi-valued secondary index in which each item may have several keys.
+     * Returns the existing index if the name is taken.
+     *
+     * @param type the class of the items to index
+     * @param name the name of the index, unique per type
+     * @param keys derives all the keys of an item
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @param <K>  the type of the key
+     * @return the index
+     */
+    @Override
+    public <T extends ManageableListItem, K> RegistryIndex<T, K> createMultiKeyIndex(
+            Class<T> type, String name, Function<T, ? extends Collection<K>> keys) {
+        return addIndex(new RegistryIndex<>(type, name, keys, false));
+    }
+
+    /**
+     * Creates a multi-valued secondary index keeping the items under each key sorted.
+     * Returns the existing index if the name is taken.
+     *
+     * @param type  the class of the items to index
+     * @param name  the name of the index, unique per type
+     * @param keys  derives all the keys of an item
+     * @param order the order of the items under each key
+     * @param <T>   the type of the items, extending {@link ManageableListItem}
+     * @param <K>   the type of the key
+     * @return the index
+     */
+    @Override
+    public <T extends ManageableListItem, K> RegistryIndex<T, K> createSortedMultiKeyIndex(
+            Class<T> type, String name, Function<T, ? extends Collection<K>> keys,
+            Comparator<? super T> order) {
+        return addIndex(new RegistryIndex<>(type, name, keys, false,
+                Objects.requireNonNull(order, "Index order cannot be null")));
+    }
+
+    /**
+     * Returns a read-only copy of the registered items with the given key in an index,
+     * taken under the type's read lock.
+     *
+     * @param index an index created by this registry
+     * @param key   the key to look up
+     * @param <T>   the type of the items, extending {@link ManageableListItem}
+     * @param <K>   the type of the key
+     * @return a new list of the items with that key
+     * @throws IllegalArgumentException if the index was not created by this registry
+     */
+    @Override
+    public <T extends ManageableListItem, K> List<T> lookup(RegistryIndex<T, K> index, K key) {
+        Stripe<T> stripe = findStripe(index.getType());
+        if (stripe == null) {
+            throw foreign(index);
+        }
+        stripe.lock.readLock().lock();
+        try {
+            if (!stripe.store.owns(index)) {
+                throw foreign(index);
+            }
+            return Collections.unmodifiableList(new ArrayList<>(index.lookup(key)));
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of registered items with the given key in an index, read under
+     * the type's read lock.
+     *
+     * @param index an index created by this registry
+     * @param key   the key to look up
+     * @param <T>   the type of the items, extending {@link ManageableListItem}
+     * @param <K>   the type of the key
+     * @return the number of items with that key
+     * @throws IllegalArgumentException if the index was not created by this registry
+     */
+    @Override
+    public <T extends ManageableListItem, K> int count(RegistryIndex<T, K> index, K key) {
+        Stripe<T> stripe = findStripe(index.getType());
+        if (stripe == null) {
+            throw foreign(index);
+        }
+        stripe.lock.readLock().lock();
+        try {
+            if (!stripe.store.owns(index)) {
+                throw foreign(index);
+            }
+            return index.count(key);
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Builds the exception thrown when an index was not created by this registry.
+     *
+     * @param index the index
+     * @return the exception
+     */
+    private static IllegalArgumentException foreign(RegistryIndex<?, ?> index) {
+        return new IllegalArgumentException("Index " + index.getName()
+                + " does not belong to this registry");
+    }
+
+    /**
+     * Brings every index over the item's type up to date after one of its key fields
+     * has changed. Does nothing if the item is not registered.
+     *
+     * @param item the registered item whose keys may have changed
+     * @param type the class of the item
+     * @param <T>  the type of the item, extending {@link ManageableListItem}
+     */
+    @Override
+    public <T extends ManageableListItem> void reindex(T item, Class<T> type) {
+        if (item.getId() == null) {
+            return;
+        }
+        Stripe<T> stripe = findStripe(type);
+        if (stripe == null) {
+            return;
+        }
+        stripe.lock.writeLock().lock();
+        try {
+            stripe.store.reindex(item.getId(), item);
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a read-only, point-in-time view of the registry. The write locks of all
+     * stripes are held together, always in class name order, while each store is
+     * snapshotted, so the snapshot is a consistent cut across types; this takes constant
+     * time per type and writers wait only for that long.
+     *
+     * @return a read-only snapshot of the registry
+     */
+    @Override
+    public Registry snapshot() {
+        List<Class<? extends ManageableListItem>> types = new ArrayList<>(stripes.keySet());
+        types.sort(Comparator.comparing(Class::getName));
+        List<Stripe<?>> locked = new ArrayList<>(types.size());
+        Map<Class<? extends ManageableListItem>, OrderedStore<?>> frozen = new HashMap<>();
+        try {
+            for (Class<? extends ManageableListItem> type : types) {
+                Stripe<?> stripe = stripe(type);
+                stripe.lock.writeLock().lock();
+                locked.add(stripe);
+                frozen.put(type, stripe.store.snapshot());
+            }
+        } finally {
+            for (Stripe<?> stripe : locked) {
+                stripe.lock.writeLock().unlock();
+            }
+        }
+        return new RegistrySnapshot(frozen);
+    }
+
+    /**
+     * Starts a bulk load of the specified type: items added from now until
+     * {@link #commitBulk()} are queued, unchecked and invisible, and stored together at
+     * the commit. Calling it again for a type already in bulk mode has no effect.
+     *
+     * @param type         the class of the items to be loaded
+     * @param expectedSize the number of items expected
+     * @param <T>          the type of the items, extending {@link ManageableListItem}
+     */
+    @Override
+    public <T extends ManageableListItem> void beginBulk(Class<T> type, int expectedSize) {
+        Stripe<T> stripe = stripe(type);
+        stripe.lock.writeLock().lock();
+        try {
+            stripe.store.beginBulk(expectedSize);
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stores every item queued since {@link #beginBulk}, for every type in bulk mode,
+     * and ends bulk mode. Each type is committed under its own write lock; a failing
+     * batch is discarded, while the other types' batches are still stored.
+     *
+     * @throws IllegalStateException if a queued item has the ID of a different item
+     */
+    @Override
+    public void commitBulk() {
+        IllegalStateException failure = null;
+        for (Stripe<?> stripe : stripes.values()) {
+            stripe.lock.writeLock().lock();
+            try {
+                stripe.store.commitBulk();
+            } catch (IllegalStateException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            } finally {
+                stripe.lock.writeLock().unlock();
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -95,6 +95,15 @@ public class Desk {
         this.Exam = exam;
     }
 
+    /**
+     * Gets the exam the student assigned to this desk is sitting.
+     *
+     * @return the exam, or {@code null} if the desk is not allocated
+     */
+    Exam getExam() {
+        return this.Exam;
+    }
+
     public String deskExam() {
         return this.Exam.getTitle();
     }
@@ -109,6 +118,7 @@ public class Desk {
 
     public void setStudent(Student student) {
         this.student = student;
+        this.LUI = student.getLui();
         this.familyName = student.familyName();
         this.givenAndInit = student.givenNames();
     }
@@ -0,0 +1,66 @@
+package examblock.model;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Converts exam block files between the text format ({@code .ebd}) and the binary format
+ * ({@code .ebb}, see {@link EbbFormat}), in either direction. The format of each file is
+ * chosen by its extension, as in {@link ExamBlockModel#load(Registry, String)}.
+ * <p>
+ * Every item, with the title and version of the block, is carried across. Desk
+ * allocations are recomputed rather than kept by either loader, so they are written to
+ * text only once the sessions have been allocated again.
+ */
+public final class EbbConverter {
+
+    private EbbConverter() {
+    }
+
+    /**
+     * Converts one exam block file to another.
+     *
+     * @param source the name of the file to read
+     * @param target the name of the file to write, which is replaced
+     * @throws IOException      if either file cannot be read or written
+     * @throws RuntimeException if the source is malformed
+     */
+    public static void convert(String source, String target) throws IOException {
+        Registry registry = new RegistryImpl();
+        String title;
+        double version;
+        if (ExamBlockModel.isBinary(source)) {
+            EbbFormat format = new EbbFormat(registry);
+            format.read(Paths.get(source));
+            title = format.getTitle();
+            version = format.getVersion();
+        } else {
+            EbdParser parser = new EbdParser(EbdTokenizer.map(Paths.get(source)), registry);
+            parser.parse();
+            title = parser.getTitle();
+            version = parser.getVersion();
+        }
+        if (!new ExamBlockModel(registry).saveToFile(target, title, version)) {
+            throw new IOException("Unable to write " + target);
+        }
+    }
+
+    /**
+     * Converts the file named by the first argument into the file named by the second,
+     * e.g. {@code java examblock.model.EbbConverter block.ebd block.ebb}.
+     *
+     * @param args the source and target file names
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: EbbConverter <source.ebd|ebb> <target.ebd|ebb>");
+            System.exit(2);
+        }
+        try {
+            convert(args[0], args[1]);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to convert " + args[0] + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
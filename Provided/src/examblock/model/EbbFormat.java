@@ -0,0 +1,621 @@
+package examblock.model;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes the binary exam block format, {@code .ebb}
+ * ({@link CSSE7023.FileType#EBB}), which holds the same items as an {@code .ebd} file but
+ * loads without any text parsing.
+ * <p>
+ * A file is laid out as:
+ * <ol>
+ *     <li>the magic number {@code EBB} and a format version byte;</li>
+ *     <li>a dictionary of every distinct string in the file, each written once as its
+ *     UTF-8 length and bytes, so records refer to strings by number;</li>
+ *     <li>the title, as a string number, and the version of the exam block, as a
+ *     {@code double};</li>
+ *     <li>the sections, in the order of an {@code .ebd} file: subjects, units, students,
+ *     exams, rooms, venues, sessions. Each is a tag byte and a record count followed by
+ *     its records, which all have the same fields in the same order.</li>
+ * </ol>
+ * Counts, string numbers, characters and references to earlier items (by their position
+ * in their section) are unsigned variable-length integers, seven bits a byte; dates are
+ * signed epoch days and times minutes of the day. String number 0 stands for
+ * {@code null}.
+ * <p>
+ * Desk allocations are derived from the students and exams, and are not stored.
+ */
+final class EbbFormat {
+
+    /**
+     * The bytes every file starts with.
+     */
+    private static final byte[] MAGIC = {'E', 'B', 'B'};
+
+    /**
+     * The version of the layout written.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * The number of sections, in the order they are written.
+     */
+    private static final int SECTIONS = 7;
+
+    /**
+     * The registry read from or written.
+     */
+    private final Registry registry;
+
+    /**
+     * The title of the exam block, once read.
+     */
+    private String title;
+
+    /**
+     * The version of the exam block, once read.
+     */
+    private double version;
+
+    /**
+     * Constructs a reader or writer of the items of a registry.
+     *
+     * @param registry the registry to load items into, or save them from
+     */
+    EbbFormat(Registry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Returns the title of the exam block read.
+     *
+     * @return the title, or {@code null} if no file has been read
+     */
+    String getTitle() {
+        return title;
+    }
+
+    /**
+     * Returns the version of the exam block read.
+     *
+     * @return the version, or 0 if no file has been read
+     */
+    double getVersion() {
+        return version;
+    }
+
+    /**
+     * Writes every item of the registry to a file, replacing it.
+     *
+     * @param file         the file
+     * @param blockTitle   the title of the exam block
+     * @param blockVersion the version of the exam block
+     * @throws IOException if the file cannot be written
+     */
+    void write(Path file, String blockTitle, double blockVersion) throws IOException {
+        Encoder records = new Encoder();
+        int titleRef = records.ref(blockTitle);
+
+        List<Subject> subjects = registry.getAll(Subject.class);
+        Map<Subject, Integer> subjectRefs = positions(subjects);
+        records.section(0, subjects.size());
+        for (Subject subject : subjects) {
+            records.string(subject.getTitle());
+            records.string(subject.getDescription());
+        }
+
+        List<Unit> units = registry.getAll(Unit.class);
+        records.section(1, units.size());
+        for (Unit unit : units) {
+            records.varint(subjectRefs.get(unit.getSubject()));
+            records.character(unit.id());
+            records.string(unit.getTitle());
+            records.string(unit.getDescription());
+        }
+
+        List<Student> students = registry.getAll(Student.class);
+        records.section(2, students.size());
+        for (Student student : students) {
+            records.varlong(student.getLui());
+            records.string(student.givenNames());
+            records.string(student.familyName());
+            records.date(student.getDob());
+            records.string(student.getHouse());
+            records.flag(Boolean.TRUE.equals(student.isAara()));
+            List<Subject> taken = student.subjectsTaken();
+            records.varint(taken.size());
+            for (Subject subject : taken) {
+                records.varint(subjectRefs.get(subject));
+            }
+        }
+
+        List<Exam> exams = registry.getAll(Exam.class);
+        Map<Exam, Integer> examRefs = positions(exams);
+        records.section(3, exams.size());
+        for (Exam exam : exams) {
+            records.varint(subjectRefs.get(exam.getSubject()));
+            records.flag(exam.getExamType() == Exam.ExamType.EXTERNAL);
+            records.character(exam.getPaper());
+            records.string(exam.getSubtitle());
+            records.character(exam.getUnit());
+            records.date(exam.getDate());
+            records.time(exam.getTime());
+        }
+
+        List<Room> rooms = registry.getAll(Room.class);
+        Map<Room, Integer> roomRefs = positions(rooms);
+        records.section(4, rooms.size());
+        for (Room room : rooms) {
+            records.string(room.roomId());
+        }
+
+        List<Venue> venues = registry.getAll(Venue.class);
+        Map<Venue, Integer> venueRefs = positions(venues);
+        records.section(5, venues.size());
+        for (Venue venue : venues) {
+            records.string(venue.venueId());
+            List<Room> venueRooms = venue.getRooms().view();
+            records.varint(venueRooms.size());
+            for (Room room : venueRooms) {
+                records.varint(roomRefs.get(room));
+            }
+            records.varint(venue.getRows());
+            records.varint(venue.getColumns());
+            records.varint(venue.deskCount());
+            records.flag(venue.isAara());
+        }
+
+        List<Session> sessions = registry.getAll(Session.class);
+        records.section(6, sessions.size());
+        for (Session session : sessions) {
+            records.varint(venueRefs.get(session.getVenue()));
+            records.varint(session.getSessionNumber());
+            records.date(session.getDate());
+            records.time(session.getTime());
+            List<Exam> scheduled = session.getExams();
+            records.varint(scheduled.size());
+            for (Exam exam : scheduled) {
+                records.varint(examRefs.get(exam));
+            }
+        }
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            DataOutputStream data = new DataOutputStream(out);
+            data.write(MAGIC);
+            data.writeByte(FORMAT_VERSION);
+            Encoder dictionary = new Encoder();
+            dictionary.varint(records.strings.size());
+            for (String value : records.strings) {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                dictionary.varint(utf8.length);
+                dictionary.bytes.write(utf8, 0, utf8.length);
+            }
+            dictionary.varint(titleRef);
+            dictionary.bytes.writeTo(data);
+            data.writeDouble(blockVersion);
+            records.bytes.writeTo(data);
+        }
+    }
+
+    /**
+     * Reads a file, registering its items in one bulk load per section.
+     *
+     * @param file the file
+     * @throws IOException      if the file cannot be read
+     * @throws RuntimeException if the file is not in this format or is damaged, or an
+     *                          item cannot be registered
+     */
+    void read(Path file) throws IOException {
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() >= Integer.MAX_VALUE) {
+                throw new IOException("File too large to map: " + file);
+            }
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            decode(new Decoder(in));
+        } catch (BufferUnderflowException e) {
+            throw new RuntimeException("Truncated exam block file: " + file, e);
+        }
+    }
+
+    /**
+     * Decodes a whole file.
+     *
+     * @param in the decoder over the file
+     */
+    private void decode(Decoder in) {
+        for (byte expected : MAGIC) {
+            if (in.buffer.get() != expected) {
+                throw new RuntimeException("Not an exam block binary file");
+            }
+        }
+        int format = in.buffer.get();
+        if (format != FORMAT_VERSION) {
+            throw new RuntimeException("Unsupported exam block binary format " + format);
+        }
+        String[] strings = new String[in.varint() + 1];
+        for (int i = 1; i < strings.length; i++) {
+            int length = in.varint();
+            byte[] utf8 = new byte[length];
+            in.buffer.get(utf8);
+            strings[i] = StringPool.SHARED.intern(new String(utf8, StandardCharsets.UTF_8));
+        }
+        in.strings = strings;
+        title = in.string();
+        version = in.buffer.getDouble();
+
+        Subject[] subjects = new Subject[0];
+        Exam[] exams = new Exam[0];
+        Room[] rooms = new Room[0];
+        Venue[] venues = new Venue[0];
+        for (int tag = 0; tag < SECTIONS; tag++) {
+            int found = in.buffer.get();
+            if (found != tag) {
+                throw new RuntimeException("Expected section " + tag + ", found " + found);
+            }
+            int count = in.varint();
+            switch (tag) {
+                case 0:
+                    registry.beginBulk(Subject.class, count);
+                    subjects = new Subject[count];
+                    for (int i = 0; i < count; i++) {
+                        subjects[i] = new Subject(in.string(), in.string(), registry);
+                    }
+                    registry.commitBulk();
+                    break;
+                case 1:
+                    registry.beginBulk(Unit.class, count);
+                    for (int i = 0; i < count; i++) {
+                        new Unit(subjects[in.varint()], in.character(), in.string(),
+                                in.string(), registry);
+                    }
+                    registry.commitBulk();
+                    break;
+                case 2:
+                    registry.beginBulk(Student.class, count);
+                    for (int i = 0; i < count; i++) {
+                        long lui = in.varlong();
+                        String given = in.string();
+                        String family = in.string();
+                        LocalDate dob = in.date();
+                        Student student = new Student(lui, given, family, dob.getDayOfMonth(),
+                                dob.getMonthValue(), dob.getYear(), in.string(), in.flag(),
+                                registry);
+                        for (int taken = in.varint(); taken > 0; taken--) {
+                            student.addSubject(subjects[in.varint()]);
+                        }
+                    }
+                    registry.commitBulk();
+                    break;
+                case 3:
+                    registry.beginBulk(Exam.class, count);
+                    exams = new Exam[count];
+                    for (int i = 0; i < count; i++) {
+                        Subject subject = subjects[in.varint()];
+                        Exam.ExamType type = in.flag()
+                                ? Exam.ExamType.EXTERNAL : Exam.ExamType.INTERNAL;
+                        Character paper = in.character();
+                        String subtitle = in.string();
+                        Character unit = in.character();
+                        LocalDate day = in.date();
+                        LocalTime start = in.time();
+                        exams[i] = new Exam(subject, type, paper, subtitle, unit,
+                                day.getDayOfMonth(), day.getMonthValue(), day.getYear(),
+                                start.getHour(), start.getMinute(), registry);
+                    }
+                    registry.commitBulk();
+                    break;
+                case 4:
+                    registry.beginBulk(Room.class, count);
+                    rooms = new Room[count];
+                    for (int i = 0; i < count; i++) {
+                        rooms[i] = new Room(in.string(), registry);
+                    }
+                    registry.commitBulk();
+                    break;
+                case 5:
+                    registry.beginBulk(Venue.class, count);
+                    venues = new Venue[count];
+                    for (int i = 0; i < count; i++) {
+                        String id = in.string();
+                        RoomList venueRooms = new RoomList(registry);
+                        int roomCount = in.varint();
+                        for (int r = 0; r < roomCount; r++) {
+                            venueRooms.add(rooms[in.varint()]);
+                        }
+                        int rows = in.varint();
+                        int columns = in.varint();
+                        int desks = in.varint();
+                        venues[i] = new Venue(id, roomCount, venueRooms, rows, columns, desks,
+                                in.flag(), registry);
+                    }
+                    registry.commitBulk();
+                    break;
+                default:
+                    registry.beginBulk(Session.class, count);
+                    Session[] sessions = new Session[count];
+                    Exam[][] scheduled = new Exam[count][];
+                    for (int i = 0; i < count; i++) {
+                        Venue venue = venues[in.varint()];
+                        int number = in.varint();
+                        LocalDate day = in.date();
+                        sessions[i] = new Session(venue, number, day, in.time(), registry);
+                        scheduled[i] = new Exam[in.varint()];
+                        for (int e = 0; e < scheduled[i].length; e++) {
+                            scheduled[i][e] = exams[in.varint()];
+                        }
+                    }
+                    // scheduled once the sessions are registered, as in EbdParser
+                    registry.commitBulk();
+                    for (int i = 0; i < count; i++) {
+                        for (Exam exam : scheduled[i]) {
+                            sessions[i].scheduleExam(exam);
+                        }
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Numbers the items of a section by their position in it.
+     *
+     * @param items the items, in order
+     * @param <T>   the type of the items
+     * @return the position of each item
+     */
+    private static <T> Map<T, Integer> positions(List<T> items) {
+        Map<T, Integer> positions = new IdentityHashMap<>(items.size() * 2);
+        for (int i = 0; i < items.size(); i++) {
+            positions.put(items.get(i), i);
+        }
+        return positions;
+    }
+
+    /**
+     * Encodes records into bytes, collecting the strings they refer to.
+     */
+    private static final class Encoder {
+
+        /**
+         * The encoded bytes.
+         */
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+
+        /**
+         * The distinct strings referred to, in order of first use.
+         */
+        private final List<String> strings = new ArrayList<>();
+
+        /**
+         * The number of each string referred to.
+         */
+        private final Map<String, Integer> refs = new HashMap<>();
+
+        /**
+         * Returns the number of a string, adding it to the dictionary if it is new.
+         *
+         * @param value the string, which may be {@code null}
+         * @return its number; 0 for {@code null}
+         */
+        int ref(String value) {
+            if (value == null) {
+                return 0;
+            }
+            Integer ref = refs.get(value);
+            if (ref == null) {
+                strings.add(value);
+                ref = strings.size();
+                refs.put(value, ref);
+            }
+            return ref;
+        }
+
+        /**
+         * Starts a section.
+         *
+         * @param tag   the tag of the section
+         * @param count the number of records in it
+         */
+        void section(int tag, int count) {
+            bytes.write(tag);
+            varint(count);
+        }
+
+        /**
+         * Writes the number of a string.
+         *
+         * @param value the string, which may be {@code null}
+         */
+        void string(String value) {
+            varint(ref(value));
+        }
+
+        /**
+         * Writes a character, offset by one so that 0 stands for {@code null}.
+         *
+         * @param value the character, which may be {@code null}
+         */
+        void character(Character value) {
+            varint(value == null ? 0 : value + 1);
+        }
+
+        /**
+         * Writes a boolean as a byte.
+         *
+         * @param value the boolean
+         */
+        void flag(boolean value) {
+            bytes.write(value ? 1 : 0);
+        }
+
+        /**
+         * Writes a date as its epoch day, zigzag encoded so that dates before 1970 are
+         * short too.
+         *
+         * @param value the date
+         */
+        void date(LocalDate value) {
+            long day = value.toEpochDay();
+            varlong((day << 1) ^ (day >> 63));
+        }
+
+        /**
+         * Writes a time as minutes of the day.
+         *
+         * @param value the time
+         */
+        void time(LocalTime value) {
+            varint(value.getHour() * 60 + value.getMinute());
+        }
+
+        /**
+         * Writes a non-negative {@code int}.
+         *
+         * @param value the number
+         */
+        void varint(int value) {
+            varlong(value & 0xFFFFFFFFL);
+        }
+
+        /**
+         * Writes a {@code long} as unsigned, seven bits a byte, low bits first.
+         *
+         * @param value the number
+         */
+        void varlong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                bytes.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            bytes.write((int) value);
+        }
+    }
+
+    /**
+     * Decodes the fields of records from a buffer.
+     */
+    private static final class Decoder {
+
+        /**
+         * The bytes of the file, positioned at the next field.
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * The dictionary of the file, indexed by string number.
+         */
+        private String[] strings;
+
+        /**
+         * Constructs a decoder reading from the current position of a buffer.
+         *
+         * @param buffer the buffer
+         */
+        Decoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * Reads a string by its number.
+         *
+         * @return the string, or {@code null}
+         */
+        String string() {
+            int ref = varint();
+            if (ref >= strings.length) {
+                throw new RuntimeException("String " + ref + " is not in the dictionary");
+            }
+            return strings[ref];
+        }
+
+        /**
+         * Reads a character.
+         *
+         * @return the character, or {@code null}
+         */
+        Character character() {
+            int value = varint();
+            return value == 0 ? null : (char) (value - 1);
+        }
+
+        /**
+         * Reads a boolean.
+         *
+         * @return the boolean
+         */
+        boolean flag() {
+            return buffer.get() != 0;
+        }
+
+        /**
+         * Reads a date.
+         *
+         * @return the date
+         */
+        LocalDate date() {
+            long zigzag = varlong();
+            return LocalDate.ofEpochDay((zigzag >>> 1) ^ -(zigzag & 1));
+        }
+
+        /**
+         * Reads a time.
+         *
+         * @return the time
+         */
+        LocalTime time() {
+            int minutes = varint();
+            return LocalTime.of(minutes / 60, minutes % 60);
+        }
+
+        /**
+         * Reads a non-negative {@code int}.
+         *
+         * @return the number
+         */
+        int varint() {
+            long value = varlong();
+            if (value > Integer.MAX_VALUE) {
+                throw new RuntimeException("Number too large at byte " + buffer.position());
+            }
+            return (int) value;
+        }
+
+        /**
+         * Reads an unsigned {@code long}.
+         *
+         * @return the number
+         */
+        long varlong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte next = buffer.get();
+                value |= (long) (next & 0x7F) << shift;
+                if (next >= 0) {
+                    return value;
+                }
+            }
+            throw new RuntimeException("Malformed number at byte " + buffer.position());
+        }
+    }
+}
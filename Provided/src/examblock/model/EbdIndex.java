@@ -0,0 +1,207 @@
+package examblock.model;
+
+import java.io.BufferedReader;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The section directory of an {@code .ebd} file: where the header of each section
+ * starts, as a byte offset and a line number, and how many items the section holds.
+ * <p>
+ * The model writes it after {@code [End]} as the last line of the file, a comment that
+ * every reader of the format skips:
+ * <pre>
+ * # Index: Subjects 34 41 4, Units 68 2087 107, ..., Sessions 2 21950 8788, End 0 22481 9001
+ * </pre>
+ * Each entry is the name of a section, its item count, its offset and its line; the last
+ * entry locates {@code [End]}. With it, {@link EbdParser#parseIndexed()} can go straight
+ * to the sections it needs and leave the others to be read later.
+ */
+final class EbdIndex {
+
+    /**
+     * The start of the line holding the index.
+     */
+    static final String PREFIX = "# Index: ";
+
+    /**
+     * The name of the entry locating {@code [End]}.
+     */
+    static final String END = "End";
+
+    /**
+     * Where one section starts.
+     */
+    static final class Entry {
+
+        /** The name of the section in its header, or {@link #END}. */
+        final String header;
+
+        /** The number of items in the section. */
+        final int count;
+
+        /** The offset in bytes of the header from the start of the file. */
+        final long offset;
+
+        /** The number of the header's line, counted from 1. */
+        final int line;
+
+        /**
+         * Constructs an entry.
+         *
+         * @param header the name of the section
+         * @param count  the number of items
+         * @param offset the offset of the header in bytes
+         * @param line   the line number of the header
+         */
+        Entry(String header, int count, long offset, int line) {
+            this.header = header;
+            this.count = count;
+            this.offset = offset;
+            this.line = line;
+        }
+    }
+
+    /**
+     * The entries, in the order of the file.
+     */
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Adds the next section of the file.
+     *
+     * @param header the name of the section, or {@link #END}
+     * @param count  the number of items
+     * @param offset the offset of its header in bytes
+     * @param line   the line number of its header
+     */
+    void add(String header, int count, long offset, int line) {
+        entries.add(new Entry(header, count, offset, line));
+    }
+
+    /**
+     * Returns the entries.
+     *
+     * @return the entries, in the order of the file
+     */
+    List<Entry> entries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Returns the line that records this index in a file.
+     *
+     * @return the line, without a line separator
+     */
+    String line() {
+        StringBuilder text = new StringBuilder(PREFIX);
+        for (Entry entry : entries) {
+            if (text.length() > PREFIX.length()) {
+                text.append(", ");
+            }
+            text.append(entry.header).append(' ').append(entry.count).append(' ')
+                    .append(entry.offset).append(' ').append(entry.line);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Reads an index from the line that records it.
+     *
+     * @param line the last line of a file, or {@code null}
+     * @return the index, or {@code null} if the line does not record one
+     */
+    static EbdIndex parse(String line) {
+        if (line == null || !line.startsWith(PREFIX)) {
+            return null;
+        }
+        EbdTokenizer t = new EbdTokenizer(new BufferedReader(
+                new StringReader(line.substring(1))));
+        EbdIndex index = new EbdIndex();
+        try {
+            t.require("the index");
+            t.key("Index");
+            while (!t.atEnd()) {
+                String header = t.readWord();
+                t.skipSpaces();
+                int count = t.readInt();
+                t.skipSpaces();
+                long offset = t.readLong();
+                t.skipSpaces();
+                int number = t.readInt();
+                index.add(header, count, offset, number);
+                if (!t.atEnd()) {
+                    t.comma();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+        return index;
+    }
+
+    /**
+     * A stream that counts the bytes and lines written through it, to find the offset
+     * and line number of each section while a file is written.
+     */
+    static final class Counter extends FilterOutputStream {
+
+        /** The number of bytes written. */
+        private long bytes;
+
+        /** The number of line feeds written. */
+        private int lines;
+
+        /**
+         * Constructs a counter over a stream.
+         *
+         * @param out the stream written to
+         */
+        Counter(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            bytes++;
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            bytes += len;
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+
+        /**
+         * Returns the offset of the next byte to be written.
+         *
+         * @return the number of bytes written
+         */
+        long offset() {
+            return bytes;
+        }
+
+        /**
+         * Returns the number of the line the next byte will be on.
+         *
+         * @return the line number, counted from 1
+         */
+        int line() {
+            return lines + 1;
+        }
+    }
+}
@@ -0,0 +1,1049 @@
+package examblock.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Loads an exam block from an {@code .ebd} file into a {@link Registry} in one pass.
+ * <p>
+ * The parser is a state machine over the parts of the file: the title and version
+ * lines, {@code [Begin]}, then any number of sections, each a {@code [Name: count]}
+ * header followed by exactly {@code count} numbered items, and finally {@code [End]}.
+ * Each item is read field by field through an {@link EbdTokenizer} and built with the
+ * item's own constructor, and each section's items are registered in one
+ * {@linkplain Registry#beginBulk(Class, int) bulk load}. Items refer to earlier sections
+ * by title or ID, so sections must follow their dependencies (subjects before units,
+ * students and exams; rooms before venues; venues and exams before sessions), as they
+ * do in the files the model writes.
+ * <p>
+ * Once the subjects are known, the records of the units, students and exams sections
+ * are independent of each other. Sections of those with more than one chunk of records
+ * are parsed on several threads and registered in file order; see
+ * {@link #pipeline(Section, int)}.
+ * <p>
+ * The desk lines listed under each exam of a session record a past allocation; the
+ * allocation is recomputed from the students and exams, so they are checked but not
+ * kept.
+ * <p>
+ * A file written with an {@link EbdIndex} can be read through it instead, leaving the
+ * students and sessions to be parsed in the background; see {@link #parseIndexed()}.
+ */
+final class EbdParser {
+
+    /**
+     * The number of records parsed by a worker at a time. Sections with no more records
+     * than this are parsed on the loading thread.
+     */
+    static final int CHUNK_SIZE = 1024;
+
+    /**
+     * The parts of a file, in the order they are read.
+     */
+    private enum State {
+        /** Expecting the {@code Title:} line. */
+        TITLE,
+        /** Expecting the {@code Version:} line. */
+        VERSION,
+        /** Expecting {@code [Begin]}. */
+        BEGIN,
+        /** Expecting a section header or {@code [End]}. */
+        SECTION,
+        /** {@code [End]} has been read. */
+        END
+    }
+
+    /**
+     * The sections a file may hold, each at most once.
+     */
+    private enum Section {
+        /** The subjects. */
+        SUBJECTS("Subjects", Subject.class, 0),
+        /** The units of the subjects. */
+        UNITS("Units", Unit.class, 3),
+        /** The students. */
+        STUDENTS("Students", Student.class, 3),
+        /** The exams. */
+        EXAMS("Exams", Exam.class, 2),
+        /** The rooms. */
+        ROOMS("Rooms", Room.class, 0),
+        /** The venues, made up of rooms. */
+        VENUES("Venues", Venue.class, 0),
+        /** The sessions scheduled in the venues. */
+        SESSIONS("Sessions", Session.class, 0);
+
+        /**
+         * The name of the section in its header.
+         */
+        private final String header;
+
+        /**
+         * The type of the items of the section.
+         */
+        private final Class<? extends ManageableListItem> type;
+
+        /**
+         * The number of lines of each record, if the records can be parsed in parallel;
+         * otherwise 0.
+         */
+        private final int lines;
+
+        Section(String header, Class<? extends ManageableListItem> type, int lines) {
+            this.header = header;
+            this.type = type;
+            this.lines = lines;
+        }
+
+        /**
+         * Finds a section by the name in its header.
+         *
+         * @param header the name
+         * @return the section, or {@code null} if there is none of that name
+         */
+        private static Section named(String header) {
+            for (Section section : values()) {
+                if (section.header.equals(header)) {
+                    return section;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The sections that {@link #parseIndexed()} leaves to be parsed in the background:
+     * the largest in a typical file, and needed only once the cohort is looked at.
+     */
+    private static final EnumSet<Section> DEFERRED =
+            EnumSet.of(Section.STUDENTS, Section.SESSIONS);
+
+    /**
+     * The tokenizer reading the file.
+     */
+    private final EbdTokenizer tokens;
+
+    /**
+     * The registry the items are loaded into.
+     */
+    private final Registry registry;
+
+    /**
+     * The subjects known so far, by title.
+     */
+    private final Map<String, Subject> subjects;
+
+    /**
+     * The exams known so far, by short title.
+     */
+    private final Map<String, Exam> exams;
+
+    /**
+     * The venues known so far, by ID.
+     */
+    private final Map<String, Venue> venues;
+
+    /**
+     * The sections left to the background by {@link #parseIndexed()} whose items have
+     * not been registered yet, each with its worker, which parses the section into a task
+     * registering its items.
+     */
+    private final Map<Section, CompletableFuture<Runnable>> deferred;
+
+    /**
+     * The sections read so far.
+     */
+    private final EnumSet<Section> seen;
+
+    /**
+     * The number of records parsed by a worker at a time, or 0 to parse every section on
+     * the loading thread.
+     */
+    private final int chunkSize;
+
+    /**
+     * The title of the exam block, once read.
+     */
+    private String title;
+
+    /**
+     * The version of the file format, once read.
+     */
+    private double version;
+
+    /**
+     * Constructs a parser for a file. Subjects, exams and venues already in the registry
+     * may be referred to by the file.
+     *
+     * @param in       the file to read
+     * @param registry the registry to load the items into
+     */
+    EbdParser(BufferedReader in, Registry registry) {
+        this(in, registry, CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs a parser for a file, choosing how many records a worker parses at a
+     * time.
+     *
+     * @param in        the file to read
+     * @param registry  the registry to load the items into
+     * @param chunkSize the number of records per chunk, or 0 to parse every section on
+     *                  the loading thread
+     */
+    EbdParser(BufferedReader in, Registry registry, int chunkSize) {
+        this(new EbdTokenizer(in), registry, chunkSize);
+    }
+
+    /**
+     * Constructs a parser for a file mapped into memory, see
+     * {@link EbdTokenizer#map(java.nio.file.Path)}.
+     *
+     * @param tokens   the tokenizer of the file
+     * @param registry the registry to load the items into
+     */
+    EbdParser(EbdTokenizer tokens, Registry registry) {
+        this(tokens, registry, CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs a parser reading a file through a tokenizer.
+     *
+     * @param tokens    the tokenizer of the file
+     * @param registry  the registry to load the items into
+     * @param chunkSize the number of records per chunk, or 0 to parse every section on
+     *                  the loading thread
+     */
+    EbdParser(EbdTokenizer tokens, Registry registry, int chunkSize) {
+        this.tokens = tokens;
+        this.registry = registry;
+        this.chunkSize = chunkSize;
+        this.subjects = new HashMap<>();
+        this.exams = new HashMap<>();
+        this.venues = new HashMap<>();
+        this.deferred = new EnumMap<>(Section.class);
+        this.seen = EnumSet.noneOf(Section.class);
+        for (Subject subject : registry.getAll(Subject.class)) {
+            subjects.putIfAbsent(subject.getTitle(), subject);
+        }
+        for (Exam exam : registry.getAll(Exam.class)) {
+            exams.putIfAbsent(exam.getShortTitle(), exam);
+        }
+        for (Venue venue : registry.getAll(Venue.class)) {
+            venues.putIfAbsent(venue.getId(), venue);
+        }
+    }
+
+    /**
+     * Reads the whole file, up to {@code [End]}, registering its items.
+     *
+     * @throws IOException      if the file cannot be read
+     * @throws RuntimeException if the file is malformed, naming the line and column of
+     *                          the first error, or an item cannot be registered
+     */
+    void parse() throws IOException {
+        read(State.END);
+    }
+
+    /**
+     * Reads a mapped file through its {@link EbdIndex section index}, registering the
+     * items of every section but the students and sessions. Those are parsed in the
+     * background, each by a worker of the common {@link ForkJoinPool}, and registered by
+     * {@link #materialize(Class)} when they are first needed, so that a block can be
+     * opened to look at its exams or venues without waiting for its cohort.
+     * <p>
+     * If the file has no index, or its index no longer matches the sections where it
+     * says they are (because the file has been edited since it was written), the whole
+     * file is read as by {@link #parse()} instead.
+     *
+     * @return {@code true} if the index was used; {@code false} if the whole file has
+     *         been read
+     * @throws IOException      if the file cannot be read
+     * @throws RuntimeException if the file is malformed, naming the line and column of
+     *                          the first error, or an item cannot be registered
+     */
+    boolean parseIndexed() throws IOException {
+        EbdIndex index = EbdIndex.parse(tokens.lastLine());
+        if (index == null || !matches(index)) {
+            parse();
+            return false;
+        }
+        read(State.SECTION);
+        for (EbdIndex.Entry entry : index.entries()) {
+            Section section = Section.named(entry.header);
+            if (section == null) {
+                break;
+            }
+            seen.add(section);
+            EbdTokenizer t = tokens.at(entry.offset, entry.line);
+            if (DEFERRED.contains(section)) {
+                deferred.put(section, CompletableFuture.supplyAsync(() -> defer(t, section)));
+            } else {
+                load(t, section, header(t, section));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Registers the items of a section left to the background by {@link #parseIndexed()},
+     * first waiting for it to be parsed, if they have not been registered yet. The
+     * students are registered before the sessions, which count them.
+     *
+     * @param type the type of the items
+     * @throws IOException      if the file cannot be read
+     * @throws RuntimeException if the section is malformed, naming the line and column of
+     *                          the first error, or an item cannot be registered
+     */
+    synchronized void materialize(Class<? extends ManageableListItem> type)
+            throws IOException {
+        for (Section section : DEFERRED) {
+            if (section.type == type) {
+                materialize(section);
+            }
+        }
+    }
+
+    /**
+     * Registers the items of every section left to the background by
+     * {@link #parseIndexed()}.
+     *
+     * @throws IOException      if the file cannot be read
+     * @throws RuntimeException if a section is malformed, or an item cannot be registered
+     */
+    synchronized void materializeAll() throws IOException {
+        for (Section section : DEFERRED) {
+            materialize(section);
+        }
+    }
+
+    /**
+     * Checks whether any section left to the background has yet to be registered.
+     *
+     * @return {@code true} if one has
+     */
+    synchronized boolean hasDeferred() {
+        return !deferred.isEmpty();
+    }
+
+    /**
+     * Runs the state machine over the file until it reaches a state.
+     *
+     * @param until the state to stop at
+     * @throws IOException if the file cannot be read
+     */
+    private void read(State until) throws IOException {
+        State state = State.TITLE;
+        while (state != until) {
+            switch (state) {
+                case TITLE:
+                    tokens.require("'Title:'");
+                    tokens.key("Title");
+                    title = tokens.rest();
+                    state = State.VERSION;
+                    break;
+                case VERSION:
+                    tokens.require("'Version:'");
+                    tokens.key("Version");
+                    version = readVersion();
+                    state = State.BEGIN;
+                    break;
+                case BEGIN:
+                    tokens.require("'[Begin]'");
+                    tokens.expect("[Begin]");
+                    tokens.expectEnd();
+                    state = State.SECTION;
+                    break;
+                default:
+                    tokens.require("a section header or '[End]'");
+                    if (tokens.skip("[End]")) {
+                        tokens.expectEnd();
+                        state = State.END;
+                    } else {
+                        section(tokens);
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Checks that every entry of an index locates the header it names, and that the
+     * entries cover the sections up to {@code [End]}, each at most once.
+     *
+     * @param index the index of the file
+     * @return {@code true} if the index can be used
+     * @throws IOException if the file cannot be read
+     */
+    private boolean matches(EbdIndex index) throws IOException {
+        EnumSet<Section> listed = EnumSet.noneOf(Section.class);
+        for (EbdIndex.Entry entry : index.entries()) {
+            if (EbdIndex.END.equals(entry.header)) {
+                return locates(entry, "[End]");
+            }
+            Section section = Section.named(entry.header);
+            if (section == null || !listed.add(section)
+                    || !locates(entry, "[" + section.header + ": " + entry.count + "]")) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks that a line of the file is where an entry of its index says.
+     *
+     * @param entry the entry
+     * @param line  the text of the line
+     * @return {@code true} if the entry's line holds exactly that text
+     * @throws IOException if the file cannot be read
+     */
+    private boolean locates(EbdIndex.Entry entry, String line) throws IOException {
+        EbdTokenizer t = tokens.at(entry.offset, entry.line);
+        return t != null && t.advance() && t.lineNumber() == entry.line && t.skip(line)
+                && t.atEnd();
+    }
+
+    /**
+     * Parses a section left to the background, on a worker.
+     *
+     * @param t       the tokenizer, before the header of the section
+     * @param section the section
+     * @return builds and registers the items of the section; must be run on the loading
+     *         thread
+     */
+    private Runnable defer(EbdTokenizer t, Section section) {
+        try {
+            int count = header(t, section);
+            if (section == Section.SESSIONS) {
+                return sessions(t, count);
+            }
+            List<Runnable> builders = parseChunk(section, t, 1, count);
+            return () -> {
+                registry.beginBulk(section.type, count);
+                for (Runnable builder : builders) {
+                    builder.run();
+                }
+                registry.commitBulk();
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Registers the items of a section left to the background, if they have not been.
+     * If the section fails, every section still left is dropped with it, since the
+     * sessions refer to the students, so the error is reported once and the registry
+     * keeps what was registered before it.
+     *
+     * @param section the section
+     * @throws IOException if the file cannot be read
+     */
+    private void materialize(Section section) throws IOException {
+        if (section == Section.SESSIONS) {
+            materialize(Section.STUDENTS);
+        }
+        CompletableFuture<Runnable> parsed = deferred.remove(section);
+        if (parsed == null) {
+            return;
+        }
+        try {
+            join(parsed).run();
+        } catch (IOException | RuntimeException e) {
+            for (CompletableFuture<Runnable> abandoned : deferred.values()) {
+                abandoned.cancel(false);
+            }
+            deferred.clear();
+            throw e;
+        }
+    }
+    /**
+     * Returns the title of the exam block.
+     *
+     * @return the title, or {@code null} if it has not been read
+     */
+    String getTitle() {
+        return title;
+    }
+
+    /**
+     * Returns the version of the file format.
+     *
+     * @return the version, or 0 if it has not been read
+     */
+    double getVersion() {
+        return version;
+    }
+
+    /**
+     * Reads the version number at the cursor, which ends the line.
+     *
+     * @return the version
+     */
+    private double readVersion() {
+        int at = tokens.mark();
+        String text = tokens.rest();
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw tokens.error("invalid version '" + text + "'", at);
+        }
+    }
+
+    /**
+     * Reads a section header, then the items of the section.
+     *
+     * @param t the tokenizer, on the header
+     * @throws IOException if the file cannot be read
+     */
+    private void section(EbdTokenizer t) throws IOException {
+        t.expect("[");
+        Section section = null;
+        for (Section candidate : Section.values()) {
+            if (t.lookingAt(candidate.header + ":")) {
+                section = candidate;
+                break;
+            }
+        }
+        if (section == null) {
+            throw t.error("expected a section name or 'End'");
+        }
+        if (!seen.add(section)) {
+            throw t.error("section " + section.header + " is repeated");
+        }
+        load(t, section, count(t, section));
+    }
+
+    /**
+     * Moves to the header of a known section and reads it.
+     *
+     * @param t       the tokenizer, before the header
+     * @param section the section
+     * @return the number of items in the section
+     * @throws IOException if the file cannot be read
+     */
+    private static int header(EbdTokenizer t, Section section) throws IOException {
+        t.require("section " + section.header);
+        t.expect("[");
+        return count(t, section);
+    }
+
+    /**
+     * Reads the rest of a section header, after its {@code [}.
+     *
+     * @param t       the tokenizer
+     * @param section the section
+     * @return the number of items in the section
+     */
+    private static int count(EbdTokenizer t, Section section) {
+        t.key(section.header);
+        int count = t.readInt();
+        t.expect("]");
+        t.expectEnd();
+        return count;
+    }
+
+    /**
+     * Reads the items of a section and registers them.
+     *
+     * @param t       the tokenizer, on the header of the section
+     * @param section the section
+     * @param count   the number of items
+     * @throws IOException if the file cannot be read
+     */
+    private void load(EbdTokenizer t, Section section, int count) throws IOException {
+        if (section == Section.SESSIONS) {
+            sessions(t, count).run();
+            return;
+        }
+        registry.beginBulk(section.type, count);
+        if (section.lines > 0 && chunkSize > 0 && count > chunkSize) {
+            pipeline(t, section, count);
+        } else {
+            for (int i = 1; i <= count; i++) {
+                item(t, i, section.header);
+                switch (section) {
+                    case SUBJECTS:
+                        subject(t);
+                        break;
+                    case ROOMS:
+                        room(t);
+                        break;
+                    case VENUES:
+                        venue(t);
+                        break;
+                    default:
+                        record(section, t).run();
+                        break;
+                }
+            }
+        }
+        registry.commitBulk();
+    }
+
+    /**
+     * Loads the items of a section of independent records through a pipeline: this
+     * thread splits the file into chunks of {@link #chunkSize} records, workers of the
+     * common {@link ForkJoinPool} parse the chunks in parallel, and this thread builds
+     * and registers the parsed items, chunk by chunk, in the order of the file. A few
+     * chunks per worker are in flight at once, so reading, parsing and registering
+     * overlap while the file is held in memory only a window at a time.
+     * <p>
+     * Errors are reported in file order: the first malformed record stops the load,
+     * whichever worker found it.
+     *
+     * @param t       the tokenizer, on the header of the section
+     * @param section the section, whose records are all {@link Section#lines} lines long
+     * @param count   the number of records
+     * @throws IOException if the file cannot be read
+     */
+    private void pipeline(EbdTokenizer t, Section section, int count) throws IOException {
+        int window = 2 * ForkJoinPool.getCommonPoolParallelism();
+        Deque<CompletableFuture<List<Runnable>>> pending = new ArrayDeque<>(window);
+        try {
+            for (int first = 1; first <= count; first += chunkSize) {
+                int records = Math.min(chunkSize, count - first + 1);
+                EbdTokenizer chunk = t.split(records * section.lines,
+                        "item " + first + " of section " + section.header);
+                int number = first;
+                pending.add(CompletableFuture.supplyAsync(
+                        () -> parseChunk(section, chunk, number, records)));
+                if (pending.size() >= window) {
+                    merge(pending.poll());
+                }
+            }
+            while (!pending.isEmpty()) {
+                merge(pending.poll());
+            }
+        } finally {
+            for (CompletableFuture<List<Runnable>> abandoned : pending) {
+                abandoned.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Parses a chunk of records on a worker.
+     *
+     * @param section the section of the records
+     * @param chunk   the lines of the records
+     * @param first   the number of the first record
+     * @param records the number of records
+     * @return the builders of the parsed items, in order
+     */
+    private List<Runnable> parseChunk(Section section, EbdTokenizer chunk, int first,
+                                      int records) {
+        List<Runnable> built = new ArrayList<>(records);
+        try {
+            for (int i = first; i < first + records; i++) {
+                item(chunk, i, section.header);
+                built.add(record(section, chunk));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return built;
+    }
+
+    /**
+     * Waits for a chunk to be parsed, then builds and registers its items.
+     *
+     * @param parsed the chunk being parsed
+     * @throws IOException if the chunk could not be read
+     */
+    private void merge(CompletableFuture<List<Runnable>> parsed) throws IOException {
+        for (Runnable builder : join(parsed)) {
+            builder.run();
+        }
+    }
+
+    /**
+     * Waits for a worker, rethrowing what stopped it as it was thrown.
+     *
+     * @param parsed the result of the worker
+     * @param <T>    the type of the result
+     * @return the result
+     * @throws IOException if the worker could not read the file
+     */
+    private static <T> T join(CompletableFuture<T> parsed) throws IOException {
+        try {
+            return parsed.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Parses the rest of a record of a section whose records are independent of each
+     * other, without building its item.
+     *
+     * @param section the section
+     * @param t       the tokenizer, on the header line of the record after its number
+     * @return builds and registers the item; must be run on the loading thread
+     * @throws IOException if the file cannot be read
+     */
+    private Runnable record(Section section, EbdTokenizer t) throws IOException {
+        switch (section) {
+            case UNITS:
+                return unit(t);
+            case STUDENTS:
+                return student(t);
+            default:
+                return exam(t);
+        }
+    }
+
+    /**
+     * Moves to the header line of an item and reads its number.
+     *
+     * @param t       the tokenizer
+     * @param number  the number the item should have
+     * @param section the name of its section, for error messages
+     * @throws IOException if the file cannot be read
+     */
+    private static void item(EbdTokenizer t, int number, String section) throws IOException {
+        t.require("item " + number + " of section " + section);
+        int at = t.mark();
+        if (t.readInt() != number) {
+            throw t.error("expected item " + number + " of section " + section, at);
+        }
+        t.expect(".");
+        t.expect(" ");
+        t.skipSpaces();
+    }
+
+    /**
+     * Reads a subject: its ID, title and quoted description. The ID is derived from the
+     * title, so the one in the header is not kept.
+     *
+     * @param t the tokenizer
+     * @throws IOException if the file cannot be read
+     */
+    private void subject(EbdTokenizer t) throws IOException {
+        t.skipRest();
+        t.require("a subject title");
+        String subjectTitle = StringPool.SHARED.intern(t.rest());
+        t.require("a subject description");
+        String description = t.readQuoted();
+        subjects.put(subjectTitle, new Subject(subjectTitle, description, registry));
+    }
+
+    /**
+     * Reads a unit: its subject's ID, a {@code Subject, Unit n: Title} line and its
+     * quoted description.
+     *
+     * @param t the tokenizer
+     * @return builds and registers the unit
+     * @throws IOException if the file cannot be read
+     */
+    private Runnable unit(EbdTokenizer t) throws IOException {
+        t.skipRest();
+        t.require("a unit title");
+        Subject subject = subjectNamed(t, t.mark(), t.readUntil(", Unit "));
+        char unitId = t.readChar();
+        t.expect(":");
+        String unitTitle = StringPool.SHARED.intern(t.rest());
+        t.require("a unit description");
+        String description = t.readQuoted();
+        return () -> new Unit(subject, unitId, unitTitle, description, registry);
+    }
+
+    /**
+     * Reads a student: the name in the header, which is derived and not kept, a line of
+     * details and the list of subjects taken.
+     *
+     * @param t the tokenizer
+     * @return builds and registers the student
+     * @throws IOException if the file cannot be read
+     */
+    private Runnable student(EbdTokenizer t) throws IOException {
+        t.skipRest();
+        t.require("the student's details");
+        t.key("LUI");
+        long lui = t.readLong();
+        t.comma();
+        t.key("Family Name");
+        String family = t.readField();
+        t.comma();
+        t.key("Given Name(s)");
+        String given = t.readField();
+        t.comma();
+        t.key("Date of Birth");
+        LocalDate dob = t.readDate();
+        t.comma();
+        t.key("House");
+        String house = StringPool.SHARED.intern(t.readField());
+        t.comma();
+        t.key("AARA");
+        boolean aara = t.readBoolean();
+        t.expectEnd();
+
+        t.require("the student's subjects");
+        t.key("Subjects");
+        List<Subject> taken = new ArrayList<>();
+        while (!t.atEnd()) {
+            taken.add(subjectNamed(t, t.mark(), t.readField()));
+            if (!t.atEnd()) {
+                t.comma();
+            }
+        }
+        return () -> {
+            Student student = new Student(lui, given, family, dob.getDayOfMonth(),
+                    dob.getMonthValue(), dob.getYear(), house, aara, registry);
+            for (Subject subject : taken) {
+                student.addSubject(subject);
+            }
+        };
+    }
+
+    /**
+     * Reads an exam: its title, which is derived and not kept, and a line of details in
+     * which the paper, subtitle and unit are optional.
+     *
+     * @param t the tokenizer
+     * @return builds and registers the exam
+     * @throws IOException if the file cannot be read
+     */
+    private Runnable exam(EbdTokenizer t) throws IOException {
+        t.skipRest();
+        t.require("the exam's details");
+        t.key("Subject");
+        Subject subject = subjectNamed(t, t.mark(), t.readField());
+        t.comma();
+        t.key("Exam Type");
+        Exam.ExamType type = examType(t);
+        t.comma();
+        char paper = '\0';
+        String subtitle = "";
+        if (t.lookingAt("Paper:")) {
+            t.key("Paper");
+            paper = t.readChar();
+            t.comma();
+            if (t.lookingAt("Subtitle:")) {
+                t.key("Subtitle");
+                subtitle = StringPool.SHARED.intern(t.readField());
+                t.comma();
+            }
+        }
+        char examPaper = paper;
+        String examSubtitle = subtitle;
+        Character unit = null;
+        if (t.lookingAt("Unit:")) {
+            t.key("Unit");
+            unit = t.readChar();
+            t.comma();
+        }
+        Character examUnit = unit;
+        t.key("Exam Date");
+        LocalDate day = t.readDate();
+        t.skipSpaces();
+        LocalTime start = t.readTime();
+        t.expectEnd();
+        return () -> {
+            Exam exam = new Exam(subject, type, examPaper, examSubtitle, examUnit,
+                    day.getDayOfMonth(), day.getMonthValue(), day.getYear(),
+                    start.getHour(), start.getMinute(), registry);
+            exams.putIfAbsent(exam.getShortTitle(), exam);
+        };
+    }
+
+    /**
+     * Reads the type of an exam.
+     *
+     * @param t the tokenizer
+     * @return the type
+     */
+    private static Exam.ExamType examType(EbdTokenizer t) {
+        if (t.skip("INTERNAL")) {
+            return Exam.ExamType.INTERNAL;
+        }
+        if (t.skip("EXTERNAL")) {
+            return Exam.ExamType.EXTERNAL;
+        }
+        throw t.error("expected 'INTERNAL' or 'EXTERNAL'");
+    }
+
+    /**
+     * Reads a room, whose header holds only its ID.
+     *
+     * @param t the tokenizer
+     */
+    private void room(EbdTokenizer t) {
+        String id = StringPool.SHARED.intern(t.readWord());
+        t.expectEnd();
+        new Room(id, registry);
+    }
+
+    /**
+     * Reads a venue: its ID, followed in the header by a description of its desks that
+     * is derived and not kept, and a line of details.
+     *
+     * @param t the tokenizer
+     * @throws IOException if the file cannot be read
+     */
+    private void venue(EbdTokenizer t) throws IOException {
+        String id = StringPool.SHARED.intern(t.readWord());
+        t.skipRest();
+        t.require("the venue's details");
+        t.key("Room Count");
+        int roomCount = t.readInt();
+        t.comma();
+        t.key("Rooms");
+        RoomList rooms = new RoomList(registry);
+        while (!t.atEnd() && !t.lookingAt(",")) {
+            int at = t.mark();
+            String roomId = t.readWord();
+            Room room = registry.find(roomId, Room.class);
+            if (room == null) {
+                throw t.error("unknown room '" + roomId + "'", at);
+            }
+            rooms.add(room);
+            t.skipSpaces();
+        }
+        t.comma();
+        t.key("Rows");
+        int rows = t.readInt();
+        t.comma();
+        t.key("Columns");
+        int columns = t.readInt();
+        t.comma();
+        t.key("Desks");
+        int desks = t.readInt();
+        t.comma();
+        t.key("AARA");
+        boolean aara = t.readBoolean();
+        t.expectEnd();
+        venues.put(id, new Venue(id, roomCount, rooms, rows, columns, desks, aara, registry));
+    }
+
+    /**
+     * Reads the sessions section: each session's venue, number and time, then its exams
+     * by short title, each followed by its desk allocation. The sessions are registered
+     * in one bulk load before their exams are scheduled, so that the scheduling is seen
+     * by any registry tracking it (such as a {@link JournalingRegistry}).
+     *
+     * @param t     the tokenizer
+     * @param count the number of sessions
+     * @return builds and registers the sessions and schedules their exams; must be run on
+     *         the loading thread
+     * @throws IOException if the file cannot be read
+     */
+    private Runnable sessions(EbdTokenizer t, int count) throws IOException {
+        List<Supplier<Session>> sessions = new ArrayList<>(count);
+        List<List<Exam>> scheduled = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            item(t, i, Section.SESSIONS.header);
+            t.key("Venue");
+            int at = t.mark();
+            String venueId = t.readField();
+            Venue venue = venues.get(venueId);
+            if (venue == null) {
+                throw t.error("unknown venue '" + venueId + "'", at);
+            }
+            t.comma();
+            t.key("Session Number");
+            int number = t.readInt();
+            t.comma();
+            t.key("Day");
+            LocalDate day = t.readDate();
+            t.comma();
+            t.key("Start");
+            LocalTime start = t.readTime();
+            t.comma();
+            t.key("Exams");
+            int examCount = t.readInt();
+            t.expectEnd();
+            sessions.add(() -> new Session(venue, number, day, start, registry));
+
+            List<Exam> sessionExams = new ArrayList<>(examCount);
+            for (int e = 0; e < examCount; e++) {
+                t.require("an exam title");
+                at = t.mark();
+                String shortTitle = t.rest();
+                Exam exam = exams.get(shortTitle);
+                if (exam == null) {
+                    throw t.error("unknown exam '" + shortTitle + "'", at);
+                }
+                sessionExams.add(exam);
+                desks(t);
+            }
+            scheduled.add(sessionExams);
+        }
+        return () -> {
+            List<Session> built = new ArrayList<>(count);
+            registry.beginBulk(Session.class, count);
+            for (Supplier<Session> session : sessions) {
+                built.add(session.get());
+            }
+            registry.commitBulk();
+            for (int i = 0; i < count; i++) {
+                for (Exam exam : scheduled.get(i)) {
+                    built.get(i).scheduleExam(exam);
+                }
+            }
+        };
+    }
+
+    /**
+     * Checks and skips the desk allocation of an exam in a session.
+     *
+     * @param t the tokenizer
+     * @throws IOException if the file cannot be read
+     */
+    private static void desks(EbdTokenizer t) throws IOException {
+        t.require("'[Desks:'");
+        t.expect("[");
+        t.key("Desks");
+        int desks = t.readInt();
+        t.expect("]");
+        t.expectEnd();
+        for (int d = 0; d < desks; d++) {
+            t.require("a desk");
+            t.key("Desk");
+            t.readInt();
+            t.comma();
+            t.key("LUI");
+            t.readLong();
+            t.comma();
+            t.key("Name");
+            t.skipRest();
+        }
+    }
+
+    /**
+     * Resolves a subject read from the file by its title.
+     *
+     * @param t            the tokenizer the title was read by
+     * @param at           the index on the line the title was read from
+     * @param subjectTitle the title
+     * @return the subject
+     * @throws RuntimeException if no subject has that title
+     */
+    private Subject subjectNamed(EbdTokenizer t, int at, String subjectTitle) {
+        Subject subject = subjects.get(subjectTitle);
+        if (subject == null) {
+            throw t.error("unknown subject '" + subjectTitle + "'", at);
+        }
+        return subject;
+    }
+}
@@ -0,0 +1,748 @@
+package examblock.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Splits an {@code .ebd} file into lines and each line into the literals, numbers and
+ * text fields of its format, for {@link EbdParser}. Lines are read one at a time and
+ * scanned by a cursor, character by character, so nothing is matched with regular
+ * expressions or split into arrays.
+ * <p>
+ * Like {@link CSSE7023#getLine(BufferedReader)}, blank lines and lines starting with
+ * {@code #} are skipped, and leading and trailing whitespace is ignored. Errors name the
+ * line and column, counted from 1 in the file as written, where the text did not match.
+ * <p>
+ * A tokenizer made by {@link #map(Path)} reads a memory-mapped file in place: lines are
+ * found and scanned as UTF-8 bytes, numbers, dates and booleans are parsed straight from
+ * the bytes, and a {@code String} is made only for a text value the caller reads, such as
+ * a name or title. Delimiters are all ASCII, and no byte of a multi-byte UTF-8 sequence
+ * is ASCII, so scanning bytes finds the same fields as scanning characters; columns in
+ * errors are still counted in characters.
+ * <p>
+ * A tokenizer can also {@link #split(int, String) split off} the next lines of its file
+ * into a tokenizer of their own, which reads and numbers them just as this one would,
+ * so that they can be parsed on another thread; a tokenizer of a mapped file can also
+ * start another {@link #at(long, int) at any line} of it.
+ */
+final class EbdTokenizer {
+
+    /**
+     * The file being read, or {@code null} if the lines were split off another tokenizer.
+     */
+    private final BufferedReader in;
+
+    /**
+     * The lines split off another tokenizer, or {@code null} if reading a file.
+     */
+    private final String[] lines;
+
+    /**
+     * The line number of each of {@link #lines}.
+     */
+    private final int[] numbers;
+
+    /**
+     * The index in {@link #lines} of the next line to read.
+     */
+    private int next;
+
+    /**
+     * The mapped file, or {@code null} if reading lines of text.
+     */
+    private final ByteBuffer bytes;
+
+    /**
+     * The offset in {@link #bytes} of the next line to read.
+     */
+    private int cursor;
+
+    /**
+     * The offset in {@link #bytes} just after the last line to read.
+     */
+    private final int limit;
+
+    /**
+     * Whether there is a current line: {@code false} before the first line and after the
+     * last.
+     */
+    private boolean current;
+
+    /**
+     * The current line, if reading lines of text.
+     */
+    private String line;
+
+    /**
+     * The index of the first character of the current line: 0 in a line of text, or its
+     * offset in {@link #bytes}. Positions on a line are indices from the same origin.
+     */
+    private int base;
+
+    /**
+     * The number of the current line, counted from 1.
+     */
+    private int lineNumber;
+
+    /**
+     * The position of the next character to scan in the current line.
+     */
+    private int pos;
+
+    /**
+     * The position just after the last non-blank character of the current line.
+     */
+    private int end;
+
+    /**
+     * Constructs a tokenizer positioned before the first line of a file.
+     *
+     * @param in the file to read
+     */
+    EbdTokenizer(BufferedReader in) {
+        this(in, null, null, null, 0, 0, 0);
+    }
+
+    /**
+     * Constructs a tokenizer positioned before the first of some lines split off another.
+     *
+     * @param lines   the lines
+     * @param numbers the line number of each line
+     */
+    private EbdTokenizer(String[] lines, int[] numbers) {
+        this(null, lines, numbers, null, 0, 0, 0);
+    }
+
+    /**
+     * Constructs a tokenizer positioned before the first of some lines of UTF-8 bytes.
+     *
+     * @param bytes      the bytes
+     * @param from       the offset of the first line
+     * @param limit      the offset just after the last line
+     * @param lineNumber the number of the line before the first
+     */
+    private EbdTokenizer(ByteBuffer bytes, int from, int limit, int lineNumber) {
+        this(null, null, null, bytes, from, limit, lineNumber);
+    }
+
+    private EbdTokenizer(BufferedReader in, String[] lines, int[] numbers, ByteBuffer bytes,
+                         int from, int limit, int lineNumber) {
+        this.in = in;
+        this.lines = lines;
+        this.numbers = numbers;
+        this.bytes = bytes;
+        this.cursor = from;
+        this.limit = limit;
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * Maps a UTF-8 file into memory and constructs a tokenizer positioned before its
+     * first line. The file stays mapped, whether or not the tokenizer is still in use,
+     * until the mapping is garbage collected.
+     *
+     * @param file the file
+     * @return the tokenizer
+     * @throws IOException if the file cannot be mapped, or is 2 GB or larger
+     */
+    static EbdTokenizer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= Integer.MAX_VALUE) {
+                throw new IOException("File too large to map: " + file);
+            }
+            ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int from = size >= 3 && bytes.get(0) == (byte) 0xEF && bytes.get(1) == (byte) 0xBB
+                    && bytes.get(2) == (byte) 0xBF ? 3 : 0;
+            return new EbdTokenizer(bytes, from, (int) size, 0);
+        }
+    }
+
+    /**
+     * Constructs another tokenizer of the same mapped file, positioned before the line
+     * starting at an offset, to read a part of the file on its own, possibly on another
+     * thread.
+     *
+     * @param offset the offset of the line in the file
+     * @param line   the number of the line, counted from 1
+     * @return the tokenizer, or {@code null} if the file is not mapped or the offset is
+     *         outside it
+     */
+    EbdTokenizer at(long offset, int line) {
+        if (bytes == null || offset < 0 || offset > limit) {
+            return null;
+        }
+        return new EbdTokenizer(bytes, (int) offset, limit, line - 1);
+    }
+
+    /**
+     * Returns the last line of a mapped file that is not blank.
+     *
+     * @return the line, without surrounding whitespace, or {@code null} if the file is
+     *         not mapped or is blank
+     */
+    String lastLine() {
+        if (bytes == null) {
+            return null;
+        }
+        int stop = limit;
+        while (stop > cursor && (bytes.get(stop - 1) & 0xFF) <= ' ') {
+            stop--;
+        }
+        int start = stop;
+        while (start > cursor && bytes.get(start - 1) != '\n') {
+            start--;
+        }
+        if (start == stop) {
+            return null;
+        }
+        byte[] copy = new byte[stop - start];
+        bytes.get(start, copy);
+        return new String(copy, StandardCharsets.UTF_8).trim();
+    }
+
+
+    /**
+     * Reads the next lines that are neither blank nor comments, to be tokenized by a new
+     * tokenizer, and moves past them.
+     *
+     * @param count    the number of lines
+     * @param expected what the lines should hold, for the error message
+     * @return a tokenizer positioned before the first of the lines
+     * @throws IOException      if the file cannot be read
+     * @throws RuntimeException if the file ends first
+     */
+    EbdTokenizer split(int count, String expected) throws IOException {
+        if (bytes != null) {
+            int from = cursor;
+            int before = lineNumber;
+            for (int i = 0; i < count; i++) {
+                require(expected);
+            }
+            return new EbdTokenizer(bytes, from, cursor, before);
+        }
+        String[] split = new String[count];
+        int[] splitNumbers = new int[count];
+        for (int i = 0; i < count; i++) {
+            require(expected);
+            split[i] = line;
+            splitNumbers[i] = lineNumber;
+        }
+        return new EbdTokenizer(split, splitNumbers);
+    }
+
+    /**
+     * Moves to the next line that is neither blank nor a comment.
+     *
+     * @return {@code true} if there is one; {@code false} at the end of the file
+     * @throws IOException if the file cannot be read
+     */
+    boolean advance() throws IOException {
+        while (nextLine()) {
+            int first = base;
+            int last = end;
+            while (first < last && at(first) <= ' ') {
+                first++;
+            }
+            while (last > first && at(last - 1) <= ' ') {
+                last--;
+            }
+            if (first < last && at(first) != '#') {
+                pos = first;
+                end = last;
+                return true;
+            }
+        }
+        current = false;
+        line = null;
+        base = 0;
+        pos = 0;
+        end = 0;
+        return false;
+    }
+
+    /**
+     * Makes the next line current and counts it, leaving {@link #base} and {@link #end}
+     * around the whole line.
+     *
+     * @return {@code true} if there is one; {@code false} at the end of the file
+     * @throws IOException if the file cannot be read
+     */
+    private boolean nextLine() throws IOException {
+        if (bytes != null) {
+            if (cursor >= limit) {
+                return false;
+            }
+            int stop = cursor;
+            while (stop < limit && bytes.get(stop) != '\n') {
+                stop++;
+            }
+            base = cursor;
+            end = stop;
+            cursor = stop + 1;
+            lineNumber++;
+        } else {
+            String read;
+            if (in != null) {
+                read = in.readLine();
+                if (read == null) {
+                    return false;
+                }
+                lineNumber++;
+            } else {
+                if (next == lines.length) {
+                    return false;
+                }
+                lineNumber = numbers[next];
+                read = lines[next++];
+            }
+            line = read;
+            base = 0;
+            end = read.length();
+        }
+        current = true;
+        return true;
+    }
+
+    /**
+     * Moves to the next line that is neither blank nor a comment, which must exist.
+     *
+     * @param expected what the line should hold, for the error message
+     * @throws IOException      if the file cannot be read
+     * @throws RuntimeException if the file ends first
+     */
+    void require(String expected) throws IOException {
+        if (!advance()) {
+            throw error("unexpected end of file, expected " + expected);
+        }
+    }
+
+    /**
+     * Checks whether the rest of the current line has been read.
+     *
+     * @return {@code true} if nothing but whitespace is left
+     */
+    boolean atEnd() {
+        return pos >= end;
+    }
+
+    /**
+     * Checks whether the text at the cursor starts with a literal.
+     *
+     * @param literal the literal
+     * @return {@code true} if it does
+     */
+    boolean lookingAt(String literal) {
+        return matches(literal, pos);
+    }
+
+    /**
+     * Reads a literal if the text at the cursor starts with it.
+     *
+     * @param literal the literal
+     * @return {@code true} if it was read
+     */
+    boolean skip(String literal) {
+        if (!lookingAt(literal)) {
+            return false;
+        }
+        pos += literal.length();
+        return true;
+    }
+
+    /**
+     * Reads a literal.
+     *
+     * @param literal the literal
+     * @throws RuntimeException if the text at the cursor does not start with it
+     */
+    void expect(String literal) {
+        if (!skip(literal)) {
+            throw error("expected '" + literal + "'");
+        }
+    }
+
+    /**
+     * Checks that the whole line has been read.
+     *
+     * @throws RuntimeException if there is more text on the line
+     */
+    void expectEnd() {
+        if (!atEnd()) {
+            throw error("unexpected text '" + text(pos, end) + "'");
+        }
+    }
+
+    /**
+     * Skips any whitespace at the cursor.
+     */
+    void skipSpaces() {
+        while (pos < end && at(pos) <= ' ') {
+            pos++;
+        }
+    }
+
+    /**
+     * Reads the name of a {@code Name: value} field and the separator after it, leaving
+     * the cursor on the value.
+     *
+     * @param name the name of the field
+     * @throws RuntimeException if the field is not at the cursor
+     */
+    void key(String name) {
+        skipSpaces();
+        expect(name);
+        expect(":");
+        skipSpaces();
+    }
+
+    /**
+     * Reads the comma between two fields, along with any whitespace around it.
+     *
+     * @throws RuntimeException if there is no comma at the cursor
+     */
+    void comma() {
+        skipSpaces();
+        expect(",");
+        skipSpaces();
+    }
+
+    /**
+     * Reads a non-negative decimal {@code int}.
+     *
+     * @return the number
+     * @throws RuntimeException if there is no number at the cursor, or it is too large
+     */
+    int readInt() {
+        int start = pos;
+        long value = readDigits();
+        if (value > Integer.MAX_VALUE) {
+            throw error("number too large", start);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads a non-negative decimal {@code long}.
+     *
+     * @return the number
+     * @throws RuntimeException if there is no number at the cursor, or it is too large
+     */
+    long readLong() {
+        return readDigits();
+    }
+
+    /**
+     * Reads a date written as {@code yyyy-mm-dd}.
+     *
+     * @return the date
+     * @throws RuntimeException if there is no valid date at the cursor
+     */
+    LocalDate readDate() {
+        int start = pos;
+        int year = readInt();
+        expect("-");
+        int month = readInt();
+        expect("-");
+        int day = readInt();
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (DateTimeException e) {
+            throw error("invalid date: " + e.getMessage(), start);
+        }
+    }
+
+    /**
+     * Reads a time written as {@code hh:mm}.
+     *
+     * @return the time
+     * @throws RuntimeException if there is no valid time at the cursor
+     */
+    LocalTime readTime() {
+        int start = pos;
+        int hour = readInt();
+        expect(":");
+        int minute = readInt();
+        try {
+            return LocalTime.of(hour, minute);
+        } catch (DateTimeException e) {
+            throw error("invalid time: " + e.getMessage(), start);
+        }
+    }
+
+    /**
+     * Reads {@code true} or {@code false}.
+     *
+     * @return the value read
+     * @throws RuntimeException if neither is at the cursor
+     */
+    boolean readBoolean() {
+        if (skip("true")) {
+            return true;
+        }
+        if (skip("false")) {
+            return false;
+        }
+        throw error("expected 'true' or 'false'");
+    }
+
+    /**
+     * Reads a single character.
+     *
+     * @return the character
+     * @throws RuntimeException if the line has been read
+     */
+    char readChar() {
+        if (atEnd()) {
+            throw error("expected a character");
+        }
+        char read = at(pos);
+        if (bytes == null || read < 0x80) {
+            pos++;
+            return read;
+        }
+        int length = read >= 0xF0 ? 4 : read >= 0xE0 ? 3 : 2;
+        int start = pos;
+        pos = Math.min(pos + length, end);
+        return text(start, pos).charAt(0);
+    }
+
+    /**
+     * Reads a word: the text up to the next whitespace, comma or end of line.
+     *
+     * @return the word
+     * @throws RuntimeException if there is no word at the cursor
+     */
+    String readWord() {
+        int start = pos;
+        while (pos < end && at(pos) > ' ' && at(pos) != ',') {
+            pos++;
+        }
+        if (pos == start) {
+            throw error("expected a word");
+        }
+        return text(start, pos);
+    }
+
+    /**
+     * Reads the text of a field: everything up to the next comma or the end of the line,
+     * leaving the cursor on the comma.
+     *
+     * @return the text, without surrounding whitespace
+     * @throws RuntimeException if the field is empty
+     */
+    String readField() {
+        int start = pos;
+        int stop = pos;
+        while (stop < end && at(stop) != ',') {
+            stop++;
+        }
+        pos = stop;
+        return trimmed(start, stop);
+    }
+
+    /**
+     * Reads the text up to a delimiter, and the delimiter itself.
+     *
+     * @param delimiter the text that ends the value
+     * @return the text before it, without surrounding whitespace
+     * @throws RuntimeException if the delimiter is not on the rest of the line, or there
+     *                          is no text before it
+     */
+    String readUntil(String delimiter) {
+        int start = pos;
+        int stop = pos;
+        while (!matches(delimiter, stop)) {
+            if (stop + delimiter.length() >= end) {
+                throw error("expected '" + delimiter + "'", end);
+            }
+            stop++;
+        }
+        pos = stop + delimiter.length();
+        return trimmed(start, stop);
+    }
+
+    /**
+     * Reads the rest of the line.
+     *
+     * @return the text, without surrounding whitespace
+     * @throws RuntimeException if there is none
+     */
+    String rest() {
+        int start = pos;
+        pos = end;
+        return trimmed(start, end);
+    }
+
+    /**
+     * Skips the rest of the line, for text that is not kept.
+     */
+    void skipRest() {
+        pos = end;
+    }
+
+    /**
+     * Reads the rest of the line, dropping the double quotes around it if it has them.
+     *
+     * @return the text, without quotes or surrounding whitespace
+     * @throws RuntimeException if there is none
+     */
+    String readQuoted() {
+        skipSpaces();
+        if (end - pos >= 2 && at(pos) == '"' && at(end - 1) == '"') {
+            int start = pos + 1;
+            pos = end;
+            return text(start, end - 1);
+        }
+        return rest();
+    }
+
+    /**
+     * Returns the position of the cursor, to report an error about the text read from it.
+     *
+     * @return the position of the next character to scan in the current line
+     */
+    int mark() {
+        return pos;
+    }
+
+    /**
+     * Returns the number of the current line.
+     *
+     * @return the line number, counted from 1; the last line read at the end of the file
+     */
+    int lineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Makes an error about the text at the cursor.
+     *
+     * @param message what is wrong
+     * @return the error, naming the current line and column
+     */
+    RuntimeException error(String message) {
+        return error(message, pos);
+    }
+
+    /**
+     * Makes an error about the text at a position on the current line.
+     *
+     * @param message what is wrong
+     * @param at      the position of the offending character
+     * @return the error, naming the current line and column
+     */
+    RuntimeException error(String message, int at) {
+        if (!current) {
+            return new RuntimeException("Line " + lineNumber + ": " + message);
+        }
+        int column = bytes == null ? at - base : text(base, at).length();
+        return new RuntimeException("Line " + lineNumber + ", column " + (column + 1) + ": "
+                + message);
+    }
+
+    /**
+     * Reads a run of decimal digits.
+     *
+     * @return their value
+     * @throws RuntimeException if there are none, or they overflow a {@code long}
+     */
+    private long readDigits() {
+        int start = pos;
+        long value = 0;
+        while (pos < end) {
+            int digit = at(pos) - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                throw error("number too large", start);
+            }
+            value = value * 10 + digit;
+            pos++;
+        }
+        if (pos == start) {
+            throw error("expected a number");
+        }
+        return value;
+    }
+
+    /**
+     * Returns part of the current line without surrounding whitespace.
+     *
+     * @param start the position of the first character
+     * @param stop  the position just after the last character
+     * @return the text
+     * @throws RuntimeException if it is blank
+     */
+    private String trimmed(int start, int stop) {
+        while (start < stop && at(start) <= ' ') {
+            start++;
+        }
+        while (stop > start && at(stop - 1) <= ' ') {
+            stop--;
+        }
+        if (start == stop) {
+            throw error("expected a value", start);
+        }
+        return text(start, stop);
+    }
+
+    /**
+     * Returns a character of the current line; in a mapped file, a byte, so that any
+     * byte of a multi-byte character is at least {@code 0x80}.
+     *
+     * @param at the position of the character
+     * @return the character
+     */
+    private char at(int at) {
+        return bytes == null ? line.charAt(at) : (char) (bytes.get(at) & 0xFF);
+    }
+
+    /**
+     * Checks whether an ASCII literal is on the current line at a position.
+     *
+     * @param literal the literal
+     * @param at      the position
+     * @return {@code true} if it is
+     */
+    private boolean matches(String literal, int at) {
+        int length = literal.length();
+        if (end - at < length) {
+            return false;
+        }
+        if (bytes == null) {
+            return line.startsWith(literal, at);
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes.get(at + i) != literal.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Makes a {@code String} of part of the current line.
+     *
+     * @param start the position of the first character
+     * @param stop  the position just after the last character
+     * @return the text
+     */
+    private String text(int start, int stop) {
+        if (bytes == null) {
+            return line.substring(start, stop);
+        }
+        byte[] copy = new byte[stop - start];
+        bytes.get(start, copy);
+        return new String(copy, StandardCharsets.UTF_8);
+    }
+}
@@ -39,9 +39,16 @@ public class Exam implements StreamManager, ManageableListItem{
     private LocalTime examTime;
     /** ID */
     private String id;
+    /** The full title, built on first use; the fields it is made from never change. */
+    private String title;
+    /** The short title, built on first use. */
+    private String shortTitle;
 
     private Registry registry;
 
+    /** The dense ordinal given by the registry, or -1 if not registered. */
+    private int ordinal = -1;
+
     /**
      * Generates a unique ID for the exam : based on subject and date
      *
@@ -95,6 +102,7 @@ public class Exam implements StreamManager, ManageableListItem{
         examDate = LocalDate.of(year, month, day);
         examTime = LocalTime.of(hour, minute);
         this.id = generateId();
+        this.registry = registry;
         registry.add(this, Exam.class);
     }
 
@@ -124,6 +132,7 @@ public class Exam implements StreamManager, ManageableListItem{
         examDate = LocalDate.of(year, month, day);
         examTime = LocalTime.of(hour, minute);
         this.id = generateId();
+        this.registry = registry;
         registry.add(this, Exam.class);
 
     }
@@ -158,6 +167,7 @@ public class Exam implements StreamManager, ManageableListItem{
         examDate = LocalDate.of(year, month, day);
         examTime = LocalTime.of(hour, minute);
         this.id = generateId();
+        this.registry = registry;
         registry.add(this, Exam.class);
     }
 
@@ -190,6 +200,7 @@ public class Exam implements StreamManager, ManageableListItem{
         examDate = LocalDate.of(year, month, day);
         examTime = LocalTime.of(hour, minute);
         this.id = generateId();
+        this.registry = registry;
         registry.add(this, Exam.class);
     }
 
@@ -219,6 +230,20 @@ public class Exam implements StreamManager, ManageableListItem{
      * @return the full text title of the exam (type\n, subject, paper\n, subtitle)
      */
     public String getTitle() {
+        String built = this.title;
+        if (built == null) {
+            built = buildTitle();
+            this.title = built;
+        }
+        return built;
+    }
+
+    /**
+     * Builds the full title of the exam.
+     *
+     * @return the full title
+     */
+    private String buildTitle() {
         StringBuilder title = new StringBuilder();
         title.append("Year 12 ");
         if (examType == ExamType.EXTERNAL) {
@@ -245,6 +270,20 @@ public class Exam implements StreamManager, ManageableListItem{
      * @return text title of the exam (type, subject, paper)
      */
     public String getShortTitle() {
+        String built = this.shortTitle;
+        if (built == null) {
+            built = buildShortTitle();
+            this.shortTitle = built;
+        }
+        return built;
+    }
+
+    /**
+     * Builds the short title of the exam.
+     *
+     * @return the short title
+     */
+    private String buildShortTitle() {
         StringBuilder title = new StringBuilder();
         title.append("Year 12 ");
         if (examType == ExamType.EXTERNAL) {
@@ -278,6 +317,42 @@ public class Exam implements StreamManager, ManageableListItem{
         return examTime;
     }
 
+    /**
+     * Gets the type of the exam.
+     *
+     * @return whether the exam is internal or external
+     */
+    public ExamType getExamType() {
+        return examType;
+    }
+
+    /**
+     * Gets the paper identifier of the exam, if it has more than one paper.
+     *
+     * @return the paper identifier, or {@code null} if there is none
+     */
+    public Character getPaper() {
+        return paper;
+    }
+
+    /**
+     * Gets the subtitle of the exam, if it has one.
+     *
+     * @return the subtitle, or {@code null} if there is none
+     */
+    public String getSubtitle() {
+        return subtitle;
+    }
+
+    /**
+     * Gets the identifier of the unit the exam covers, if it covers a single unit.
+     *
+     * @return the unit identifier, or {@code null} if there is none
+     */
+    public Character getUnit() {
+        return unit;
+    }
+
 
 
     /**
@@ -346,24 +421,23 @@ public class Exam implements StreamManager, ManageableListItem{
      */
 
     public void streamOut(BufferedWriter bw, int nthItem) throws IOException {
-        bw.write(nthItem + this.getShortTitle());
+        bw.write(nthItem + ". " + this.getShortTitle());
         bw.newLine();
-        bw.write("Subject: " + this.getSubject().getTitle() + " , Exam Type:" + this.examType + ", ");
-
-        if (this.paper != null && this.subtitle != null) {
-            bw.write("Paper: " + this.paper);
-            //bw.newLine();
-            bw.write("Subtitle: " + this.subtitle);
-            //bw.newLine();
-        } else {
-            bw.write("Unit: " + this.unit);
+        StringBuilder meta = new StringBuilder();
+        meta.append("Subject: ").append(this.getSubject().getTitle())
+                .append(", Exam Type: ").append(this.examType);
+        if (this.paper != null && this.paper != '\0') {
+            meta.append(", Paper: ").append(this.paper);
+            if (this.subtitle != null && !this.subtitle.isEmpty()) {
+                meta.append(", Subtitle: ").append(this.subtitle);
+            }
         }
-        if (this.examDate != null && this.examTime != null) {
-            bw.write("Exam Date: " + this.examDate.toString()+" "+this.examTime.toString());
-            bw.newLine();
+        if (this.unit != null) {
+            meta.append(", Unit: ").append(this.unit);
         }
-
-
+        meta.append(", Exam Date: ").append(this.examDate).append(' ').append(this.examTime);
+        bw.write(meta.toString());
+        bw.newLine();
     }
 
     /**
@@ -422,7 +496,8 @@ public class Exam implements StreamManager, ManageableListItem{
             } else if (part.startsWith("Subtitle:")) {
                 String SubtitleStr = part.split(":")[1].trim();
                 // either null either the full subtitle
-                this.subtitle = SubtitleStr.isBlank() ? null : SubtitleStr;
+                this.subtitle = SubtitleStr.isBlank() ? null
+                        : StringPool.SHARED.intern(SubtitleStr);
             } else if (part.startsWith("Unit:")) {
                 String unitStr = part.split(":")[1].trim();
                 //  throw an IOException if no unit
@@ -470,23 +545,21 @@ public class Exam implements StreamManager, ManageableListItem{
     }
 
     private int countAARA() {
-        int count =0;
-        for ( Student myStudent : this.registry.getAll(Student.class) ) {
-            if (myStudent.getSubjects().getItems().contains(this.subject) && myStudent.isAara()) {
-                count++;
-            }
-        }
-        return count;
+        return countStudents(true);
     }
 
     private int countNonAARA() {
-        int count =0;
-        for ( Student myStudent : this.registry.getAll(Student.class) ) {
-            if (myStudent.getSubjects().getItems().contains(this.subject) && myStudent.isAara()) {
-                count++;
-            }
-        }
-        return count;
+        return countStudents(false);
+    }
+
+    /**
+     * Counts the students taking this exam's subject with the given AARA setting.
+     *
+     * @param aara true to count AARA students, false for non-AARA students
+     * @return the number of students
+     */
+    private int countStudents(boolean aara) {
+        return Student.countEnrolled(this.registry, this.subject, aara);
     }
 
     @Override
@@ -500,6 +573,14 @@ public class Exam implements StreamManager, ManageableListItem{
     public int hashCode() {
         return Objects.hash(getSubject(), examType, paper, subtitle, unit, examDate, examTime, getId());
     }
-}
 
+    @Override
+    public int getOrdinal() {
+        return ordinal;
+    }
 
+    @Override
+    public void setOrdinal(int ordinal) {
+        this.ordinal = ordinal;
+    }
+}
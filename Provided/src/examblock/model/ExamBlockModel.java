@@ -1,40 +1,138 @@
 package examblock.model;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.List;
 
 public class ExamBlockModel {
 
     private ArrayList<ModelObserver> myObservers;
-    private ExamList myExams;
+    private LiveList<Exam, ExamList> myExams;
     private Registry myRegistry;
-    private RoomList myRooms;
-    private SessionList mySessions;
-    private StudentList myStudents;
-    private SubjectList mySubjects;
+    private LiveList<Room, RoomList> myRooms;
+    private LiveList<Session, SessionList> mySessions;
+    private LiveList<Student, StudentList> myStudents;
+    private LiveList<Subject, SubjectList> mySubjects;
     private String Title;
-    private UnitList myUnits;
-    private VenueList myVenues;
+    private LiveList<Unit, UnitList> myUnits;
+    private LiveList<Venue, VenueList> myVenues;
     private double Version;
     private String filename;
 
+    /**
+     * The parser of the last file loaded, while it still holds sections parsed in the
+     * background that have not been registered yet; otherwise {@code null}.
+     */
+    private volatile EbdParser deferred;
+
 
     public ExamBlockModel() {
+        this(new RegistryImpl());
+    }
+
+    /**
+     * Builds an empty model over the given registry, e.g. a {@link JournalingRegistry}
+     * so that changes to the model survive a crash.
+     *
+     * @param registry the registry to hold the model's items
+     */
+    public ExamBlockModel(Registry registry) {
 
         this.myObservers = new ArrayList<>();
-        this.myExams = new ExamList(this.getRegistry());
-        //this.myRegistry = null; // un initialized
-        this.myRooms = new RoomList(this.getRegistry());
-        this.mySessions = new SessionList(this.getRegistry());
-        this.myStudents = new StudentList(this.getRegistry());
-        this.mySubjects = new SubjectList(this.getRegistry());
-        this.myUnits = new UnitList(this.getRegistry());
-        this.myVenues = new VenueList(this.getRegistry());
+        this.myRegistry = registry;
+        this.initLists();
         this.Title = "Exam Block Model"; // default?
         this.Version = 1.0;
 
         }
+
+    /**
+     * Builds a read-only model over a registry snapshot; see {@link #snapshot()}.
+     */
+    private ExamBlockModel(Registry snapshot, String title, double version) {
+        this.myObservers = new ArrayList<>();
+        this.myRegistry = snapshot;
+        this.initLists();
+        this.Title = title;
+        this.Version = version;
+    }
+
+    /**
+     * Returns a point-in-time copy of this model for long read-only passes such as
+     * reports: its lists all come from one {@link Registry#snapshot()}, so it never shows
+     * half-applied changes, and taking it does not block anyone changing this model.
+     *
+     * @return a read-only copy of this model as it is now
+     */
+    public ExamBlockModel snapshot() {
+        this.materializeAll();
+        return new ExamBlockModel(this.myRegistry.snapshot(), this.Title, this.Version);
+    }
+
+    /**
+     * A list of every registered item of one type that is kept, and handed out, as one
+     * instance. It is refilled in place only when the registry's stamp for the type says
+     * items were registered or unregistered since it was last filled, so asking for it
+     * again is constant time and allocates nothing.
+     *
+     * @param <T> the type of the items
+     * @param <L> the type of the list
+     */
+    private static final class LiveList<T extends ManageableListItem & StreamManager,
+            L extends ListManager<T>> {
+
+        /** The list handed out. */
+        private final L list;
+
+        /** The class of the items. */
+        private final Class<T> type;
+
+        /** The registry's stamp for the type when the list was last filled. */
+        private long stamp = -1;
+
+        /**
+         * Constructs an unfilled live list.
+         *
+         * @param list an empty list to fill
+         * @param type the class of the items
+         */
+        private LiveList(L list, Class<T> type) {
+            this.list = list;
+            this.type = type;
+        }
+
+        /**
+         * Returns the list, first refilling it if the registered items have changed.
+         *
+         * @param registry the registry the items come from
+         * @return the list of every registered item of the type, in registry order
+         */
+        private L get(Registry registry) {
+            long now = registry.modCount(type);
+            if (now != stamp) {
+                list.addAll(new ArrayList<>(registry.getAll(type)));
+                list.markAllRegistered(now);
+                stamp = now;
+            }
+            return list;
+        }
+    }
+
+    /**
+     * Creates the live lists over this model's registry.
+     */
+    private void initLists() {
+        Registry registry = this.myRegistry;
+        this.myExams = new LiveList<>(new ExamList(registry), Exam.class);
+        this.myRooms = new LiveList<>(new RoomList(registry), Room.class);
+        this.mySessions = new LiveList<>(new SessionList(registry), Session.class);
+        this.myStudents = new LiveList<>(new StudentList(registry), Student.class);
+        this.mySubjects = new LiveList<>(new SubjectList(registry), Subject.class);
+        this.myUnits = new LiveList<>(new UnitList(registry), Unit.class);
+        this.myVenues = new LiveList<>(new VenueList(registry), Venue.class);
+    }
+
     public void addObserver(ModelObserver observer) {
         if (!this.myObservers.contains(observer)) {
             this.myObservers.add(observer);
@@ -46,48 +144,63 @@ public class ExamBlockModel {
         return this.filename;
     }
 
+    /**
+     * Returns the exams, first registering the students if the last file loaded left them
+     * to be parsed in the background, since each exam counts the students taking it.
+     *
+     * @return the list of every exam
+     */
     public ExamList getExams() {
-        return this.myExams;
+        this.materialize(Student.class);
+        return this.myExams.get(this.myRegistry);
     }
 
+    /**
+     * Returns the registry holding this model's items, first registering any sections of
+     * the last file loaded that are still being parsed in the background.
+     *
+     * @return the registry
+     */
     public Registry getRegistry() {
+        this.materializeAll();
         return this.myRegistry;
     }
 
     public RoomList getRooms() {
-        List<Room> rooms = this.getRegistry().getAll(Room.class);
-        RoomList newList = new RoomList(this.getRegistry());
-        for (Room myRoom : rooms) {
-            newList.add(myRoom);
-        }
-        return newList;
+        return this.myRooms.get(this.myRegistry);
     }
 
+    /**
+     * Returns the sessions, first registering them, and the students they count, if the
+     * last file loaded left them to be parsed in the background.
+     *
+     * @return the list of every session
+     */
     public SessionList getSessions() {
-        List<Session> sessions = this.getRegistry().getAll(Session.class);
-        SessionList newList = new SessionList(this.getRegistry()); // this.items is empty at the beginning
-        for (Session mySession : sessions) {
-            newList.add(mySession);
-        }
-        return newList;
+        this.materialize(Session.class);
+        return this.mySessions.get(this.myRegistry);
     }
 
+    /**
+     * Returns the students, first registering them if the last file loaded left them to
+     * be parsed in the background.
+     *
+     * @return the list of every student
+     */
     public StudentList getStudents() {
-        List<Student> students = this.getRegistry().getAll(Student.class);
-        StudentList newList = new StudentList(this.getRegistry());
-        for (Student student : students) {
-            newList.add(student);
-        }
-        return newList;
+        this.materialize(Student.class);
+        return this.myStudents.get(this.myRegistry);
     }
 
+    /**
+     * Returns the subjects, first registering the students if the last file loaded left
+     * them to be parsed in the background, since the subjects' enrolments count them.
+     *
+     * @return the list of every subject
+     */
     public SubjectList getSubjects() {
-        List<Subject> subjects = this.getRegistry().getAll(Subject.class);
-        SubjectList newList = new SubjectList(this.getRegistry());
-        for (Subject subject : subjects) {
-            newList.add(subject);
-        }
-        return newList;
+        this.materialize(Student.class);
+        return this.mySubjects.get(this.myRegistry);
     }
 
     public String getTitle() {
@@ -95,21 +208,11 @@ public class ExamBlockModel {
     }
 
     public UnitList getUnits() {
-        List<Unit> units = this.getRegistry().getAll(Unit.class);
-        UnitList newList = new UnitList(this.getRegistry());
-        for (Unit unit : units) {
-            newList.add(unit);
-        }
-        return newList;
+        return this.myUnits.get(this.myRegistry);
     }
 
     public VenueList getVenues() {
-        List<Venue> venues = this.getRegistry().getAll(Venue.class);
-        VenueList newList = new VenueList(this.getRegistry());
-        for (Venue venue : venues) {
-            newList.add(venue);
-        }
-        return newList;
+        return this.myVenues.get(this.myRegistry);
     }
 
     public double getVersion() {
@@ -136,13 +239,42 @@ public class ExamBlockModel {
         }
     }
 
-    public boolean saveToFile(Registry registry, String filename, String title, double version) {
+    /**
+     * Saves this model's items to a file, in the binary format if its name ends in
+     * {@code .ebb} and in the text format otherwise. Both formats are written from this
+     * model's own registry.
+     *
+     * @param filename the name of the file to write
+     * @param title    the title of the exam block
+     * @param version  the version of the exam block
+     * @return {@code true} if the file was written, {@code false} otherwise
+     */
+    public boolean saveToFile(String filename, String title, double version) {
         if (filename == null || filename.isEmpty()) {
             System.err.println("No filename provided.");
             return false;
         }
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
+        this.materializeAll();
+        if (isBinary(filename)) {
+            try {
+                new EbbFormat(this.myRegistry).write(Paths.get(filename), title, version);
+                return true;
+            } catch (IOException e) {
+                System.err.println("Failed to save file: " + e.getMessage());
+                return false;
+            }
+        }
+
+        EbdIndex.Counter counter;
+        try {
+            counter = new EbdIndex.Counter(new FileOutputStream(filename));
+        } catch (IOException e) {
+            System.err.println("Failed to save file: " + e.getMessage());
+            return false;
+        }
+        try (BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(counter, StandardCharsets.UTF_8))) {
             writer.write("Title: " + title);
             writer.newLine();
             writer.write("Version: " + version);
@@ -150,16 +282,21 @@ public class ExamBlockModel {
             writer.write("[Begin]");
             writer.newLine();
 
-            this.mySubjects.streamOut(writer, 1);
-            this.myUnits.streamOut(writer, 1);
-            this.myStudents.streamOut(writer, 1);
-            this.myExams.streamOut(writer, 1);
-            this.myRooms.streamOut(writer, 1);
-            this.myVenues.streamOut(writer, 1);
-            this.mySessions.streamOut(writer, 1);
-
+            EbdIndex index = new EbdIndex();
+            writeSection(writer, counter, index, "Subjects", this.getSubjects());
+            writeSection(writer, counter, index, "Units", this.getUnits());
+            writeSection(writer, counter, index, "Students", this.getStudents());
+            writeSection(writer, counter, index, "Exams", this.getExams());
+            writeSection(writer, counter, index, "Rooms", this.getRooms());
+            writeSection(writer, counter, index, "Venues", this.getVenues());
+            writeSection(writer, counter, index, "Sessions", this.getSessions());
+
+            writer.flush();
+            index.add(EbdIndex.END, 0, counter.offset(), counter.line());
             writer.write("[End]");
             writer.newLine();
+            writer.write(index.line());
+            writer.newLine();
             return true;
 
         } catch (IOException e) {
@@ -168,208 +305,28 @@ public class ExamBlockModel {
         }
     }
 
-    public void loadFromFile(Registry registry, String filename) {
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            String line;
-
-            // === Title ===
-            line = br.readLine();
-            if (line == null || !line.startsWith("Title:"))
-                throw new RuntimeException("Missing title line");
-            this.setTitle(line.substring("Title:".length()).trim());
-
-            // === Version ===
-            line = br.readLine();
-            if (line == null || !line.startsWith("Version:"))
-                throw new RuntimeException("Missing version line");
-            this.setVersion(Double.parseDouble(line.substring("Version:".length()).trim()));
-
-            // === [Begin] ===
-            line = br.readLine();
-            if (!"[Begin]".equals(line))
-                throw new RuntimeException("Expected [Begin] tag");
-
-            while ((line = br.readLine()) != null) {
-                if ("[End]".equals(line)) break;
-
-                if (line.matches("^\\[Subjects: \\d+\\]$")) {
-
-                    // ^         → beginning of the line
-                    // \\[       → literal '[' (escaped as '\\[' in Java)
-                    // Subjects: → exact word "Subjects:" (case-sensitive)
-                    // \\d+      → one or more digits (e.g., "34"), escaped as '\\d+'
-                    // \\]       → literal ']' (escaped as '\\]')
-                    // $         → end of the line
-
-                    // get  number of subjects
-                    // Result: "[Subjects: 34]" → "34"
-                    int subjectCount = Integer.parseInt(line.replaceAll("[^\\d]", ""));
-                    int nthItem = 1;
-
-                    while ((line = br.readLine()) != null && !line.isEmpty()) {
-                        // process lines starting with a numbered header like "1. ACCOUNTING"
-                        if (!line.matches("^\\d+\\.\\s.+")) {
-                            throw new RuntimeException("Expected subject line like '1. SUBJECTNAME', got: " + line);
-                        }
-
-                        // Push the line back in by creating a fake reader — or just pass the whole br directly to constructor
-                        // Constructor reads all three lines: numbered header, name, and description.
-                        this.myRegistry.add( new Subject(br, registry, nthItem), Subject.class);  // handles registry.add internally
-                        nthItem++;
-                        if (nthItem > subjectCount) {
-                            throw new IllegalStateException();
-                        }
-                    }
-                } else if (line.matches("^\\[Units: \\d+\\]$")) {
-
-                    // ^         → beginning of the line
-                    // \\[       → literal '['
-                    // Units:    → exact string "Units:"
-                    // \\d+      → one or more digits
-                    // \\]       → literal ']'
-                    // $         → end of the line
-
-                    // Extract the number of units from the line
-                    int unitCount = Integer.parseInt(line.replaceAll("[^\\d]", ""));
-                    int nthItem = 1;
-
-                    // Read each Unit entry, which consists of 3 lines per unit
-                    while ((line = br.readLine()) != null && !line.isEmpty()) {
-
-                        // Validate that the line starts with a number and a dot (e.g., "1. ACCOUNTING")
-                        if (!line.matches("^\\d+\\.\\s.+")) {
-                            throw new RuntimeException("Expected unit line like '1. SUBJECTNAME', got: " + line);
-                        }
-
-                        // Construct the Unit, passing the BufferedReader to let the constructor read 3 lines
-                        this.myRegistry.add(new Unit(br, registry, nthItem), Unit.class);
-
-                        // Move to the next unit
-                        nthItem++;
-
-                        // Check that we don't read more units than announced
-                        if (nthItem > unitCount + 1) {
-                            throw new IllegalStateException("More units found than declared in header.");
-                        }
-                    }
-                } else if (line.matches("^\\[Students: \\d+\\]$")) {
-
-                    // ^         → beginning of the line
-                    // \\[       → literal '['
-                    // Students: → exact string "Students:"
-                    // \\d+      → one or more digits
-                    // \\]       → literal ']'
-                    // $         → end of the line
-
-                    // Extract the number of students from the header
-                    int studentCount = Integer.parseInt(line.replaceAll("[^\\d]", ""));
-                    int nthItem = 1;
-
-                    // Loop through each student entry (3 lines per student)
-                    while ((line = br.readLine()) != null && !line.isEmpty()) {
-
-                        // First line must be a valid student header like "1. JOHN DOE"
-                        if (!line.matches("^\\d+\\.\\s.+")) {
-                            throw new RuntimeException("Expected student header like '1. FULL NAME', got: " + line);
-                        }
-
-                        // Let the constructor handle reading the 3 lines and parsing the fields
-                        this.myRegistry.add(new Student(br, registry, nthItem), Student.class);
-
-                        nthItem++;
-
-                        // Check for overrun
-                        if (nthItem > studentCount + 1) {
-                            throw new IllegalStateException("More students found than declared in header.");
-                        }
-                    }
-                } else if (line.matches("^\\[Exams: \\d+\\]$")) {
-
-                    // ^         → beginning of the line
-                    // \\[       → literal '['
-                    // Exams:    → exact word
-                    // \\d+      → one or more digits
-                    // \\]       → literal ']'
-                    // $         → end of the line
-
-                    // Extract number of exams (e.g. "14")
-                    int examCount = Integer.parseInt(line.replaceAll("[^\\d]", ""));
-                    int nthItem = 1;
-
-                    // Loop through all exams (each has 2 lines)
-                    while ((line = br.readLine()) != null && !line.isEmpty()) {
-
-                        // Validate that the line starts with an exam number (e.g., "1. Year 12 ...")
-                        if (!line.matches("^\\d+\\.\\s.+")) {
-                            throw new RuntimeException("Expected exam title line like '1. EXAM TITLE', got: " + line);
-                        }
-
-                        // Create and add Exam instance; constructor reads both lines
-                        this.myRegistry.add(new Exam(br, registry, nthItem), Exam.class);
-
-                        nthItem++;
-
-                        // Make sure we don’t read more than announced
-                        if (nthItem > examCount + 1) {
-                            throw new IllegalStateException("More exams found than declared in header.");
-                        }
-                    }
-                } else if (line.matches("^\\[Rooms: \\d+\\]$")) {
-
-                    // Match lines like "[Rooms: 5]"
-                    int roomCount = Integer.parseInt(line.replaceAll("[^\\d]", ""));
-                    int nthItem = 1;
-
-                    // Loop to read each room line (only one line per room)
-                    while ((line = br.readLine()) != null && !line.isEmpty()) {
-
-                        // Validate the line format: number followed by name (e.g., "1. R1")
-                        if (!line.matches("^\\d+\\.\\s.+")) {
-                            throw new RuntimeException("Expected room line like '1. R1', got: " + line);
-                        }
-
-                        // Let constructor handle parsing and registry addition
-                        this.myRegistry.add(new Room(br, registry, nthItem), Room.class);
-
-                        nthItem++;
-
-                        // Guard against reading too many rooms
-                        if (nthItem > roomCount + 1) {
-                            throw new IllegalStateException("More rooms found than declared in header.");
-                        }
-                    }
-                } else if (line.matches("^\\[Venues: \\d+\\]$")) {
-
-                    // Extract the number of venues from the line
-                    int venueCount = Integer.parseInt(line.replaceAll("[^\\d]", ""));
-                    int nthItem = 1;
-
-                    // Parse each venue (2 lines per venue)
-                    while ((line = br.readLine()) != null && !line.isEmpty()) {
-
-                        // Validate first line (e.g., "1. V1 (25 Non-AARA desks)")
-                        if (!line.matches("^\\d+\\.\\s.+")) {
-                            throw new RuntimeException("Expected venue header like '1. V1 (...)', got: " + line);
-                        }
-
-                        // We let the Venue constructor read both lines
-                        this.myRegistry.add(new Venue(br, registry, nthItem), Venue.class);
-
-                        nthItem++;
-
-                        if (nthItem > venueCount + 1) {
-                            throw new IllegalStateException("More venues found than declared.");
-                        }
-                    }
-                }  else {
-                    throw new RuntimeException("Unexpected section header: " + line);
-                }
-            }
-
-            if (line == null || !line.equals("[End]")) {
-                throw new RuntimeException("Missing [End] tag");
-            }
+    /**
+     * Writes a section of a text file, recording where it starts in the file's index.
+     *
+     * @param writer  the writer of the file
+     * @param counter the stream under the writer, counting what has been written
+     * @param index   the index of the file
+     * @param header  the name of the section in its header
+     * @param list    the items of the section
+     * @throws IOException if the file cannot be written
+     */
+    private static void writeSection(BufferedWriter writer, EbdIndex.Counter counter,
+                                     EbdIndex index, String header, ListManager<?> list)
+            throws IOException {
+        writer.flush();
+        index.add(header, list.size(), counter.offset(), counter.line());
+        list.streamOut(writer, 1);
+    }
 
+    public void loadFromFile(Registry registry, String filename) {
+        try {
+            load(registry, filename);
+            this.materializeAll();
         } catch (IOException | RuntimeException e) {
             System.err.println("Failed to load registry: " + e.getMessage());
             e.printStackTrace();
@@ -377,7 +334,96 @@ public class ExamBlockModel {
         }
     }
 
+    /**
+     * Loads an exam block file into a registry, taking this model's title and version
+     * from it. Files named {@code *.ebb} are read as binary exam blocks
+     * ({@link CSSE7023.FileType#EBB}); any other file as text ({@code .ebd}).
+     * <p>
+     * A text file saved by this model ends with an index of its sections. If it is
+     * loaded into this model's own registry, the index is used to register everything but
+     * the students and sessions straight away; those are parsed in the background and
+     * registered when first asked for, by {@link #getStudents()}, {@link #getSessions()},
+     * {@link #getExams()}, {@link #getSubjects()}, {@link #getRegistry()} or a save. The
+     * first of these reports any error in them, once: a section that fails is dropped,
+     * with the sections after it, and the items already registered are kept.
+     *
+     * @param registry the registry to load the items into
+     * @param filename the name of the file
+     * @throws IOException      if the file cannot be read
+     * @throws RuntimeException if the file is malformed, or an item cannot be registered
+     */
+    public void load(Registry registry, String filename) throws IOException {
+        this.materializeAll();
+        if (isBinary(filename)) {
+            EbbFormat format = new EbbFormat(registry);
+            format.read(Paths.get(filename));
+            this.setTitle(format.getTitle());
+            this.setVersion(format.getVersion());
+        } else {
+            EbdParser parser = new EbdParser(EbdTokenizer.map(Paths.get(filename)), registry);
+            if (registry != this.myRegistry) {
+                parser.parse();
+            } else if (parser.parseIndexed()) {
+                this.deferred = parser;
+            }
+            this.setTitle(parser.getTitle());
+            this.setVersion(parser.getVersion());
+        }
+    }
 
+    /**
+     * Registers the items of a type left to be parsed in the background by the last file
+     * loaded, if any.
+     *
+     * @param type the type of the items
+     * @throws UncheckedIOException if the file can no longer be read
+     * @throws RuntimeException     if the items are malformed, or cannot be registered
+     */
+    private void materialize(Class<? extends ManageableListItem> type) {
+        EbdParser parser = this.deferred;
+        if (parser == null) {
+            return;
+        }
+        try {
+            parser.materialize(type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (!parser.hasDeferred()) {
+                this.deferred = null;
+            }
+        }
+    }
 
+    /**
+     * Registers every item left to be parsed in the background by the last file loaded.
+     *
+     * @throws UncheckedIOException if the file can no longer be read
+     * @throws RuntimeException     if the items are malformed, or cannot be registered
+     */
+    private void materializeAll() {
+        EbdParser parser = this.deferred;
+        if (parser == null) {
+            return;
+        }
+        try {
+            parser.materializeAll();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            this.deferred = null;
+        }
+    }
 
+    /**
+     * Checks whether a file is named as a binary exam block.
+     *
+     * @param filename the name of the file
+     * @return {@code true} if it ends in {@code .ebb}, in any case
+     */
+    static boolean isBinary(String filename) {
+        String extension = "." + CSSE7023.FileType.EBB.getExtension();
+        return filename.regionMatches(true, filename.length() - extension.length(),
+                extension, 0, extension.length());
+    }
 }
@@ -2,6 +2,9 @@ package examblock.model;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -10,6 +13,23 @@ import java.util.List;
  */
 public class ExamList extends ListManager<Exam> {
 
+    /**
+     * The exams of this list by date and start time.
+     */
+    private final Timetable<Exam> timetable = new Timetable<>(Exam::getDate, Exam::getTime);
+
+    /**
+     * The exams of this list by the title of their subject.
+     */
+    private final TitleIndex<Exam, String> bySubjectTitle =
+            new TitleIndex<>(exam -> exam.getSubject() == null ? null
+                    : exam.getSubject().getTitle());
+
+    /**
+     * The exams of this list by short title.
+     */
+    private final TitleIndex<Exam, String> byShortTitle =
+            new TitleIndex<>(Exam::getShortTitle);
 
 
     /**
@@ -35,7 +55,60 @@ public class ExamList extends ListManager<Exam> {
      * @param exam - the exam object being added to this list.
      */
     public void add(Exam exam) {
-        super.getItems().add(exam);
+        addUnchecked(exam);
+    }
+
+    /**
+     * Gets the exams in this list starting at exactly the given date and time.
+     *
+     * @param day   the date of the exams
+     * @param start the start time of the exams
+     * @return a read-only list of the exams, in the order they were added
+     */
+    public List<Exam> examsAt(LocalDate day, LocalTime start) {
+        return timetable.at(day, start);
+    }
+
+    /**
+     * Gets the exams in this list held on the given date.
+     *
+     * @param day the date of the exams
+     * @return a new list of the exams, by start time
+     */
+    public List<Exam> examsOn(LocalDate day) {
+        return timetable.on(day);
+    }
+
+    /**
+     * Gets the exams in this list starting at or after {@code from} and before {@code to}.
+     *
+     * @param from the start of the range, inclusive
+     * @param to   the end of the range, exclusive
+     * @return a new list of the exams, by start time
+     */
+    public List<Exam> examsBetween(LocalDateTime from, LocalDateTime to) {
+        return timetable.between(from, to);
+    }
+
+    @Override
+    protected void added(Exam exam) {
+        timetable.add(exam);
+        bySubjectTitle.add(exam);
+        byShortTitle.add(exam);
+    }
+
+    @Override
+    protected void removed(Exam exam) {
+        timetable.remove(exam);
+        bySubjectTitle.remove(exam, view());
+        byShortTitle.remove(exam, view());
+    }
+
+    @Override
+    protected void cleared() {
+        timetable.clear();
+        bySubjectTitle.clear();
+        byShortTitle.clear();
     }
 
 
@@ -50,12 +123,11 @@ public class ExamList extends ListManager<Exam> {
      *         the executing state and the complete list of possible exams.
      */
     public Exam bySubjectTitle(String title) throws IllegalStateException {
-        for (Exam exam : super.getItems()) {
-            if (exam.getSubject().getTitle().equals(title)) {
-                return exam;
-            }
+        Exam exam = title == null ? null : this.bySubjectTitle.get(title, this.view());
+        if (exam == null) {
+            throw new IllegalStateException("No such exam!");
         }
-        throw new IllegalStateException("No such exam!");
+        return exam;
     }
 
 
@@ -82,23 +154,15 @@ public class ExamList extends ListManager<Exam> {
 
     @Override
     public Exam find(String key)  {
-        // find an item by a key
-        for (Exam myExam : this.getItems()) {
-            if (myExam.getId().equals(key)) {
-                return myExam;
-            }
-        }
-        return null;
+        return findById(key);
 
     }
 
     @Override
     public Exam get(String key) throws IllegalStateException {
-        // find an item by a key
-        for (Exam exam : super.getItems() ) {
-            if (exam.getId().equals(key)) {
-                return exam;
-            }
+        Exam exam = findById(key);
+        if (exam != null) {
+            return exam;
         }
         throw new IllegalStateException();
 
@@ -106,12 +170,11 @@ public class ExamList extends ListManager<Exam> {
 
     public Exam byShortTitle( String shortTitle) throws IllegalStateException {
         // finds an exam given it s short title
-        for (Exam exam : super.getItems()) {
-            if (exam.getShortTitle().equals(shortTitle)) {
-                return exam;
-            }
+        Exam exam = shortTitle == null ? null : this.byShortTitle.get(shortTitle, this.view());
+        if (exam == null) {
+            throw new IllegalStateException();
         }
-        throw new IllegalStateException();
+        return exam;
     }
 
     /**
@@ -0,0 +1,169 @@
+package examblock.model;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A {@link Registry} that passes every call on to another registry. Subclasses override
+ * the methods they need to observe or extend, e.g. to journal or time the calls, and
+ * leave the rest to the delegate.
+ */
+public abstract class ForwardingRegistry implements Registry {
+
+    /**
+     * The registry that holds the items.
+     */
+    private final Registry delegate;
+
+    /**
+     * Constructs a registry forwarding to the given registry.
+     *
+     * @param delegate the registry that holds the items
+     */
+    protected ForwardingRegistry(Registry delegate) {
+        this.delegate = Objects.requireNonNull(delegate, "Delegate registry cannot be null");
+    }
+
+    /**
+     * Returns the registry that calls are forwarded to.
+     *
+     * @return the delegate registry
+     */
+    protected Registry delegate() {
+        return delegate;
+    }
+
+    @Override
+    public <T extends ManageableListItem> boolean contains(String id, Class<T> type) {
+        return delegate.contains(id, type);
+    }
+
+    @Override
+    public <T extends ManageableListItem> void add(T item, Class<T> type) {
+        delegate.add(item, type);
+    }
+
+    @Override
+    public <T extends ManageableListItem> T find(String id, Class<T> type) {
+        return delegate.find(id, type);
+    }
+
+    @Override
+    public <T extends ManageableListItem> T get(String id, Class<T> type) {
+        return delegate.get(id, type);
+    }
+
+    @Override
+    public <T extends ManageableListItem> void remove(String id, Class<T> type) {
+        delegate.remove(id, type);
+    }
+
+    @Override
+    public <T extends ManageableListItem> void removeAll(Class<T> type) {
+        delegate.removeAll(type);
+    }
+
+    @Override
+    public <T extends ManageableListItem> List<T> getAll(Class<T> type) {
+        return delegate.getAll(type);
+    }
+
+    @Override
+    public <T extends ManageableListItem> T getAt(int row, Class<T> type) {
+        return delegate.getAt(row, type);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public <T extends ManageableListItem> int count(Class<T> type) {
+        return delegate.count(type);
+    }
+
+    @Override
+    public <T extends ManageableListItem> long modCount(Class<T> type) {
+        return delegate.modCount(type);
+    }
+
+    @Override
+    public Student findByLui(long lui) {
+        return delegate.findByLui(lui);
+    }
+
+    @Override
+    public <T extends ManageableListItem> int ordinalBound(Class<T> type) {
+        return delegate.ordinalBound(type);
+    }
+
+    @Override
+    public <T extends ManageableListItem> T byOrdinal(int ordinal, Class<T> type) {
+        return delegate.byOrdinal(ordinal, type);
+    }
+
+    @Override
+    public <T extends ManageableListItem, K> RegistryIndex<T, K> createIndex(Class<T> type,
+                                                                            String name,
+                                                                            Function<T, K> key) {
+        return delegate.createIndex(type, name, key);
+    }
+
+    @Override
+    public <T extends ManageableListItem, K> RegistryIndex<T, K> createUniqueIndex(
+            Class<T> type, String name, Function<T, K> key) {
+        return delegate.createUniqueIndex(type, name, key);
+    }
+
+    @Override
+    public <T extends ManageableListItem, K> RegistryIndex<T, K> createMultiKeyIndex(
+            Class<T> type, String name, Function<T, ? extends Collection<K>> keys) {
+        return delegate.createMultiKeyIndex(type, name, keys);
+    }
+
+    @Override
+    public <T extends ManageableListItem, K> RegistryIndex<T, K> createSortedMultiKeyIndex(
+            Class<T> type, String name, Function<T, ? extends Collection<K>> keys,
+            Comparator<? super T> order) {
+        return delegate.createSortedMultiKeyIndex(type, name, keys, order);
+    }
+
+    @Override
+    public <T extends ManageableListItem, K> List<T> lookup(RegistryIndex<T, K> index, K key) {
+        return delegate.lookup(index, key);
+    }
+
+    @Override
+    public <T extends ManageableListItem, K> int count(RegistryIndex<T, K> index, K key) {
+        return delegate.count(index, key);
+    }
+
+    @Override
+    public <T extends ManageableListItem> void reindex(T item, Class<T> type) {
+        delegate.reindex(item, type);
+    }
+
+    @Override
+    public void scheduled(Session session, Exam exam) {
+        delegate.scheduled(session, exam);
+    }
+
+    @Override
+    public Registry snapshot() {
+        return delegate.snapshot();
+    }
+
+    @Override
+    public <T extends ManageableListItem> void beginBulk(Class<T> type, int expectedSize) {
+        delegate.beginBulk(type, expectedSize);
+    }
+
+    @Override
+    public void commitBulk() {
+        delegate.commitBulk();
+    }
+}
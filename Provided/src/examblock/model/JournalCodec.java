@@ -0,0 +1,506 @@
+package examblock.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes the records of a {@link JournalingRegistry} journal, and turns items
+ * into record fields and back.
+ * <p>
+ * A record is a header line, {@code <OP> [<Type>]}, then one line per field, then a line
+ * holding {@code END}. A field line starts with {@code |} followed by the escaped value,
+ * or is {@code ~} for {@code null}. Backslashes and line breaks in values are escaped
+ * with a backslash. A record without its {@code END} line was torn by a crash and is
+ * ignored; {@link Record#end} tells the journal where to cut it off before appending.
+ * <p>
+ * Items are rebuilt through their public constructors, so the registry they are given
+ * registers them. Links to other items are written as IDs and resolved against that
+ * registry, so records must be replayed in the order they were written.
+ */
+final class JournalCodec {
+
+    /** Registers an item. */
+    static final String ADD = "ADD";
+    /** Unregisters an item by ID. */
+    static final String REMOVE = "REMOVE";
+    /** Unregisters every item of a type. */
+    static final String REMOVE_ALL = "REMOVE_ALL";
+    /** Unregisters every item. */
+    static final String CLEAR = "CLEAR";
+    /** Replaces a student's subject and exam links. */
+    static final String UPDATE = "UPDATE";
+    /** Schedules an exam into a session. */
+    static final String SCHEDULE = "SCHEDULE";
+
+    /** The line ending every complete record. */
+    private static final String END = "END";
+
+    /**
+     * The journaled types, in the order a full image must add them so that every link
+     * resolves to an item added before it.
+     */
+    static final List<Class<? extends ManageableListItem>> TYPES = List.of(
+            Subject.class, Unit.class, Exam.class, Student.class,
+            Room.class, Venue.class, Session.class);
+
+    /**
+     * A record read back from a journal.
+     */
+    static final class Record {
+
+        /** The operation, one of the constants of {@link JournalCodec}. */
+        final String op;
+
+        /** The simple name of the item type, or {@code null} for {@code CLEAR}. */
+        final String type;
+
+        /** The field values, in order; values may be {@code null}. */
+        final List<String> fields;
+
+        /** The offset in bytes, from the start of the journal, just after its END line. */
+        final long end;
+
+        /**
+         * Constructs a record.
+         *
+         * @param op     the operation
+         * @param type   the simple name of the item type, or {@code null}
+         * @param fields the field values
+         * @param end    the offset just after the record in the journal
+         */
+        Record(String op, String type, List<String> fields, long end) {
+            this.op = op;
+            this.type = type;
+            this.fields = fields;
+            this.end = end;
+        }
+    }
+
+    private JournalCodec() {
+    }
+
+    /**
+     * Checks whether items of a type can be journaled.
+     *
+     * @param type the class of the items
+     * @return true if the codec can write and rebuild the type
+     */
+    static boolean supports(Class<?> type) {
+        return TYPES.contains(type);
+    }
+
+    /**
+     * Finds a journaled type by its simple name.
+     *
+     * @param name the simple name written in a record
+     * @return the class
+     * @throws IOException if no journaled type has the name
+     */
+    static Class<? extends ManageableListItem> typeNamed(String name) throws IOException {
+        for (Class<? extends ManageableListItem> type : TYPES) {
+            if (type.getSimpleName().equals(name)) {
+                return type;
+            }
+        }
+        throw new IOException("Journal names an unknown type: " + name);
+    }
+
+    /**
+     * Appends a record to a buffer.
+     *
+     * @param out    the buffer
+     * @param op     the operation
+     * @param type   the item type, or {@code null} for {@code CLEAR}
+     * @param fields the field values; values may be {@code null}
+     */
+    static void write(StringBuilder out, String op, Class<?> type, List<String> fields) {
+        out.append(op);
+        if (type != null) {
+            out.append(' ').append(type.getSimpleName());
+        }
+        out.append('\n');
+        for (String field : fields) {
+            if (field == null) {
+                out.append('~');
+            } else {
+                out.append('|');
+                escape(out, field);
+            }
+            out.append('\n');
+        }
+        out.append(END).append('\n');
+    }
+
+    /**
+     * Reads every complete record of a journal. Reading stops at the first record
+     * without its {@code END} line, which may also end in a line cut short.
+     *
+     * @param in the journal, positioned at its start
+     * @return the complete records, in order
+     * @throws IOException if the journal cannot be read or a complete record is malformed
+     */
+    static List<Record> read(BufferedReader in) throws IOException {
+        List<Record> records = new ArrayList<>();
+        long offset = 0;
+        String header;
+        while ((header = in.readLine()) != null) {
+            offset += lineLength(header);
+            if (header.isEmpty()) {
+                continue;
+            }
+            String[] bits = header.split(" ", 2);
+            List<String> fields = new ArrayList<>();
+            boolean complete = false;
+            String line;
+            while ((line = in.readLine()) != null) {
+                offset += lineLength(line);
+                if (line.equals(END)) {
+                    complete = true;
+                    break;
+                } else if (line.equals("~")) {
+                    fields.add(null);
+                } else if (line.startsWith("|")) {
+                    fields.add(unescape(line.substring(1)));
+                } else if (in.readLine() == null) {
+                    // the last line, cut short by a crash
+                    break;
+                } else {
+                    throw new IOException("Malformed journal line after " + header + ": " + line);
+                }
+            }
+            if (!complete) {
+                break;
+            }
+            records.add(new Record(bits[0], bits.length > 1 ? bits[1] : null, fields,
+                    offset));
+        }
+        return records;
+    }
+
+    /**
+     * Counts the bytes of a journal line as written: its UTF-8 encoding and the line
+     * feed after it.
+     *
+     * @param line the line, without its line feed
+     * @return the number of bytes
+     */
+    private static long lineLength(String line) {
+        long bytes = 1;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Derives the fields that rebuild an item.
+     *
+     * @param item the item
+     * @return the field values
+     * @throws IllegalArgumentException if the item's type is not journaled
+     */
+    static List<String> encode(ManageableListItem item) {
+        List<String> fields = new ArrayList<>();
+        if (item instanceof Subject subject) {
+            fields.add(subject.getTitle());
+            fields.add(subject.getDescription());
+        } else if (item instanceof Unit unit) {
+            fields.add(unit.getSubject().getId());
+            fields.add(string(unit.id()));
+            fields.add(unit.getTitle());
+            fields.add(unit.getDescription());
+        } else if (item instanceof Exam exam) {
+            fields.add(exam.getSubject().getId());
+            fields.add(exam.getExamType().name());
+            fields.add(string(exam.getPaper()));
+            fields.add(exam.getSubtitle());
+            fields.add(string(exam.getUnit()));
+            fields.add(exam.getDate().toString());
+            fields.add(exam.getTime().toString());
+        } else if (item instanceof Student student) {
+            fields.add(student.getLui().toString());
+            fields.add(student.givenNames());
+            fields.add(student.familyName());
+            fields.add(student.getDob().toString());
+            fields.add(student.getHouse());
+            fields.add(student.isAara().toString());
+            links(student, fields);
+        } else if (item instanceof Venue venue) {
+            // before Room, which Venue extends
+            fields.add(venue.venueId());
+            fields.add(Integer.toString(venue.getRooms().size()));
+            for (Room room : venue.getRooms().all()) {
+                fields.add(room.getId());
+            }
+            fields.add(Integer.toString(venue.getRows()));
+            fields.add(Integer.toString(venue.getColumns()));
+            fields.add(Integer.toString(venue.deskCount()));
+            fields.add(Boolean.toString(venue.isAara()));
+        } else if (item instanceof Room room) {
+            fields.add(room.getId());
+        } else if (item instanceof Session session) {
+            fields.add(session.getVenue().venueId());
+            fields.add(Integer.toString(session.getSessionNumber()));
+            fields.add(session.getDate().toString());
+            fields.add(session.getTime().toString());
+        } else {
+            throw new IllegalArgumentException("Cannot journal a "
+                    + item.getClass().getSimpleName());
+        }
+        return fields;
+    }
+
+    /**
+     * Appends a student's subject and exam links to a list of fields, each as a count
+     * followed by that many IDs.
+     *
+     * @param student the student
+     * @param fields  the fields to append to
+     */
+    static void links(Student student, List<String> fields) {
+        List<Subject> subjects = student.subjectsTaken();
+        fields.add(Integer.toString(subjects.size()));
+        for (Subject subject : subjects) {
+            fields.add(subject.getId());
+        }
+        List<Exam> exams = student.getExams().view();
+        fields.add(Integer.toString(exams.size()));
+        for (Exam exam : exams) {
+            fields.add(exam.getId());
+        }
+    }
+
+    /**
+     * Rebuilds an item from its fields. The item's constructor registers it with the
+     * given registry; a student's links are restored after that.
+     *
+     * @param type     the class of the item
+     * @param fields   the fields written by {@link #encode(ManageableListItem)}
+     * @param registry the registry to register the item with and resolve links against
+     * @return the rebuilt item
+     * @throws IOException if the fields are malformed or a link does not resolve
+     */
+    static ManageableListItem decode(Class<?> type, List<String> fields, Registry registry)
+            throws IOException {
+        Fields in = new Fields(fields);
+        try {
+            if (type == Subject.class) {
+                return new Subject(in.next(), in.next(), registry);
+            } else if (type == Unit.class) {
+                Subject subject = registry.get(in.next(), Subject.class);
+                return new Unit(subject, in.nextChar(), in.next(), in.next(), registry);
+            } else if (type == Exam.class) {
+                Subject subject = registry.get(in.next(), Subject.class);
+                Exam.ExamType examType = Exam.ExamType.valueOf(in.next());
+                Character paper = in.nextChar();
+                String subtitle = in.next();
+                Character unit = in.nextChar();
+                LocalDate date = LocalDate.parse(in.next());
+                LocalTime time = LocalTime.parse(in.next());
+                return new Exam(subject, examType, paper, subtitle, unit,
+                        date.getDayOfMonth(), date.getMonthValue(), date.getYear(),
+                        time.getHour(), time.getMinute(), registry);
+            } else if (type == Student.class) {
+                Long lui = Long.valueOf(in.next());
+                String given = in.next();
+                String family = in.next();
+                LocalDate dob = LocalDate.parse(in.next());
+                String house = in.next();
+                Boolean aara = Boolean.valueOf(in.next());
+                Student student = new Student(lui, given, family, dob.getDayOfMonth(),
+                        dob.getMonthValue(), dob.getYear(), house, aara, registry);
+                relink(student, in, registry);
+                return student;
+            } else if (type == Room.class) {
+                return new Room(in.next(), registry);
+            } else if (type == Venue.class) {
+                String id = in.next();
+                int roomCount = in.nextInt();
+                RoomList rooms = new RoomList(registry);
+                for (int i = 0; i < roomCount; i++) {
+                    rooms.add(registry.get(in.next(), Room.class));
+                }
+                return new Venue(id, roomCount, rooms, in.nextInt(), in.nextInt(),
+                        in.nextInt(), Boolean.parseBoolean(in.next()), registry);
+            } else if (type == Session.class) {
+                Venue venue = registry.get(in.next(), Venue.class);
+                int number = in.nextInt();
+                return new Session(venue, number, LocalDate.parse(in.next()),
+                        LocalTime.parse(in.next()), registry);
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Cannot rebuild " + ((Class<?>) type).getSimpleName()
+                    + " from journal: " + e.getMessage(), e);
+        }
+        throw new IOException("Journal names an unknown type: " + type.getSimpleName());
+    }
+
+    /**
+     * Replaces a student's subject and exam links with those of an {@code ADD} record
+     * for the student.
+     *
+     * @param student  the student
+     * @param fields   the fields written by {@link #encode(ManageableListItem)}
+     * @param registry the registry to resolve the links against
+     */
+    static void relinkAdded(Student student, List<String> fields, Registry registry) {
+        // skip lui, names, date of birth, house and aara
+        relink(student, new Fields(fields.subList(6, fields.size())), registry);
+    }
+
+    /**
+     * Replaces a student's subject and exam links with those read from a record.
+     *
+     * @param student  the student
+     * @param in       the fields, positioned at the subject count
+     * @param registry the registry to resolve the links against
+     */
+    static void relink(Student student, Fields in, Registry registry) {
+        List<Subject> subjects = new ArrayList<>();
+        for (int i = in.nextInt(); i > 0; i--) {
+            subjects.add(registry.get(in.next(), Subject.class));
+        }
+        List<Exam> exams = new ArrayList<>();
+        for (int i = in.nextInt(); i > 0; i--) {
+            exams.add(registry.get(in.next(), Exam.class));
+        }
+        for (Subject subject : student.subjectsTaken()) {
+            if (!subjects.contains(subject)) {
+                student.removeSubject(subject);
+            }
+        }
+        for (Subject subject : subjects) {
+            if (!student.takes(subject)) {
+                student.addSubject(subject);
+            }
+        }
+        for (Exam exam : student.getExams().all()) {
+            if (!exams.contains(exam)) {
+                student.removeExam(exam);
+            }
+        }
+        for (Exam exam : exams) {
+            if (!student.getExams().contains(exam)) {
+                student.addExam(exam);
+            }
+        }
+    }
+
+    /**
+     * Reads the fields of a record in order.
+     */
+    static final class Fields {
+
+        /** The field values. */
+        private final List<String> values;
+
+        /** The position of the next field. */
+        private int next;
+
+        /**
+         * Constructs a reader over the fields of a record.
+         *
+         * @param values the field values
+         */
+        Fields(List<String> values) {
+            this.values = values;
+        }
+
+        /**
+         * Reads the next field.
+         *
+         * @return the value, possibly {@code null}
+         * @throws IllegalStateException if the record has no more fields
+         */
+        String next() {
+            if (next >= values.size()) {
+                throw new IllegalStateException("Journal record is missing fields");
+            }
+            return values.get(next++);
+        }
+
+        /**
+         * Reads the next field as a number.
+         *
+         * @return the value
+         */
+        int nextInt() {
+            return Integer.parseInt(next());
+        }
+
+        /**
+         * Reads the next field as a single character.
+         *
+         * @return the value, or {@code null} if the field is {@code null} or empty
+         */
+        Character nextChar() {
+            String value = next();
+            return value == null || value.isEmpty() ? null : value.charAt(0);
+        }
+    }
+
+    /**
+     * Converts an optional character to a field value.
+     *
+     * @param value the character, or {@code null}
+     * @return the field value
+     */
+    private static String string(Character value) {
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * Appends a value with backslashes and line breaks escaped.
+     *
+     * @param out   the buffer
+     * @param value the value
+     */
+    private static void escape(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    /**
+     * Reverses {@link #escape(StringBuilder, String)}.
+     *
+     * @param value the escaped value
+     * @return the original value
+     */
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char e = value.charAt(++i);
+                out.append(e == 'n' ? '\n' : e == 'r' ? '\r' : e);
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+}
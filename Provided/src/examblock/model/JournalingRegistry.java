@@ -0,0 +1,597 @@
+package examblock.model;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A {@link Registry} that records every change in an append-only journal file, so that
+ * work done since the last save survives a crash. Adds, removes, student subject and exam
+ * changes, and exams scheduled into sessions are journaled; on restart,
+ * {@link #recover(Loader)} loads the last saved file and replays the journal on top of it.
+ * <p>
+ * Records are buffered and written with an {@code fsync} every {@link #DEFAULT_SYNC_EVERY}
+ * records, at every scheduled exam, and on {@link #sync()} and {@link #close()}, so a crash
+ * loses at most the last unsynced batch of changes. A crash part-way through writing a
+ * record leaves it without its end line; replay ignores it and cuts it off the journal,
+ * so that the records written after it are not appended to the fragment.
+ * <p>
+ * Once enough records have been written, the next sync checkpoints: the journal is
+ * replaced, atomically, by a compacted image of the registry as it is now, so it stays
+ * short and replays quickly. Only the types known to {@link JournalCodec} are journaled;
+ * items are replayed through their public constructors with this registry, so they keep
+ * journaling their later changes.
+ */
+public class JournalingRegistry extends ForwardingRegistry implements Closeable {
+
+    /**
+     * The number of records buffered before they are written and synced to disk.
+     */
+    public static final int DEFAULT_SYNC_EVERY = 32;
+
+    /**
+     * The number of records written since the last checkpoint that triggers the next.
+     */
+    public static final int DEFAULT_CHECKPOINT_EVERY = 1024;
+
+    /**
+     * A source of the items saved at the last checkpoint, e.g. an {@code .ebd} file.
+     */
+    @FunctionalInterface
+    public interface Loader {
+
+        /**
+         * Registers the saved items.
+         *
+         * @throws IOException if the saved items cannot be read
+         */
+        void load() throws IOException;
+    }
+
+    /**
+     * The journal file.
+     */
+    private final Path journal;
+
+    /**
+     * The open journal, positioned at its end.
+     */
+    private FileChannel channel;
+
+    /**
+     * The records not yet written to the journal.
+     */
+    private final StringBuilder buffer;
+
+    /**
+     * The number of records in {@link #buffer}.
+     */
+    private int buffered;
+
+    /**
+     * The number of records buffered before they are synced.
+     */
+    private int syncEvery;
+
+    /**
+     * The number of records since the last checkpoint that triggers the next, or zero
+     * to checkpoint only on request.
+     */
+    private int checkpointEvery;
+
+    /**
+     * The number of records written since the last checkpoint.
+     */
+    private int sinceCheckpoint;
+
+    /**
+     * Whether changes are currently not journaled, while replaying or recovering.
+     */
+    private boolean suspended;
+
+    /**
+     * Whether the journal is being replayed, so that adding an ID already registered is
+     * taken as already applied.
+     */
+    private boolean replaying;
+
+    /**
+     * The types with an uncommitted batch.
+     */
+    private final Set<Class<?>> bulkOpen;
+
+    /**
+     * The items added since {@link #beginBulk(Class, int)}, journaled once the batch is
+     * committed.
+     */
+    private final List<ManageableListItem> bulkItems;
+
+    /**
+     * The classes of {@link #bulkItems}, in the same order.
+     */
+    private final List<Class<? extends ManageableListItem>> bulkTypes;
+
+    /**
+     * The items in {@link #bulkItems}, to journal an item added twice only once.
+     */
+    private final Set<ManageableListItem> bulkSeen;
+
+    /**
+     * Constructs a registry that journals the changes to another registry. The journal
+     * is created if it does not exist, and appended to if it does; call
+     * {@link #recover(Loader)} or {@link #replay()} first to restore what it holds.
+     *
+     * @param delegate the registry holding the items
+     * @param journal  the journal file
+     * @throws IOException if the journal cannot be opened
+     */
+    public JournalingRegistry(Registry delegate, Path journal) throws IOException {
+        super(delegate);
+        this.journal = Objects.requireNonNull(journal, "Journal path cannot be null");
+        this.buffer = new StringBuilder();
+        this.syncEvery = DEFAULT_SYNC_EVERY;
+        this.checkpointEvery = DEFAULT_CHECKPOINT_EVERY;
+        this.bulkOpen = new HashSet<>();
+        this.bulkItems = new ArrayList<>();
+        this.bulkTypes = new ArrayList<>();
+        this.bulkSeen = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.channel = open();
+    }
+
+    /**
+     * Opens the journal for appending.
+     *
+     * @return the open journal
+     * @throws IOException if the journal cannot be opened
+     */
+    private FileChannel open() throws IOException {
+        return FileChannel.open(journal, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Returns the journal file.
+     *
+     * @return the journal file
+     */
+    public Path getJournal() {
+        return journal;
+    }
+
+    /**
+     * Sets how many records are buffered before they are synced to disk. Fewer means
+     * less is lost in a crash, more means fewer {@code fsync}s.
+     *
+     * @param records the number of records, at least 1
+     */
+    public synchronized void setSyncEvery(int records) {
+        if (records < 1) {
+            throw new IllegalArgumentException("Sync interval must be at least 1: " + records);
+        }
+        this.syncEvery = records;
+    }
+
+    /**
+     * Sets how many records are written between automatic checkpoints.
+     *
+     * @param records the number of records, or zero to checkpoint only on request
+     */
+    public synchronized void setCheckpointEvery(int records) {
+        if (records < 0) {
+            throw new IllegalArgumentException("Checkpoint interval cannot be negative: "
+                    + records);
+        }
+        this.checkpointEvery = records;
+    }
+
+    /**
+     * Registers an item and journals it, unless it was already registered.
+     *
+     * @param item the item to add
+     * @param type the class of the item
+     * @param <T>  the type of the item, extending {@link ManageableListItem}
+     */
+    @Override
+    public synchronized <T extends ManageableListItem> void add(T item, Class<T> type) {
+        if (replaying && !bulkOpen.contains(type) && delegate().contains(item.getId(), type)) {
+            return;
+        }
+        if (!journaling(type)) {
+            super.add(item, type);
+        } else if (bulkOpen.contains(type)) {
+            super.add(item, type);
+            if (bulkSeen.add(item)) {
+                bulkItems.add(item);
+                bulkTypes.add(type);
+            }
+        } else {
+            boolean fresh = delegate().find(item.getId(), type) != item;
+            super.add(item, type);
+            if (fresh) {
+                record(JournalCodec.ADD, type, JournalCodec.encode(item));
+            }
+        }
+    }
+
+    /**
+     * Unregisters an item and journals the removal.
+     *
+     * @param id   the unique identifier of the item
+     * @param type the class of the item
+     * @param <T>  the type of the item, extending {@link ManageableListItem}
+     */
+    @Override
+    public synchronized <T extends ManageableListItem> void remove(String id, Class<T> type) {
+        boolean present = journaling(type) && delegate().contains(id, type);
+        super.remove(id, type);
+        if (present) {
+            record(JournalCodec.REMOVE, type, Collections.singletonList(id));
+        }
+    }
+
+    /**
+     * Unregisters every item of a type and journals the removal.
+     *
+     * @param type the class of the items
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     */
+    @Override
+    public synchronized <T extends ManageableListItem> void removeAll(Class<T> type) {
+        super.removeAll(type);
+        if (journaling(type)) {
+            record(JournalCodec.REMOVE_ALL, type, Collections.emptyList());
+        }
+    }
+
+    /**
+     * Unregisters every item and journals the removal.
+     */
+    @Override
+    public synchronized void clear() {
+        super.clear();
+        if (!suspended) {
+            record(JournalCodec.CLEAR, null, Collections.emptyList());
+        }
+    }
+
+    /**
+     * Updates the indexes over an item and, for a registered student, journals its new
+     * subjects and exams.
+     *
+     * @param item the registered item whose keys may have changed
+     * @param type the class of the item
+     * @param <T>  the type of the item, extending {@link ManageableListItem}
+     */
+    @Override
+    public synchronized <T extends ManageableListItem> void reindex(T item, Class<T> type) {
+        super.reindex(item, type);
+        if (type == Student.class && journaling(type)
+                && delegate().find(item.getId(), type) == item) {
+            Student student = (Student) item;
+            List<String> fields = new ArrayList<>();
+            fields.add(student.getId());
+            JournalCodec.links(student, fields);
+            record(JournalCodec.UPDATE, type, fields);
+        }
+    }
+
+    /**
+     * Starts a bulk load of the specified type. Items added to the batch are journaled
+     * when it is committed.
+     *
+     * @param type         the class of the items to be loaded
+     * @param expectedSize the number of items expected, used to size the storage
+     * @param <T>          the type of the items, extending {@link ManageableListItem}
+     */
+    @Override
+    public synchronized <T extends ManageableListItem> void beginBulk(Class<T> type,
+                                                                      int expectedSize) {
+        super.beginBulk(type, expectedSize);
+        bulkOpen.add(type);
+    }
+
+    /**
+     * Commits every open batch and journals the items it stored.
+     */
+    @Override
+    public synchronized void commitBulk() {
+        try {
+            super.commitBulk();
+        } finally {
+            for (int i = 0; i < bulkItems.size(); i++) {
+                ManageableListItem item = bulkItems.get(i);
+                Class<? extends ManageableListItem> type = bulkTypes.get(i);
+                // a failed batch was discarded, so only journal what was stored
+                if (delegate().find(item.getId(), type) == item) {
+                    record(JournalCodec.ADD, type, JournalCodec.encode(item));
+                }
+            }
+            bulkOpen.clear();
+            bulkItems.clear();
+            bulkTypes.clear();
+            bulkSeen.clear();
+        }
+    }
+
+    /**
+     * Journals an exam scheduled into a registered session, and syncs the journal, as a
+     * scheduling decision is the unit of work a crash should not lose.
+     * Called by {@link Session#scheduleExam(Exam)}, through any registry wrapping this one.
+     *
+     * @param session the session
+     * @param exam    the exam scheduled into it
+     */
+    @Override
+    public synchronized void scheduled(Session session, Exam exam) {
+        if (journaling(Session.class)
+                && delegate().find(session.getId(), Session.class) == session) {
+            record(JournalCodec.SCHEDULE, Session.class, scheduleFields(session, exam));
+            sync();
+        }
+        super.scheduled(session, exam);
+    }
+
+    /**
+     * Derives the fields of a {@code SCHEDULE} record.
+     *
+     * @param session the session
+     * @param exam    the exam scheduled into it
+     * @return the field values
+     */
+    private static List<String> scheduleFields(Session session, Exam exam) {
+        return List.of(session.getId(), exam.getId());
+    }
+
+    /**
+     * Checks whether changes to items of a type are journaled right now.
+     *
+     * @param type the class of the items
+     * @return true if not suspended and the codec knows the type
+     */
+    private boolean journaling(Class<?> type) {
+        return !suspended && JournalCodec.supports(type);
+    }
+
+    /**
+     * Buffers a record, writing the buffer out once it holds enough records.
+     *
+     * @param op     the operation
+     * @param type   the item type, or {@code null}
+     * @param fields the field values
+     */
+    private void record(String op, Class<?> type, List<String> fields) {
+        JournalCodec.write(buffer, op, type, fields);
+        buffered++;
+        sinceCheckpoint++;
+        if (buffered >= syncEvery) {
+            sync();
+        }
+    }
+
+    /**
+     * Writes every buffered record and forces the journal to disk. Checkpoints first if
+     * enough records have been written since the last checkpoint and no batch is open.
+     *
+     * @throws UncheckedIOException if the journal cannot be written
+     */
+    public synchronized void sync() {
+        try {
+            if (checkpointEvery > 0 && sinceCheckpoint >= checkpointEvery
+                    && bulkOpen.isEmpty()) {
+                checkpoint();
+                return;
+            }
+            if (buffered == 0) {
+                return;
+            }
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(buffer.toString());
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+            buffer.setLength(0);
+            buffered = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write journal " + journal, e);
+        }
+    }
+
+    /**
+     * Replaces the journal with a compacted image of the registry: a {@code CLEAR}
+     * record, then one {@code ADD} per item, then every scheduled exam. The image is
+     * written to a temporary file and moved over the journal, so a crash leaves either
+     * the old journal or the new one.
+     *
+     * @throws IOException if the image cannot be written
+     */
+    public synchronized void checkpoint() throws IOException {
+        if (!bulkOpen.isEmpty()) {
+            throw new IllegalStateException("Cannot checkpoint during a bulk load");
+        }
+        StringBuilder image = new StringBuilder();
+        JournalCodec.write(image, JournalCodec.CLEAR, null, Collections.emptyList());
+        for (Class<? extends ManageableListItem> type : JournalCodec.TYPES) {
+            for (ManageableListItem item : delegate().getAll(type)) {
+                JournalCodec.write(image, JournalCodec.ADD, type, JournalCodec.encode(item));
+            }
+        }
+        for (Session session : delegate().getAll(Session.class)) {
+            for (Exam exam : session.getExams()) {
+                JournalCodec.write(image, JournalCodec.SCHEDULE, Session.class,
+                        scheduleFields(session, exam));
+            }
+        }
+
+        Path temp = journal.resolveSibling(journal.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(image.toString());
+            while (bytes.hasRemaining()) {
+                out.write(bytes);
+            }
+            out.force(true);
+        }
+        channel.close();
+        try {
+            Files.move(temp, journal, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, journal, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            channel = open();
+        }
+        // the image already holds every buffered change
+        buffer.setLength(0);
+        buffered = 0;
+        sinceCheckpoint = 0;
+    }
+
+    /**
+     * Restores the registry after a restart: registers the items saved at the last
+     * checkpoint, then replays the journal on top of them. Neither step is journaled.
+     *
+     * @param loader registers the saved items, e.g. by loading an {@code .ebd} file
+     *               through this registry
+     * @return the number of records replayed
+     * @throws IOException if the saved items or the journal cannot be read
+     */
+    public synchronized int recover(Loader loader) throws IOException {
+        boolean wasSuspended = suspended;
+        suspended = true;
+        try {
+            loader.load();
+        } finally {
+            suspended = wasSuspended;
+        }
+        return replay();
+    }
+
+    /**
+     * Applies every complete record in the journal to the registry, without journaling
+     * them again. An {@code ADD} for an ID that is already registered, e.g. loaded from the
+     * last saved file, is taken as already applied, apart from restoring a student's
+     * subjects and exams.
+     *
+     * @return the number of records replayed
+     * @throws IOException if the journal cannot be read or holds a malformed record
+     */
+    public synchronized int replay() throws IOException {
+        sync();
+        List<JournalCodec.Record> records;
+        try (BufferedReader in = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+            records = JournalCodec.read(in);
+        }
+        cutTornRecord(records.isEmpty() ? 0 : records.get(records.size() - 1).end);
+        boolean wasSuspended = suspended;
+        suspended = true;
+        replaying = true;
+        try {
+            for (JournalCodec.Record record : records) {
+                apply(record);
+            }
+        } finally {
+            suspended = wasSuspended;
+            replaying = false;
+        }
+        sinceCheckpoint += records.size();
+        return records.size();
+    }
+
+    /**
+     * Cuts off anything after the last complete record, left by a crash part-way through
+     * writing the next one, so that new records start on a line of their own.
+     *
+     * @param end the offset just after the last complete record
+     * @throws IOException if the journal cannot be written
+     */
+    private void cutTornRecord(long end) throws IOException {
+        long size = channel.size();
+        if (end < size) {
+            channel.truncate(end);
+        } else if (end > size) {
+            // the last END line lacks its line feed
+            channel.write(ByteBuffer.wrap(new byte[] {'\n'}));
+        } else {
+            return;
+        }
+        channel.force(true);
+    }
+
+    /**
+     * Applies one record to the registry.
+     *
+     * @param record the record
+     * @throws IOException if the record is malformed or names an unregistered item
+     */
+    private void apply(JournalCodec.Record record) throws IOException {
+        if (JournalCodec.CLEAR.equals(record.op)) {
+            clear();
+            return;
+        }
+        Class<? extends ManageableListItem> type = JournalCodec.typeNamed(record.type);
+        JournalCodec.Fields in = new JournalCodec.Fields(record.fields);
+        try {
+            switch (record.op) {
+                case JournalCodec.ADD -> {
+                    Student student = type == Student.class
+                            ? find(in.next(), Student.class) : null;
+                    if (student != null) {
+                        JournalCodec.relinkAdded(student, record.fields, this);
+                    } else {
+                        JournalCodec.decode(type, record.fields, this);
+                    }
+                }
+                case JournalCodec.REMOVE -> remove(in.next(), type);
+                case JournalCodec.REMOVE_ALL -> removeAll(type);
+                case JournalCodec.UPDATE -> {
+                    Student student = get(in.next(), Student.class);
+                    JournalCodec.relink(student, in, this);
+                }
+                case JournalCodec.SCHEDULE -> {
+                    Session session = get(in.next(), Session.class);
+                    Exam exam = get(in.next(), Exam.class);
+                    if (!session.getExams().contains(exam)) {
+                        session.scheduleExam(exam);
+                    }
+                }
+                default -> throw new IOException("Journal holds an unknown operation: "
+                        + record.op);
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Cannot replay " + record.op + " " + record.type
+                    + " from journal: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes every buffered record and closes the journal.
+     *
+     * @throws IOException if the journal cannot be written or closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            sync();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package examblock.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size histogram of durations in nanoseconds, safe to record into from any
+ * number of threads without locking.
+ * <p>
+ * Values are counted in log-linear buckets, as HdrHistogram does: every power of two is
+ * split into {@value #SUB_BUCKETS} equal buckets, so any value is reported to within
+ * 12.5% of its true size, from one nanosecond to centuries, in under 500 counters.
+ * Recording a value is a few shifts and one atomic increment.
+ */
+final class LatencyHistogram {
+
+    /**
+     * The number of bits of a value kept below its leading bit.
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+
+    /**
+     * The number of buckets per power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The number of buckets needed to cover every non-negative {@code long}.
+     */
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /**
+     * The count of values in each bucket.
+     */
+    private final AtomicLongArray counts;
+
+    /**
+     * The number of values recorded.
+     */
+    private final AtomicLong count;
+
+    /**
+     * The sum of the values recorded.
+     */
+    private final AtomicLong total;
+
+    /**
+     * The largest value recorded.
+     */
+    private final AtomicLong max;
+
+    /**
+     * Constructs an empty histogram.
+     */
+    LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.count = new AtomicLong();
+        this.total = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     * Finds the bucket of a value.
+     *
+     * @param value a non-negative value
+     * @return the index of its bucket
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the largest value that falls in a bucket.
+     *
+     * @param bucket the index of the bucket
+     * @return the bucket's upper bound
+     */
+    static long highestIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Records a value; negative values, from a clock stepping back, count as zero.
+     *
+     * @param nanos the value, in nanoseconds
+     */
+    void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Returns the number of values recorded.
+     *
+     * @return the number of values
+     */
+    long count() {
+        return count.get();
+    }
+
+    /**
+     * Returns the sum of the values recorded.
+     *
+     * @return the sum, in nanoseconds
+     */
+    long total() {
+        return total.get();
+    }
+
+    /**
+     * Returns the mean of the values recorded.
+     *
+     * @return the mean, in nanoseconds, or zero if nothing was recorded
+     */
+    double mean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) total.get() / n;
+    }
+
+    /**
+     * Returns the largest value recorded.
+     *
+     * @return the largest value, in nanoseconds, or zero if nothing was recorded
+     */
+    long max() {
+        return max.get();
+    }
+
+    /**
+     * Returns a value that the given percentage of the recorded values do not exceed,
+     * to within the precision of the buckets.
+     *
+     * @param percentile the percentage, from 0 to 100
+     * @return the value, in nanoseconds, or zero if nothing was recorded
+     */
+    long valueAtPercentile(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * n));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(highestIn(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Forgets every value recorded. Values recorded during the reset may be partly kept.
+     */
+    void reset() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts.set(bucket, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+}
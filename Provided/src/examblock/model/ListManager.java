@@ -6,14 +6,32 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Abstract class to manage lists of items implementing {@link ManageableListItem}.
  * Maintains its own list of items, using the {@link Registry} for ID-based lookup
  * and validation. Items are assumed to register themselves with the registry upon
  * creation, so this class manages list membership independently.
+ * <p>
+ * The list keeps its items indexed by ID, so {@link #find}, {@link #get},
+ * {@link #contains} and {@link #add} take constant time whatever the size of the list.
+ * <p>
+ * {@link #stream()} and {@link #parallelStream()} read the items in place. Like the list
+ * itself, they are not synchronized: the list must not be changed while a stream over it
+ * runs, or the stream may miss items or fail with a
+ * {@link java.util.ConcurrentModificationException}. A parallel stream calls its
+ * operations from several threads at once, so they may read the items but must not
+ * change them or anything else they share.
  *
  * @param <T> the type of items under management, extending {@link ManageableListItem}
  */
@@ -30,6 +48,22 @@ public abstract class ListManager<T extends ManageableListItem & StreamManager>
      */
     private final List<T> items;
 
+    /**
+     * A read-only view of {@link #items}, made once and handed out by {@link #view()}.
+     */
+    private final List<T> view;
+
+    /**
+     * The managed items by ID. If several items share an ID, the first one added.
+     */
+    private final Map<String, T> byId;
+
+    /**
+     * The ID each managed item was indexed under, so an item whose ID has since
+     * changed (e.g., a student's LUI) can be found and re-indexed.
+     */
+    private final Map<T, String> indexedIds;
+
     /**
      * The registry for item lookup and validation.
      */
@@ -40,6 +74,12 @@ public abstract class ListManager<T extends ManageableListItem & StreamManager>
      */
     private final Class<T> itemType;
 
+    /**
+     * The registry's stamp for {@link #itemType} when this list was last marked as
+     * holding exactly the registered items, or -1 if it has been changed since.
+     */
+    private long cohortStamp = -1;
+
     /**
      * Constructs a new {@code ListManager} with an empty item list.
      *
@@ -53,15 +93,43 @@ public abstract class ListManager<T extends ManageableListItem & StreamManager>
         this.registry = Objects.requireNonNull(registry, "Registry cannot be null");
         this.itemType = Objects.requireNonNull(itemType, "Item type cannot be null");
         this.items = new ArrayList<>();
+        this.view = Collections.unmodifiableList(items);
+        this.byId = new HashMap<>();
+        this.indexedIds = new IdentityHashMap<>();
     }
 
     /**
-     * Gets the managed list of items.
+     * Gets the managed list of items. The list is read-only, as changes must go through
+     * {@link #add} and {@link #remove} to keep the ID index in step.
      *
-     * @return the list of items
+     * @return a read-only view of the list of items
      */
     public List<T> getItems() {
-        return items;
+        return view;
+    }
+
+    /**
+     * Returns a read-only view of the managed items, without copying them. The view
+     * follows later changes to this list, so copy it with {@link #all()} to keep the
+     * items as they are now, or to change the copy.
+     *
+     * @return a read-only view of the items, in order
+     */
+    public List<T> view() {
+        return view;
+    }
+
+    /**
+     * Performs an action on each managed item, in order, without copying the list.
+     * The action must not add items to or remove items from this list.
+     *
+     * @param action the action to perform on each item
+     */
+    public void forEach(Consumer<? super T> action) {
+        Objects.requireNonNull(action, "Action cannot be null");
+        for (int i = 0; i < items.size(); i++) {
+            action.accept(items.get(i));
+        }
     }
 
     /**
@@ -79,25 +147,158 @@ public abstract class ListManager<T extends ManageableListItem & StreamManager>
             throw new IllegalStateException("Item with ID " + item.getId()
                     + " is not registered for type " + itemType.getSimpleName());
         }
-        if (!items.contains(item)) {
+        addUnchecked(item);
+    }
+
+    /**
+     * Adds an item to the list, unless it is already there, without checking that it is
+     * registered; for lists that may hold items not yet registered.
+     *
+     * @param item the item to add
+     * @throws NullPointerException if the item is null
+     */
+    protected void addUnchecked(T item) {
+        Objects.requireNonNull(item, "Item cannot be null");
+        if (!contains(item)) {
+            cohortStamp = -1;
             items.add(item);
+            index(item);
+            added(item);
         }
     }
 
+    /**
+     * Checks whether this list holds an item.
+     *
+     * @param item the item to look for
+     * @return true if this very item is in the list
+     */
+    public boolean contains(T item) {
+        return item != null && indexedIds.containsKey(item);
+    }
+
     /**
      * Removes an item from the list.
      *
      * @param item the item to remove
      */
     public void remove(T item) {
-        items.remove(item);
+        int at = items.indexOf(item);
+        if (at >= 0) {
+            cohortStamp = -1;
+            T removed = items.remove(at);
+            unindex(removed);
+            removed(removed);
+        }
     }
 
     /**
      * Removes all items from the list and the {@link Registry}.
      */
     public void clear() {
+        cohortStamp = -1;
         items.clear();
+        byId.clear();
+        indexedIds.clear();
+        cleared();
+    }
+
+    /**
+     * Called after an item is added to the list, for subclasses that keep their own
+     * indexes of the items. Does nothing by default.
+     *
+     * @param item the item added
+     */
+    protected void added(T item) {
+    }
+
+    /**
+     * Called after an item is removed from the list. Does nothing by default.
+     *
+     * @param item the item removed
+     */
+    protected void removed(T item) {
+    }
+
+    /**
+     * Called after every item is removed from the list. Does nothing by default.
+     */
+    protected void cleared() {
+    }
+
+    /**
+     * Finds a managed item by ID in constant time.
+     *
+     * @param id the ID of the item
+     * @return the first item added with that ID, or {@code null} if there is none
+     */
+    protected T findById(String id) {
+        if (id == null) {
+            return null;
+        }
+        T item = byId.get(id);
+        if (item != null && id.equals(item.getId())) {
+            return item;
+        }
+        // the ID of an indexed item has changed since it was added
+        if (item != null) {
+            reindex(item);
+        }
+        T renamed = registry.find(id, itemType);
+        if (renamed != null && indexedIds.containsKey(renamed)) {
+            reindex(renamed);
+            return renamed;
+        }
+        return null;
+    }
+
+    /**
+     * Indexes an item just added to the list.
+     *
+     * @param item the item
+     */
+    private void index(T item) {
+        String id = item.getId();
+        indexedIds.put(item, id);
+        if (id != null) {
+            byId.putIfAbsent(id, item);
+        }
+    }
+
+    /**
+     * Removes an item just removed from the list from the index. If another item shares
+     * its ID, that item takes its place.
+     *
+     * @param item the item
+     */
+    private void unindex(T item) {
+        String id = indexedIds.remove(item);
+        if (id == null || byId.get(id) != item) {
+            return;
+        }
+        byId.remove(id);
+        if (byId.size() < indexedIds.size()) {
+            // some items share an ID, so another may now be the first
+            for (T other : items) {
+                if (id.equals(indexedIds.get(other))) {
+                    byId.put(id, other);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Indexes an item again under its current ID.
+     *
+     * @param item the item, which must be in the list
+     */
+    private void reindex(T item) {
+        String old = indexedIds.get(item);
+        if (old != null && byId.get(old) == item) {
+            byId.remove(old);
+        }
+        index(item);
     }
 
     /**
@@ -110,7 +311,49 @@ public abstract class ListManager<T extends ManageableListItem & StreamManager>
     }
 
     /**
-     * Returns a copy of the list of all managed items.
+     * Returns a spliterator over the managed items, in order, without copying them. It
+     * reports {@link Spliterator#SIZED} and {@link Spliterator#SUBSIZED}, and splits in
+     * halves, so parallel streams divide the work evenly. It binds to the items when
+     * first used; see the class comment for what may run alongside it.
+     *
+     * @return a spliterator over the items
+     */
+    public Spliterator<T> spliterator() {
+        return view.spliterator();
+    }
+
+    /**
+     * Returns a sequential stream over the managed items, in order.
+     *
+     * @return a stream over the items
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a parallel stream over the managed items, run on the common fork-join
+     * pool. Its operations may be called from several threads at once.
+     *
+     * @return a parallel stream over the items
+     */
+    public Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Returns a stream over the managed items for a pass over the whole list, parallel
+     * once the list is long enough for splitting it to pay off.
+     *
+     * @return a stream over the items, parallel for long lists
+     */
+    Stream<T> bulkStream() {
+        return items.size() >= RegistryQuery.PARALLEL_THRESHOLD ? parallelStream() : stream();
+    }
+
+    /**
+     * Returns a copy of the list of all managed items. Use {@link #view()} or
+     * {@link #forEach(Consumer)} to read the items without copying them.
      *
      * @return a new {@code ArrayList} containing all items
      */
@@ -183,7 +426,7 @@ public abstract class ListManager<T extends ManageableListItem & StreamManager>
                 }
                 continue;
             }
-            items.add(item);
+            addUnchecked(item);
             loadedCount++;
         }
 
@@ -239,6 +482,29 @@ public abstract class ListManager<T extends ManageableListItem & StreamManager>
      */
     public abstract T get(String key) throws IllegalStateException;
 
+    /**
+     * Marks this list as holding exactly the registered items of its type, as the lists
+     * kept by {@link ExamBlockModel} do once filled. The mark lasts until this list is
+     * changed or an item of the type is registered or unregistered.
+     *
+     * @param stamp the registry's {@link Registry#modCount(Class) stamp} for the type
+     *              when the list was filled
+     */
+    void markAllRegistered(long stamp) {
+        cohortStamp = stamp;
+    }
+
+    /**
+     * Checks whether this list is still marked as holding every registered item of its
+     * type, so that callers may answer queries from the registry's indexes instead of
+     * scanning the list.
+     *
+     * @return true if the list holds exactly the registered items of its type
+     */
+    protected boolean holdsAllRegistered() {
+        return cohortStamp >= 0 && cohortStamp == registry.modCount(itemType);
+    }
+
     /**
      * access the stored registry object
      *
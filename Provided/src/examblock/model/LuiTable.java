@@ -0,0 +1,186 @@
+package examblock.model;
+
+/**
+ * Open-addressing hash table from a {@link Student}'s LUI to the student, keyed by the
+ * primitive {@code long} so lookups neither box the key nor build an ID string. Uses
+ * linear probing over power-of-two arrays kept at most half full, and backward-shift
+ * deletion, so there are no tombstones and probe runs stay short however many students
+ * come and go.
+ * <p>
+ * Not thread-safe; callers must provide their own locking.
+ */
+final class LuiTable {
+
+    /**
+     * The initial number of buckets; always a power of two.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The LUI in each bucket; meaningful only where {@code students} is non-null.
+     */
+    private long[] luis;
+
+    /**
+     * The student in each bucket, or {@code null} for an empty bucket.
+     */
+    private Student[] students;
+
+    /**
+     * The number of students held.
+     */
+    private int size;
+
+    /**
+     * Constructs a new, empty table.
+     */
+    LuiTable() {
+        luis = new long[INITIAL_CAPACITY];
+        students = new Student[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Constructs a copy of another table.
+     *
+     * @param source the table to copy
+     */
+    private LuiTable(LuiTable source) {
+        luis = source.luis.clone();
+        students = source.students.clone();
+        size = source.size;
+    }
+
+    /**
+     * Returns an independent copy of this table.
+     *
+     * @return a copy of this table
+     */
+    LuiTable copy() {
+        return new LuiTable(this);
+    }
+
+    /**
+     * Finds the student with the given LUI.
+     *
+     * @param lui the student's LUI
+     * @return the student, or {@code null} if there is none
+     */
+    Student get(long lui) {
+        int mask = students.length - 1;
+        for (int i = home(lui, mask); students[i] != null; i = (i + 1) & mask) {
+            if (luis[i] == lui) {
+                return students[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Maps a LUI to a student, replacing any student already held under it.
+     *
+     * @param lui     the student's LUI
+     * @param student the student
+     */
+    void put(long lui, Student student) {
+        if ((size + 1) * 2 > students.length) {
+            resize(students.length * 2);
+        }
+        int mask = students.length - 1;
+        int i = home(lui, mask);
+        while (students[i] != null) {
+            if (luis[i] == lui) {
+                students[i] = student;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        luis[i] = lui;
+        students[i] = student;
+        size++;
+    }
+
+    /**
+     * Removes the student held under a LUI, shifting later entries of its probe run back
+     * so that every entry stays reachable from its home bucket.
+     *
+     * @param lui the student's LUI
+     */
+    void remove(long lui) {
+        int mask = students.length - 1;
+        int gap = home(lui, mask);
+        while (students[gap] != null && luis[gap] != lui) {
+            gap = (gap + 1) & mask;
+        }
+        if (students[gap] == null) {
+            return;
+        }
+        for (int next = (gap + 1) & mask; students[next] != null; next = (next + 1) & mask) {
+            int home = home(luis[next], mask);
+            // an entry may fill the gap only if its home is not cyclically in (gap, next]
+            boolean reachable = gap <= next
+                    ? gap < home && home <= next
+                    : gap < home || home <= next;
+            if (!reachable) {
+                luis[gap] = luis[next];
+                students[gap] = students[next];
+                gap = next;
+            }
+        }
+        students[gap] = null;
+        size--;
+    }
+
+    /**
+     * Returns the number of students held.
+     *
+     * @return the number of students
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes every student.
+     */
+    void clear() {
+        luis = new long[INITIAL_CAPACITY];
+        students = new Student[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    /**
+     * Computes the home bucket of a LUI. LUIs are handed out in runs, so the key is
+     * scrambled (Fibonacci hashing) before masking.
+     *
+     * @param lui  the LUI
+     * @param mask the number of buckets less one
+     * @return the home bucket
+     */
+    private static int home(long lui, int mask) {
+        long h = lui * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * Rehashes every entry into a table of the given capacity.
+     *
+     * @param capacity the new number of buckets, a power of two
+     */
+    private void resize(int capacity) {
+        long[] oldLuis = luis;
+        Student[] oldStudents = students;
+        luis = new long[capacity];
+        students = new Student[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldStudents.length; j++) {
+            if (oldStudents[j] != null) {
+                int i = home(oldLuis[j], mask);
+                while (students[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                luis[i] = oldLuis[j];
+                students[i] = oldStudents[j];
+            }
+        }
+    }
+}
@@ -47,4 +47,27 @@ public interface ManageableListItem {
     default String getId() {
         return "";
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the dense ordinal the {@link Registry} gave this item when it was registered:
+     * an {@code int} in {@code [0, registry.ordinalBound(type))}, unique among the
+     * registered items of its type, for indexing array side tables instead of hashing IDs.
+     * The ordinal of a removed item may be given to a later one. This interface method
+     * should provide a default implementation that returns {@code -1}.
+     *
+     * @return the ordinal, or {@code -1} if the item is not registered
+     */
+    default int getOrdinal() {
+        return -1;
+    }
+
+    /**
+     * Records the ordinal given to this item by the {@link Registry}. Only the registry
+     * should call this. This interface method should provide a default implementation
+     * that ignores the ordinal.
+     *
+     * @param ordinal the ordinal, or {@code -1} when the item is removed
+     */
+    default void setOrdinal(int ordinal) {
+    }
+}
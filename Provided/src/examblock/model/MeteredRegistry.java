@@ -0,0 +1,278 @@
+package examblock.model;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link Registry} that counts and times every call to another registry, per item type
+ * and operation, into {@link RegistryStats}. The statistics can be read with
+ * {@link #dumpStats()} or, once {@link #register() registered}, over JMX.
+ * <p>
+ * Metering is switched on with the {@value #ENABLED_PROPERTY} system property: when it
+ * is not set, {@link #wrap(Registry)} returns the registry unchanged, so nothing is paid
+ * for it. When it is set, each call costs two clock reads and a few atomic increments.
+ */
+public class MeteredRegistry extends ForwardingRegistry {
+
+    /**
+     * The system property that switches metering on, e.g.
+     * {@code -Dexamblock.metrics=true}.
+     */
+    public static final String ENABLED_PROPERTY = "examblock.metrics";
+
+    /**
+     * The JMX domain and type of the published statistics.
+     */
+    static final String OBJECT_NAME = "examblock.model:type=RegistryStats";
+
+    /**
+     * Numbers the published registries, so each has its own JMX name.
+     */
+    private static final AtomicInteger published = new AtomicInteger();
+
+    /**
+     * The statistics of the calls made through this registry.
+     */
+    private final RegistryStats stats;
+
+    /**
+     * Constructs a registry metering the calls to another registry.
+     *
+     * @param delegate the registry holding the items
+     */
+    public MeteredRegistry(Registry delegate) {
+        super(delegate);
+        this.stats = new RegistryStats();
+    }
+
+    /**
+     * Meters a registry and publishes its statistics over JMX if metering is switched
+     * on by the {@value #ENABLED_PROPERTY} system property.
+     *
+     * @param registry the registry to meter
+     * @return the metered registry, or {@code registry} itself if metering is off
+     */
+    public static Registry wrap(Registry registry) {
+        if (!Boolean.getBoolean(ENABLED_PROPERTY)) {
+            return registry;
+        }
+        MeteredRegistry metered = new MeteredRegistry(registry);
+        metered.register();
+        return metered;
+    }
+
+    /**
+     * Publishes the statistics on the platform MBean server, under
+     * {@code examblock.model:type=RegistryStats,name=registry-<n>}.
+     *
+     * @return the name the statistics were published under
+     * @throws IllegalStateException if they cannot be published
+     */
+    public ObjectName register() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME + ",name=registry-"
+                    + published.incrementAndGet());
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(stats, name);
+            return name;
+        } catch (JMException e) {
+            throw new IllegalStateException("Unable to publish registry statistics", e);
+        }
+    }
+
+    /**
+     * Returns the statistics of the calls made through this registry.
+     *
+     * @return the statistics
+     */
+    public RegistryStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Describes the calls made through this registry; see
+     * {@link RegistryStats#dumpStats()}.
+     *
+     * @return the description
+     */
+    public String dumpStats() {
+        return stats.dumpStats();
+    }
+
+    @Override
+    public <T extends ManageableListItem> boolean contains(String id, Class<T> type) {
+        long start = System.nanoTime();
+        try {
+            return super.contains(id, type);
+        } finally {
+            stats.record(type, RegistryStats.Operation.CONTAINS, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public <T extends ManageableListItem> void add(T item, Class<T> type) {
+        long start = System.nanoTime();
+        try {
+            super.add(item, type);
+        } finally {
+            stats.record(type, RegistryStats.Operation.ADD, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public <T extends ManageableListItem> T find(String id, Class<T> type) {
+        long start = System.nanoTime();
+        try {
+            return super.find(id, type);
+        } finally {
+            stats.record(type, RegistryStats.Operation.FIND, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public <T extends ManageableListItem> T get(String id, Class<T> type) {
+        long start = System.nanoTime();
+        try {
+            return super.get(id, type);
+        } finally {
+            stats.record(type, RegistryStats.Operation.GET, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public <T extends ManageableListItem> void remove(String id, Class<T> type) {
+        long start = System.nanoTime();
+        try {
+            super.remove(id, type);
+        } finally {
+            stats.record(type, RegistryStats.Operation.REMOVE, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public <T extends ManageableListItem> void removeAll(Class<T> type) {
+        long start = System.nanoTime();
+        try {
+            super.removeAll(type);
+        } finally {
+            stats.record(type, RegistryStats.Operation.REMOVE_ALL, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public <T extends ManageableListItem> List<T> getAll(Class<T> type) {
+        long start = System.nanoTime();
+        try {
+            return super.getAll(type);
+        } finally {
+            stats.record(type, RegistryStats.Operation.GET_ALL, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public <T extends ManageableListItem> T getAt(int row, Class<T> type) {
+        long start = System.nanoTime();
+        try {
+            return super.getAt(row, type);
+        } finally {
+            stats.record(type, RegistryStats.Operation.GET_AT, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void clear() {
+        long start = System.nanoTime();
+        try {
+            super.clear();
+        } finally {
+            stats.record(null, RegistryStats.Operation.CLEAR, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public <T extends ManageableListItem> int count(Class<T> type) {
+        long start = System.nanoTime();
+        try {
+            return super.count(type);
+        } finally {
+            stats.record(type, RegistryStats.Operation.COUNT, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Student findByLui(long lui) {
+        long start = System.nanoTime();
+        try {
+            return super.findByLui(lui);
+        } finally {
+            stats.record(Student.class, RegistryStats.Operation.FIND_BY_LUI,
+                    System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public <T extends ManageableListItem> T byOrdinal(int ordinal, Class<T> type) {
+        long start = System.nanoTime();
+        try {
+            return super.byOrdinal(ordinal, type);
+        } finally {
+            stats.record(type, RegistryStats.Operation.BY_ORDINAL, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public <T extends ManageableListItem, K> List<T> lookup(RegistryIndex<T, K> index, K key) {
+        long start = System.nanoTime();
+        try {
+            return super.lookup(index, key);
+        } finally {
+            stats.record(index.getType(), RegistryStats.Operation.LOOKUP,
+                    System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public <T extends ManageableListItem, K> int count(RegistryIndex<T, K> index, K key) {
+        long start = System.nanoTime();
+        try {
+            return super.count(index, key);
+        } finally {
+            stats.record(index.getType(), RegistryStats.Operation.COUNT,
+                    System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public <T extends ManageableListItem> void reindex(T item, Class<T> type) {
+        long start = System.nanoTime();
+        try {
+            super.reindex(item, type);
+        } finally {
+            stats.record(type, RegistryStats.Operation.REINDEX, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Registry snapshot() {
+        long start = System.nanoTime();
+        try {
+            return super.snapshot();
+        } finally {
+            stats.record(null, RegistryStats.Operation.SNAPSHOT, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void commitBulk() {
+        long start = System.nanoTime();
+        try {
+            super.commitBulk();
+        } finally {
+            stats.record(null, RegistryStats.Operation.COMMIT_BULK, System.nanoTime() - start);
+        }
+    }
+}
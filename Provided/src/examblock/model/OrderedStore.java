@@ -0,0 +1,791 @@
+package examblock.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Insertion-ordered storage for the items of a single type in a {@link Registry}.
+ * Items are appended to a slot array and found by ID through a hash map of slot numbers,
+ * so {@code add}, {@code remove} and {@code contains} are constant time. Removing an item
+ * leaves a tombstone (a {@code null} slot) behind rather than shifting the array; a
+ * Fenwick tree counts the live slots so {@code getAt(row)} finds the row-th live item in
+ * logarithmic time and row numbers never see the tombstones.
+ * <p>
+ * Once tombstones make up more than half of the slots, the next write compacts the array.
+ * Compaction is amortised over the removals that caused it and never changes the row of
+ * any live item, so table views holding row numbers stay correct.
+ * <p>
+ * The store also owns the {@link RegistryIndex}es defined for its type and keeps them in
+ * step with every add, remove and clear.
+ * <p>
+ * Each stored item is also given a dense ordinal, an {@code int} in
+ * {@code [0, ordinalBound())} that stays fixed while the item is stored, so callers can
+ * keep side tables in plain arrays. Ordinals freed by removals are handed out again to
+ * later items, keeping the range as small as the largest number of items stored at once.
+ * <p>
+ * Between {@link #beginBulk(int)} and {@link #commitBulk()} added items are only queued;
+ * the commit checks the whole batch for duplicates in one pass, sizes the arrays and map
+ * once, and updates the Fenwick tree and indexes once, so a load costs linear time.
+ * <p>
+ * A store of {@link Student}s also keeps a {@link LuiTable}, so students can be found by
+ * their primitive LUI without building an ID string.
+ * <p>
+ * {@link #snapshot()} is copy-on-write: the snapshot shares this store's arrays, and the
+ * first write after it copies them before changing anything, so taking a snapshot is
+ * constant time and later writes never show through it.
+ * <p>
+ * Not thread-safe; callers must provide their own locking.
+ *
+ * @param <T> the type of the items stored, extending {@link ManageableListItem}
+ */
+class OrderedStore<T extends ManageableListItem> {
+
+    /**
+     * The initial number of slots.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Tombstones below this count are never worth compacting.
+     */
+    private static final int MIN_COMPACT = 32;
+
+    /**
+     * The class of the items stored, used in error messages.
+     */
+    private final Class<T> type;
+
+    /**
+     * Maps each item ID to its slot number.
+     */
+    private Map<String, Integer> slotById;
+
+    /**
+     * The items in insertion order; removed items leave a {@code null} tombstone.
+     */
+    private Object[] slots;
+
+    /**
+     * The ID each slot was stored under, kept so compaction does not depend on the item.
+     */
+    private String[] keys;
+
+    /**
+     * The ordinal of the item in each slot.
+     */
+    private int[] ordinals;
+
+    /**
+     * The item holding each ordinal, or {@code null} if the ordinal is free.
+     */
+    private Object[] byOrdinal;
+
+    /**
+     * One past the highest ordinal handed out so far.
+     */
+    private int ordinalBound;
+
+    /**
+     * Ordinals freed by removals, used as a stack.
+     */
+    private int[] freeOrdinals;
+
+    /**
+     * The number of entries in {@code freeOrdinals}.
+     */
+    private int freeCount;
+
+    /**
+     * Fenwick (binary indexed) tree over the slots, 1-based, counting live slots.
+     */
+    private int[] tree;
+
+    /**
+     * The number of slots used so far, live or tombstoned.
+     */
+    private int used;
+
+    /**
+     * The number of live items.
+     */
+    private int live;
+
+    /**
+     * The secondary indexes over this type, in the order they were created.
+     */
+    private final List<RegistryIndex<T, ?>> indexes;
+
+    /**
+     * The students by LUI, or {@code null} if this store does not hold students.
+     */
+    private LuiTable luis;
+
+    /**
+     * The IDs of the items queued by an open bulk load, or {@code null} if there is none.
+     */
+    private List<String> pendingIds;
+
+    /**
+     * The items queued by an open bulk load, parallel to {@code pendingIds}.
+     */
+    private List<T> pending;
+
+    /**
+     * Counts the changes to which items are stored, or their order.
+     */
+    private long modCount;
+
+    /**
+     * Whether the arrays and map are shared with a snapshot and must be copied before
+     * the next write.
+     */
+    private boolean shared;
+
+    /**
+     * Constructs a new, empty store.
+     *
+     * @param type the class of the items stored
+     */
+    OrderedStore(Class<T> type) {
+        this.type = type;
+        if (type == Student.class) {
+            luis = new LuiTable();
+        }
+        slotById = new HashMap<>();
+        slots = new Object[INITIAL_CAPACITY];
+        keys = new String[INITIAL_CAPACITY];
+        tree = new int[INITIAL_CAPACITY + 1];
+        ordinals = new int[INITIAL_CAPACITY];
+        byOrdinal = new Object[INITIAL_CAPACITY];
+        freeOrdinals = new int[INITIAL_CAPACITY];
+        indexes = new ArrayList<>();
+    }
+
+    /**
+     * Constructs a snapshot sharing the state of another store.
+     *
+     * @param source the store to share the state of
+     */
+    private OrderedStore(OrderedStore<T> source) {
+        type = source.type;
+        slotById = source.slotById;
+        slots = source.slots;
+        keys = source.keys;
+        tree = source.tree;
+        ordinals = source.ordinals;
+        byOrdinal = source.byOrdinal;
+        ordinalBound = source.ordinalBound;
+        freeOrdinals = source.freeOrdinals;
+        freeCount = source.freeCount;
+        luis = source.luis;
+        used = source.used;
+        live = source.live;
+        modCount = source.modCount;
+        indexes = new ArrayList<>(source.indexes);
+        shared = true;
+    }
+
+    /**
+     * Checks if an item with the given ID is stored.
+     *
+     * @param id the unique identifier to check
+     * @return {@code true} if an item with the ID is stored
+     */
+    boolean contains(String id) {
+        return slotById.containsKey(id);
+    }
+
+    /**
+     * Finds an item by its ID.
+     *
+     * @param id the unique identifier of the item
+     * @return the item, or {@code null} if not stored
+     */
+    @SuppressWarnings("unchecked")
+    T get(String id) {
+        Integer slot = slotById.get(id);
+        return slot == null ? null : (T) slots[slot];
+    }
+
+    /**
+     * Appends an item unless an item with the same ID is already stored, and indexes it.
+     *
+     * @param id   the unique identifier of the item
+     * @param item the item to store
+     * @return the item already stored under the ID, or {@code null} if the item was added
+     * @throws IllegalStateException if the item would break a unique index
+     */
+    @SuppressWarnings("unchecked")
+    T putIfAbsent(String id, T item) {
+        Integer slot = slotById.get(id);
+        if (slot != null) {
+            return (T) slots[slot];
+        }
+        for (RegistryIndex<T, ?> index : indexes) {
+            index.checkInsert(item);
+        }
+        unshare();
+        if (used == slots.length) {
+            grow();
+        }
+        append(id, item);
+        increment(used, 1);
+        modCount++;
+        for (RegistryIndex<T, ?> index : indexes) {
+            index.insert(item);
+        }
+        return null;
+    }
+
+    /**
+     * Starts, or extends, a bulk load: until {@link #commitBulk()}, items passed to
+     * {@link #addPending} are queued instead of stored.
+     *
+     * @param expectedSize the number of items expected, used to size the queue
+     */
+    void beginBulk(int expectedSize) {
+        if (pending == null) {
+            pendingIds = new ArrayList<>(Math.max(expectedSize, 0));
+            pending = new ArrayList<>(Math.max(expectedSize, 0));
+        }
+    }
+
+    /**
+     * Checks whether a bulk load is open.
+     *
+     * @return true if added items are being queued
+     */
+    boolean inBulk() {
+        return pending != null;
+    }
+
+    /**
+     * Queues an item for the open bulk load. It is not visible until the commit.
+     *
+     * @param id   the unique identifier of the item
+     * @param item the item to store
+     */
+    void addPending(String id, T item) {
+        pendingIds.add(id);
+        pending.add(item);
+    }
+
+    /**
+     * Stores every item queued since {@link #beginBulk(int)}, in the order queued, and
+     * closes the bulk load. An item queued more than once, or already stored, is stored
+     * once. The batch is checked before anything is stored, so if it fails nothing is.
+     *
+     * @throws IllegalStateException if a queued item has the ID of a different item, or
+     *                               would break a unique index; the batch is discarded
+     */
+    void commitBulk() {
+        if (pending == null) {
+            return;
+        }
+        List<String> batchIds = pendingIds;
+        List<T> batch = pending;
+        pendingIds = null;
+        pending = null;
+
+        // one pass for duplicates, within the batch and against the stored items
+        Map<String, T> fresh = new HashMap<>(capacityFor(batch.size()));
+        List<String> addedIds = new ArrayList<>(batch.size());
+        List<T> added = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            String id = batchIds.get(i);
+            T item = batch.get(i);
+            T existing = get(id);
+            if (existing == null) {
+                existing = fresh.putIfAbsent(id, item);
+                if (existing == null) {
+                    addedIds.add(id);
+                    added.add(item);
+                    continue;
+                }
+            }
+            if (existing != item) {
+                throw new IllegalStateException("Item with ID " + id
+                        + " already exists for type " + type.getSimpleName());
+            }
+        }
+        checkUnique(added);
+
+        unshare();
+        if (slotById.size() < added.size()) {
+            Map<String, Integer> sized = new HashMap<>(capacityFor(live + added.size()));
+            sized.putAll(slotById);
+            slotById = sized;
+        }
+        int capacity = slots.length;
+        while (capacity < used + added.size()) {
+            capacity *= 2;
+        }
+        slots = Arrays.copyOf(slots, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        ordinals = Arrays.copyOf(ordinals, capacity);
+        for (int i = 0; i < added.size(); i++) {
+            append(addedIds.get(i), added.get(i));
+        }
+        rebuildTree();
+        if (!added.isEmpty()) {
+            modCount++;
+        }
+        for (RegistryIndex<T, ?> index : indexes) {
+            for (T item : added) {
+                index.insert(item);
+            }
+        }
+    }
+
+    /**
+     * Checks that a batch of new items can go into every unique index, against both the
+     * items already indexed and each other.
+     *
+     * @param added the new items
+     * @throws IllegalStateException if two items would share a unique key
+     */
+    private void checkUnique(List<T> added) {
+        for (RegistryIndex<T, ?> index : indexes) {
+            if (index.isUnique()) {
+                checkUnique(index, added);
+            }
+        }
+    }
+
+    /**
+     * Checks that a batch of new items can go into one unique index.
+     *
+     * @param index the unique index
+     * @param added the new items
+     * @param <K>   the type of the index key
+     * @throws IllegalStateException if two items would share a key
+     */
+    private <K> void checkUnique(RegistryIndex<T, K> index, List<T> added) {
+        Set<K> seen = new HashSet<>();
+        for (T item : added) {
+            index.checkInsert(item);
+            for (K key : index.keysOf(item)) {
+                if (key != null && !seen.add(key)) {
+                    throw new IllegalStateException("Unique index " + index.getName() + " on "
+                            + type.getSimpleName() + " already has an item with key " + key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stores an item in the next free slot and gives it an ordinal. The caller makes room
+     * and updates the Fenwick tree and indexes.
+     *
+     * @param id   the unique identifier of the item
+     * @param item the item to store
+     */
+    private void append(String id, T item) {
+        int ordinal = nextOrdinal();
+        slots[used] = item;
+        keys[used] = id;
+        ordinals[used] = ordinal;
+        byOrdinal[ordinal] = item;
+        item.setOrdinal(ordinal);
+        if (luis != null && ((Student) item).getLui() != null) {
+            luis.put(((Student) item).getLui(), (Student) item);
+        }
+        slotById.put(id, used);
+        used++;
+        live++;
+    }
+
+    /**
+     * Computes a {@link HashMap} capacity that holds the given number of entries without
+     * rehashing.
+     *
+     * @param entries the number of entries
+     * @return the initial capacity to ask for
+     */
+    private static int capacityFor(int entries) {
+        return (int) (entries / 0.75f) + 1;
+    }
+
+    /**
+     * Removes the item with the given ID, leaving a tombstone in its slot.
+     *
+     * @param id the unique identifier of the item
+     * @return the removed item, or {@code null} if not stored
+     */
+    @SuppressWarnings("unchecked")
+    T remove(String id) {
+        Integer slot = slotById.get(id);
+        if (slot == null) {
+            return null;
+        }
+        unshare();
+        slotById.remove(id);
+        T item = (T) slots[slot];
+        for (RegistryIndex<T, ?> index : indexes) {
+            index.delete(item);
+        }
+        freeOrdinal(ordinals[slot]);
+        if (item.getOrdinal() == ordinals[slot]) {
+            item.setOrdinal(-1);
+        }
+        if (luis != null && ((Student) item).getLui() != null) {
+            luis.remove(((Student) item).getLui());
+        }
+        slots[slot] = null;
+        keys[slot] = null;
+        live--;
+        modCount++;
+        increment(slot + 1, -1);
+        int tombstones = used - live;
+        if (tombstones >= MIN_COMPACT && tombstones > live) {
+            compact();
+        }
+        return item;
+    }
+
+    /**
+     * Retrieves the item at the given row, counting live items only.
+     *
+     * @param row the index of the item (0-based)
+     * @return the item, or {@code null} if the row is out of range
+     */
+    @SuppressWarnings("unchecked")
+    T getAt(int row) {
+        if (row < 0 || row >= live) {
+            return null;
+        }
+        if (live == used) {
+            return (T) slots[row];
+        }
+        // Fenwick descent: find the smallest slot whose prefix count is row + 1
+        int remaining = row + 1;
+        int position = 0;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next < tree.length && tree[next] < remaining) {
+                position = next;
+                remaining -= tree[next];
+            }
+        }
+        return (T) slots[position];
+    }
+
+    /**
+     * Retrieves the item holding an ordinal.
+     *
+     * @param ordinal the ordinal of the item
+     * @return the item, or {@code null} if no item holds the ordinal
+     */
+    @SuppressWarnings("unchecked")
+    T byOrdinal(int ordinal) {
+        if (ordinal < 0 || ordinal >= ordinalBound) {
+            return null;
+        }
+        return (T) byOrdinal[ordinal];
+    }
+
+    /**
+     * Finds a stored student by LUI.
+     *
+     * @param lui the student's LUI
+     * @return the student, or {@code null} if there is none or this store does not hold
+     *         students
+     */
+    Student findByLui(long lui) {
+        return luis == null ? null : luis.get(lui);
+    }
+
+    /**
+     * Returns one past the highest ordinal held, the length a side table indexed by
+     * ordinal needs.
+     *
+     * @return the exclusive upper bound of the ordinals
+     */
+    int ordinalBound() {
+        return ordinalBound;
+    }
+
+    /**
+     * Returns the number of live items.
+     *
+     * @return the number of live items
+     */
+    int size() {
+        return live;
+    }
+
+    /**
+     * Returns a new list of the live items in insertion order.
+     *
+     * @return a new list of the items
+     */
+    @SuppressWarnings("unchecked")
+    List<T> toList() {
+        List<T> items = new ArrayList<>(live);
+        for (int i = 0; i < used; i++) {
+            if (slots[i] != null) {
+                items.add((T) slots[i]);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Defines a new index over this type and fills it from the stored items. If an index of
+     * the same name already exists, that index is returned instead.
+     *
+     * @param index the new, empty index
+     * @param <K>   the type of the index key
+     * @return the index now registered under the index's name
+     * @throws IllegalStateException if the stored items break a new unique index
+     */
+    @SuppressWarnings("unchecked")
+    <K> RegistryIndex<T, K> addIndex(RegistryIndex<T, K> index) {
+        RegistryIndex<T, ?> existing = findIndex(index.getName());
+        if (existing != null) {
+            return (RegistryIndex<T, K>) existing;
+        }
+        for (int i = 0; i < used; i++) {
+            if (slots[i] != null) {
+                index.insert((T) slots[i]);
+            }
+        }
+        indexes.add(index);
+        return index;
+    }
+
+    /**
+     * Finds an index over this type by name.
+     *
+     * @param name the name of the index
+     * @return the index, or {@code null} if there is no such index
+     */
+    RegistryIndex<T, ?> findIndex(String name) {
+        for (RegistryIndex<T, ?> index : indexes) {
+            if (index.getName().equals(name)) {
+                return index;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether the given index belongs to this store.
+     *
+     * @param index the index to check
+     * @return true if this store maintains the index
+     */
+    boolean owns(RegistryIndex<?, ?> index) {
+        return findIndex(index.getName()) == index;
+    }
+
+    /**
+     * Re-indexes a stored item whose key fields may have changed.
+     *
+     * @param id   the unique identifier the item is stored under
+     * @param item the item
+     */
+    void reindex(String id, T item) {
+        if (get(id) != item) {
+            return;
+        }
+        for (RegistryIndex<T, ?> index : indexes) {
+            index.update(item);
+        }
+    }
+
+    /**
+     * Returns a count that changes whenever an item is stored or removed.
+     *
+     * @return the number of changes so far
+     */
+    long modCount() {
+        return modCount;
+    }
+
+    /**
+     * Returns a read-only snapshot of the items stored now, in constant time. The snapshot
+     * keeps the index definitions, for {@link #owns} and {@link #scan}, but not their
+     * contents. It must not be written to.
+     *
+     * @return a store holding the current items
+     */
+    OrderedStore<T> snapshot() {
+        shared = true;
+        return new OrderedStore<>(this);
+    }
+
+    /**
+     * Finds the stored items with the given key in an index by checking each item's keys,
+     * without using the index's contents.
+     *
+     * @param index the index whose key function to use
+     * @param key   the key to look for
+     * @param <K>   the type of the index key
+     * @return a new list of the items with that key, in the index's order
+     */
+    @SuppressWarnings("unchecked")
+    <K> List<T> scan(RegistryIndex<T, K> index, K key) {
+        List<T> items = new ArrayList<>();
+        for (int i = 0; i < used; i++) {
+            if (slots[i] != null && index.hasKey((T) slots[i], key)) {
+                items.add((T) slots[i]);
+            }
+        }
+        index.sort(items);
+        return items;
+    }
+
+    /**
+     * Removes every item, including any queued by an open bulk load, which stays open.
+     * Index definitions are kept, emptied.
+     */
+    @SuppressWarnings("unchecked")
+    void clear() {
+        if (pending != null) {
+            pendingIds.clear();
+            pending.clear();
+        }
+        for (RegistryIndex<T, ?> index : indexes) {
+            index.clear();
+        }
+        for (int i = 0; i < ordinalBound; i++) {
+            T item = (T) byOrdinal[i];
+            if (item != null && item.getOrdinal() == i) {
+                item.setOrdinal(-1);
+            }
+        }
+        slotById = new HashMap<>();
+        slots = new Object[INITIAL_CAPACITY];
+        keys = new String[INITIAL_CAPACITY];
+        tree = new int[INITIAL_CAPACITY + 1];
+        ordinals = new int[INITIAL_CAPACITY];
+        byOrdinal = new Object[INITIAL_CAPACITY];
+        ordinalBound = 0;
+        freeOrdinals = new int[INITIAL_CAPACITY];
+        freeCount = 0;
+        if (luis != null) {
+            luis = new LuiTable();
+        }
+        used = 0;
+        live = 0;
+        modCount++;
+        shared = false;
+    }
+
+    /**
+     * Adds {@code delta} to the live count of the 1-based slot {@code index}.
+     *
+     * @param index the 1-based slot number
+     * @param delta the change in the count
+     */
+    private void increment(int index, int delta) {
+        for (int i = index; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Copies the arrays and map if a snapshot shares them, so they can be written.
+     */
+    private void unshare() {
+        if (!shared) {
+            return;
+        }
+        slotById = new HashMap<>(slotById);
+        slots = slots.clone();
+        keys = keys.clone();
+        tree = tree.clone();
+        ordinals = ordinals.clone();
+        byOrdinal = byOrdinal.clone();
+        freeOrdinals = freeOrdinals.clone();
+        if (luis != null) {
+            luis = luis.copy();
+        }
+        shared = false;
+    }
+
+    /**
+     * Takes a freed ordinal if there is one, or the next unused one.
+     *
+     * @return the ordinal for a new item
+     */
+    private int nextOrdinal() {
+        if (freeCount > 0) {
+            return freeOrdinals[--freeCount];
+        }
+        if (ordinalBound == byOrdinal.length) {
+            byOrdinal = Arrays.copyOf(byOrdinal, byOrdinal.length * 2);
+        }
+        return ordinalBound++;
+    }
+
+    /**
+     * Releases an ordinal for reuse.
+     *
+     * @param ordinal the ordinal no longer held
+     */
+    private void freeOrdinal(int ordinal) {
+        byOrdinal[ordinal] = null;
+        if (freeCount == freeOrdinals.length) {
+            freeOrdinals = Arrays.copyOf(freeOrdinals, freeOrdinals.length * 2);
+        }
+        freeOrdinals[freeCount++] = ordinal;
+    }
+
+    /**
+     * Doubles the slot array and rebuilds the Fenwick tree to match.
+     */
+    private void grow() {
+        slots = Arrays.copyOf(slots, slots.length * 2);
+        keys = Arrays.copyOf(keys, keys.length * 2);
+        ordinals = Arrays.copyOf(ordinals, ordinals.length * 2);
+        rebuildTree();
+    }
+
+    /**
+     * Squeezes the tombstones out of the slot array, keeping the live items in order.
+     */
+    private void compact() {
+        int capacity = Math.max(INITIAL_CAPACITY, live * 2);
+        Object[] packed = new Object[capacity];
+        String[] packedKeys = new String[capacity];
+        int[] packedOrdinals = new int[capacity];
+        int next = 0;
+        for (int i = 0; i < used; i++) {
+            if (slots[i] != null) {
+                packed[next] = slots[i];
+                packedKeys[next] = keys[i];
+                packedOrdinals[next] = ordinals[i];
+                slotById.put(keys[i], next);
+                next++;
+            }
+        }
+        slots = packed;
+        keys = packedKeys;
+        ordinals = packedOrdinals;
+        used = next;
+        rebuildTree();
+    }
+
+    /**
+     * Rebuilds the Fenwick tree from the slot array in linear time.
+     */
+    private void rebuildTree() {
+        tree = new int[slots.length + 1];
+        for (int i = 1; i < tree.length; i++) {
+            if (slots[i - 1] != null) {
+                tree[i] += 1;
+            }
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package examblock.model;
 
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * Interface for a registry that manages shared instances of {@link ManageableListItem}
@@ -105,4 +108,218 @@ public interface Registry {
      * @return the number of items
      */
     <T extends ManageableListItem> int count(Class<T> type);
+
+    /**
+     * Finds a registered {@link Student} by LUI. Students are also kept in a table keyed by
+     * the primitive LUI, so this neither boxes the key nor builds an ID string.
+     *
+     * @param lui the student's 10-digit Learner Unique Identifier
+     * @return the student if found, or {@code null} if not found
+     */
+    Student findByLui(long lui);
+
+    /**
+     * Returns a stamp that changes whenever an item of the specified type is registered
+     * or unregistered, and otherwise stays the same. Callers holding a list built from
+     * {@link #getAll(Class)} can compare stamps to know, in constant time, whether the
+     * list is still current. Stamps are only comparable for the same registry and type.
+     *
+     * @param type the class of the items
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @return the current stamp for the type
+     */
+    <T extends ManageableListItem> long modCount(Class<T> type);
+
+    /**
+     * Returns one past the highest ordinal held by a registered item of the specified
+     * type: the length an array side table indexed by
+     * {@link ManageableListItem#getOrdinal()} needs. Ordinals are dense, so this is never
+     * more than the largest number of items of the type registered at once.
+     *
+     * @param type the class of the items
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @return the exclusive upper bound of the type's ordinals
+     */
+    <T extends ManageableListItem> int ordinalBound(Class<T> type);
+
+    /**
+     * Retrieves the registered item holding an ordinal for the specified type.
+     *
+     * @param ordinal the ordinal of the item
+     * @param type    the class of the item
+     * @param <T>     the type of the item, extending {@link ManageableListItem}
+     * @return the item, or {@code null} if no registered item holds the ordinal
+     */
+    <T extends ManageableListItem> T byOrdinal(int ordinal, Class<T> type);
+
+    /**
+     * Creates a multi-valued secondary index over the items of a type, keyed by
+     * {@code key}. Any number of items may share a key. The index is filled from the items
+     * already registered and then maintained on every add and remove. If an index with
+     * the same name already exists for the type, that index is returned instead.
+     *
+     * @param type the class of the items to index
+     * @param name the name of the index, unique per type
+     * @param key  derives the key of an item; items with a {@code null} key are not indexed
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @param <K>  the type of the key
+     * @return the index, for use with {@link #lookup(RegistryIndex, Object)}
+     */
+    <T extends ManageableListItem, K> RegistryIndex<T, K> createIndex(Class<T> type, String name,
+                                                                     Function<T, K> key);
+
+    /**
+     * Creates a unique secondary index over the items of a type, keyed by {@code key}.
+     * Adding an item whose key is already taken by another item throws an
+     * {@link IllegalStateException}. If an index with the same name already exists for the
+     * type, that index is returned instead.
+     *
+     * @param type the class of the items to index
+     * @param name the name of the index, unique per type
+     * @param key  derives the key of an item; items with a {@code null} key are not indexed
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @param <K>  the type of the key
+     * @return the index, for use with {@link #lookup(RegistryIndex, Object)}
+     * @throws IllegalStateException if the items already registered share a key
+     */
+    <T extends ManageableListItem, K> RegistryIndex<T, K> createUniqueIndex(Class<T> type,
+                                                                           String name,
+                                                                           Function<T, K> key);
+
+    /**
+     * Creates a multi-valued secondary index in which each item may have several keys,
+     * e.g., students indexed by each of their subjects. If an index with the same name
+     * already exists for the type, that index is returned instead.
+     *
+     * @param type the class of the items to index
+     * @param name the name of the index, unique per type
+     * @param keys derives all the keys of an item
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @param <K>  the type of the key
+     * @return the index, for use with {@link #lookup(RegistryIndex, Object)}
+     */
+    <T extends ManageableListItem, K> RegistryIndex<T, K> createMultiKeyIndex(
+            Class<T> type, String name, Function<T, ? extends Collection<K>> keys);
+
+    /**
+     * Creates a multi-valued secondary index in which each item may have several keys and
+     * the items under each key are kept sorted, e.g., each subject's students by name.
+     * Lookups return the items in that order, and keeping it costs a binary search per
+     * key on every add, remove and reindex. If an index with the same name already exists
+     * for the type, that index is returned instead.
+     *
+     * @param type  the class of the items to index
+     * @param name  the name of the index, unique per type
+     * @param keys  derives all the keys of an item
+     * @param order the order of the items under each key
+     * @param <T>   the type of the items, extending {@link ManageableListItem}
+     * @param <K>   the type of the key
+     * @return the index, for use with {@link #lookup(RegistryIndex, Object)}
+     */
+    <T extends ManageableListItem, K> RegistryIndex<T, K> createSortedMultiKeyIndex(
+            Class<T> type, String name, Function<T, ? extends Collection<K>> keys,
+            Comparator<? super T> order);
+
+    /**
+     * Returns the registered items with the given key in an index, in the order they
+     * were indexed. The returned list is a read-only copy: later changes to the registry
+     * do not affect it, so it may be iterated while the items are changed. Use
+     * {@link #count(RegistryIndex, Object)} when only the number is needed.
+     *
+     * @param index an index created by this registry
+     * @param key   the key to look up
+     * @param <T>   the type of the items, extending {@link ManageableListItem}
+     * @param <K>   the type of the key
+     * @return the items with that key, or an empty list if there are none
+     * @throws IllegalArgumentException if the index was not created by this registry
+     */
+    <T extends ManageableListItem, K> List<T> lookup(RegistryIndex<T, K> index, K key);
+
+    /**
+     * Returns the number of registered items with the given key in an index, without
+     * building the list of them.
+     *
+     * @param index an index created by this registry
+     * @param key   the key to look up
+     * @param <T>   the type of the items, extending {@link ManageableListItem}
+     * @param <K>   the type of the key
+     * @return the number of items with that key
+     * @throws IllegalArgumentException if the index was not created by this registry
+     */
+    <T extends ManageableListItem, K> int count(RegistryIndex<T, K> index, K key);
+
+    /**
+     * Brings every index over the item's type up to date after a field used as an index
+     * key has changed (e.g., a subject added to a student). Does nothing if the item is
+     * not registered.
+     *
+     * @param item the registered item whose keys may have changed
+     * @param type the class of the item
+     * @param <T>  the type of the item, extending {@link ManageableListItem}
+     * @throws IllegalStateException if the item's new key is taken in a unique index
+     */
+    <T extends ManageableListItem> void reindex(T item, Class<T> type);
+
+    /**
+     * Tells the registry that an exam has been scheduled into a registered session, so
+     * that a registry tracking changes (such as a {@link JournalingRegistry}) can record
+     * it. Decorators pass it on to the registry they wrap. Does nothing by default.
+     *
+     * @param session the session
+     * @param exam    the exam scheduled into it
+     */
+    default void scheduled(Session session, Exam exam) {
+    }
+
+    /**
+     * Returns a read-only, point-in-time view of the registry. The snapshot sees exactly
+     * the items registered when it was taken, in the same order, however the registry
+     * changes afterwards; taking one is constant time, so long report and render passes
+     * can read a consistent registry without blocking writers.
+     * <p>
+     * The snapshot freezes which items are registered, not the items themselves: a
+     * student's subjects, say, are read from the live object. Every mutating method of
+     * the snapshot throws {@link UnsupportedOperationException}, apart from
+     * {@link #reindex}, which does nothing. Index lookups on a snapshot scan its items.
+     *
+     * @return a read-only snapshot of the registry
+     */
+    Registry snapshot();
+
+    /**
+     * Starts a bulk load of the specified type, for loading many items at once (e.g.,
+     * from a file). Until {@link #commitBulk()}, items added for the type are only
+     * queued: they are not checked for duplicates and are not yet visible to
+     * {@code find}, {@code count}, {@code getAll} or index lookups. The commit checks
+     * and stores the whole batch in one pass, in the order added, so loading {@code n}
+     * items costs linear time. Calling it again for a type already in bulk mode has no
+     * effect.
+     *
+     * @param type         the class of the items to be loaded
+     * @param expectedSize the number of items expected, used to size the storage
+     * @param <T>          the type of the items, extending {@link ManageableListItem}
+     */
+    <T extends ManageableListItem> void beginBulk(Class<T> type, int expectedSize);
+
+    /**
+     * Stores every item queued since {@link #beginBulk(Class, int)}, for every type in
+     * bulk mode, and ends bulk mode. An item added more than once, or already registered,
+     * is stored once. A type's batch is checked before any of it is stored, so a failing
+     * batch is discarded whole.
+     *
+     * @throws IllegalStateException if a queued item has the ID of a different item, or
+     *                               two items would share a key in a unique index
+     */
+    void commitBulk();
+
+    /**
+     * Starts a query over the registered items of a type; see {@link RegistryQuery}.
+     *
+     * @param type the class of the items to query
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @return a new query matching every item of the type
+     */
+    default <T extends ManageableListItem> RegistryQuery<T> query(Class<T> type) {
+        return new RegistryQuery<>(this, type);
+    }
 }
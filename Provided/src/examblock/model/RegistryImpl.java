@@ -1,56 +1,52 @@
 package examblock.model;
 
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * Implementation of the {@link Registry} interface, managing shared instances of
  * {@link ManageableListItem} objects (e.g., {@code Exam}, {@code Subject}). Stores
- * items in a map for fast lookup by ID and a list of IDs for ordering. Ensures
- * uniqueness by throwing an exception for duplicate IDs.
+ * the items of each type in an {@link OrderedStore}, which keeps insertion order while
+ * giving constant time lookup, add and remove by ID and logarithmic time access by row.
+ * Ensures uniqueness by throwing an exception for duplicate IDs.
  */
 public class RegistryImpl implements Registry {
     /**
-     * Map storing items by type and ID for fast lookup. Keyed by the item's class
-     * (e.g., {@code Exam.class}), with a nested map of ID to item.
+     * Map storing the ordered items of each type. Keyed by the item's class
+     * (e.g., {@code Exam.class}).
      */
-    private final Map<Class<? extends ManageableListItem>,
-            Map<String, ? extends ManageableListItem>> registries;
-
-    /**
-     * Map storing ordered lists of item IDs by type, maintaining insertion order.
-     * Keyed by the item's class (e.g., {@code Exam.class}).
-     */
-    private final Map<Class<? extends ManageableListItem>,
-            List<String>> orderedIds;
+    private final Map<Class<? extends ManageableListItem>, OrderedStore<?>> stores;
 
     /**
      * Constructs a new, empty registry.
      */
     public RegistryImpl() {
-        registries = new HashMap<>();
-        orderedIds = new HashMap<>();
+        stores = new HashMap<>();
     }
 
     /**
-     * Retrieves or creates a map for the specified type, used for ID-based lookups.
+     * Retrieves or creates the store for the specified type.
      *
      * @param type the class of the items
      * @param <T>  the type of the items, extending {@link ManageableListItem}
-     * @return the map of ID to item for the type
+     * @return the ordered store for the type
      */
-    private <T extends ManageableListItem> Map<String, T> getOrCreateRegistry(Class<T> type) {
-        return (Map<String, T>) registries.computeIfAbsent(type, k -> new HashMap<>());
+    @SuppressWarnings("unchecked")
+    private <T extends ManageableListItem> OrderedStore<T> getOrCreateStore(Class<T> type) {
+        return (OrderedStore<T>) stores.computeIfAbsent(type, k -> new OrderedStore<>(type));
     }
 
     /**
-     * Retrieves or creates an ordered list of IDs for the specified type.
+     * Retrieves the store for the specified type without creating one, so lookups of a
+     * type that was never added leave the registry untouched.
      *
      * @param type the class of the items
      * @param <T>  the type of the items, extending {@link ManageableListItem}
-     * @return the ordered list of item IDs for the type
+     * @return the ordered store for the type, or {@code null} if there is none
      */
-    private <T extends ManageableListItem> List<String> getOrCreateOrderedIds(Class<T> type) {
-        return (List<String>) orderedIds.computeIfAbsent(type, k -> new ArrayList<>());
+    @SuppressWarnings("unchecked")
+    private <T extends ManageableListItem> OrderedStore<T> findStore(Class<T> type) {
+        return (OrderedStore<T>) stores.get(type);
     }
 
     /**
@@ -62,13 +58,15 @@ public class RegistryImpl implements Registry {
      * @return {@code true} if an item with the ID exists, {@code false} otherwise
      */
     public <T extends ManageableListItem> boolean contains(String id, Class<T> type) {
-        return getOrCreateRegistry(type).containsKey(id);
+        OrderedStore<T> store = findStore(type);
+        return store != null && store.contains(id);
     }
 
     /**
      * Adds an item to the registry for the specified type, storing it by its
-     * {@link ManageableListItem#getId()} and appending its ID to the ordered list.
+     * {@link ManageableListItem#getId()} at the end of the insertion order.
      * If the item is already registered (same ID and instance), it is not re-added.
+     * During a bulk load of the type the item is queued until {@link #commitBulk()}.
      *
      * @param item the item to add
      * @param type the class of the item
@@ -78,22 +76,17 @@ public class RegistryImpl implements Registry {
      */
     @Override
     public <T extends ManageableListItem> void add(T item, Class<T> type) {
-        Map<String, T> registry = getOrCreateRegistry(type);
-        List<String> ids = getOrCreateOrderedIds(type);
         String id = Objects.requireNonNull(item.getId(), "Item ID cannot be null");
-
-        if (registry.containsKey(id)) {
-            T existing = registry.get(id);
-            if (existing == item) {
-                return; // Already registered
-            }
+        OrderedStore<T> store = getOrCreateStore(type);
+        if (store.inBulk()) {
+            store.addPending(id, item);
+            return;
+        }
+        T existing = store.putIfAbsent(id, item);
+        if (existing != null && existing != item) {
             throw new IllegalStateException("Item with ID " + id + " already exists for type "
                     + type.getSimpleName());
         }
-        registry.put(id, item);
-        if (!ids.contains(id)) {
-            ids.add(id);
-        }
     }
 
     /**
@@ -107,12 +100,13 @@ public class RegistryImpl implements Registry {
      */
     @Override
     public <T extends ManageableListItem> T get(String id, Class<T> type) throws RuntimeException {
-        if (find(id, type) == null) {
+        T item = find(id, type);
+        if (item == null) {
             throw new RuntimeException("Item with ID " + id + " not found for type "
                     + type.getSimpleName());
         }
 
-        return find(id, type);
+        return item;
     }
 
     /**
@@ -125,12 +119,14 @@ public class RegistryImpl implements Registry {
      */
     @Override
     public <T extends ManageableListItem> T find(String id, Class<T> type) {
-        return getOrCreateRegistry(type).get(id);
+        OrderedStore<T> store = findStore(type);
+        return store == null ? null : store.get(id);
     }
 
     /**
-     * Removes an item by its unique ID for the specified type, updating both the
-     * ID-based map and the ordered ID list.
+     * Removes an item by its unique ID for the specified type. Later items keep their
+     * relative order and move up one row. A subject is first withdrawn from the students
+     * taking it.
      *
      * @param id   the unique identifier of the item
      * @param type the class of the item
@@ -138,29 +134,48 @@ public class RegistryImpl implements Registry {
      */
     @Override
     public <T extends ManageableListItem> void remove(String id, Class<T> type) {
-        Map<String, T> registry = getOrCreateRegistry(type);
-        if (registry.remove(id) != null) {
-            getOrCreateOrderedIds(type).remove(id);
+        OrderedStore<T> store = findStore(type);
+        if (store != null) {
+            if (type == Subject.class) {
+                Student.withdrawAll(this, (Subject) store.get(id));
+            }
+            store.remove(id);
         }
     }
 
     /**
-     * Removes all items of the specified type from the registry, clearing both the
-     * ID-based map and the ordered ID list for that type.
+     * Removes all items of the specified type from the registry. Indexes over the type
+     * are emptied but stay defined. Subjects are first withdrawn from the students taking
+     * them.
      *
      * @param type the class of the items to remove
      * @param <T>  the type of the items, extending {@link ManageableListItem}
      */
     @Override
     public <T extends ManageableListItem> void removeAll(Class<T> type) {
-        registries.remove(type);
-        orderedIds.remove(type);
+        OrderedStore<T> store = findStore(type);
+        if (store != null) {
+            if (type == Subject.class) {
+                withdrawSubjects();
+            }
+            store.clear();
+        }
+    }
+
+    /**
+     * Withdraws every registered subject from the students taking it, before the subjects
+     * are unregistered together.
+     */
+    private void withdrawSubjects() {
+        for (Subject subject : getAll(Subject.class)) {
+            Student.withdrawAll(this, subject);
+        }
     }
 
     /**
-     * Returns a synthesized list of all items for the specified type, in the order
-     * defined by the stored IDs. The returned list is a new instance, so modifying
-     * it does not affect the registry.
+     * Returns a synthesized list of all items for the specified type, in insertion
+     * order. The returned list is a new instance, so modifying it does not affect
+     * the registry.
      *
      * @param type the class of the items
      * @param <T>  the type of the items, extending {@link ManageableListItem}
@@ -168,16 +183,8 @@ public class RegistryImpl implements Registry {
      */
     @Override
     public <T extends ManageableListItem> List<T> getAll(Class<T> type) {
-        List<String> ids = getOrCreateOrderedIds(type);
-        Map<String, T> registry = getOrCreateRegistry(type);
-        List<T> items = new ArrayList<>(ids.size());
-        for (String id : ids) {
-            T item = registry.get(id);
-            if (item != null) {
-                items.add(item);
-            }
-        }
-        return items;
+        OrderedStore<T> store = findStore(type);
+        return store == null ? new ArrayList<>() : store.toList();
     }
 
     /**
@@ -190,21 +197,21 @@ public class RegistryImpl implements Registry {
      */
     @Override
     public <T extends ManageableListItem> T getAt(int row, Class<T> type) {
-        List<String> ids = getOrCreateOrderedIds(type);
-        if (row >= 0 && row < ids.size()) {
-            String id = ids.get(row);
-            return getOrCreateRegistry(type).get(id);
-        }
-        return null;
+        OrderedStore<T> store = findStore(type);
+        return store == null ? null : store.getAt(row);
     }
 
     /**
      * Clears all items from the registry, removing all types and their associated data.
+     * Index definitions are kept, emptied. Subjects are first withdrawn from the students
+     * taking them.
      */
     @Override
     public void clear() {
-        registries.clear();
-        orderedIds.clear();
+        withdrawSubjects();
+        for (OrderedStore<?> store : stores.values()) {
+            store.clear();
+        }
     }
 
     /**
@@ -216,6 +223,247 @@ public class RegistryImpl implements Registry {
      */
     @Override
     public <T extends ManageableListItem> int count(Class<T> type) {
-        return getOrCreateRegistry(type).size();
+        OrderedStore<T> store = findStore(type);
+        return store == null ? 0 : store.size();
+    }
+
+    /**
+     * Returns a stamp that changes whenever an item of the specified type is registered
+     * or unregistered.
+     *
+     * @param type the class of the items
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @return the current stamp for the type
+     */
+    @Override
+    public <T extends ManageableListItem> long modCount(Class<T> type) {
+        OrderedStore<T> store = findStore(type);
+        return store == null ? 0 : store.modCount();
+    }
+
+    /**
+     * Finds a registered {@link Student} by LUI, without boxing or building an ID string.
+     *
+     * @param lui the student's 10-digit Learner Unique Identifier
+     * @return the student if found, or {@code null} if not found
+     */
+    @Override
+    public Student findByLui(long lui) {
+        OrderedStore<Student> store = findStore(Student.class);
+        return store == null ? null : store.findByLui(lui);
+    }
+
+    /**
+     * Returns one past the highest ordinal held by a registered item of the specified type.
+     *
+     * @param type the class of the items
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @return the exclusive upper bound of the type's ordinals
+     */
+    @Override
+    public <T extends ManageableListItem> int ordinalBound(Class<T> type) {
+        OrderedStore<T> store = findStore(type);
+        return store == null ? 0 : store.ordinalBound();
+    }
+
+    /**
+     * Retrieves the registered item holding an ordinal for the specified type.
+     *
+     * @param ordinal the ordinal of the item
+     * @param type    the class of the item
+     * @param <T>     the type of the item, extending {@link ManageableListItem}
+     * @return the item, or {@code null} if no registered item holds the ordinal
+     */
+    @Override
+    public <T extends ManageableListItem> T byOrdinal(int ordinal, Class<T> type) {
+        OrderedStore<T> store = findStore(type);
+        return store == null ? null : store.byOrdinal(ordinal);
+    }
+
+    /**
+     * Creates a multi-valued secondary index over the items of a type, filled from the
+     * items already registered. Returns the existing index if the name is taken.
+     *
+     * @param type the class of the items to index
+     * @param name the name of the index, unique per type
+     * @param key  derives the key of an item; items with a {@code null} key are not indexed
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @param <K>  the type of the key
+     * @return the index
+     */
+    @Override
+    public <T extends ManageableListItem, K> RegistryIndex<T, K> createIndex(Class<T> type,
+                                                                            String name,
+                                                                            Function<T, K> key) {
+        return getOrCreateStore(type).addIndex(
+                new RegistryIndex<>(type, name, RegistryIndex.singleKey(key), false));
+    }
+
+    /**
+     * Creates a unique secondary index over the items of a type, filled from the items
+     * already registered. Returns the existing index if the name is taken.
+     *
+     * @param type the class of the items to index
+     * @param name the name of the index, unique per type
+     * @param key  derives the key of an item; items with a {@code null} key are not indexed
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @param <K>  the type of the key
+     * @return the index
+     * @throws IllegalStateException if the items already registered share a key
+     */
+    @Override
+    public <T extends ManageableListItem, K> RegistryIndex<T, K> createUniqueIndex(
+            Class<T> type, String name, Function<T, K> key) {
+        return getOrCreateStore(type).addIndex(
+                new RegistryIndex<>(type, name, RegistryIndex.singleKey(key), true));
+    }
+
+    /**
+     * Creates a multi-valued secondary index in which each item may have several keys.
+     * Returns the existing index if the name is taken.
+     *
+     * @param type the class of the items to index
+     * @param name the name of the index, unique per type
+     * @param keys derives all the keys of an item
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @param <K>  the type of the key
+     * @return the index
+     */
+    @Override
+    public <T extends ManageableListItem, K> RegistryIndex<T, K> createMultiKeyIndex(
+            Class<T> type, String name, Function<T, ? extends Collection<K>> keys) {
+        return getOrCreateStore(type).addIndex(new RegistryIndex<>(type, name, keys, false));
+    }
+
+    /**
+     * Creates a multi-valued secondary index keeping the items under each key sorted.
+     * Returns the existing index if the name is taken.
+     *
+     * @param type  the class of the items to index
+     * @param name  the name of the index, unique per type
+     * @param keys  derives all the keys of an item
+     * @param order the order of the items under each key
+     * @param <T>   the type of the items, extending {@link ManageableListItem}
+     * @param <K>   the type of the key
+     * @return the index
+     */
+    @Override
+    public <T extends ManageableListItem, K> RegistryIndex<T, K> createSortedMultiKeyIndex(
+            Class<T> type, String name, Function<T, ? extends Collection<K>> keys,
+            Comparator<? super T> order) {
+        return getOrCreateStore(type).addIndex(new RegistryIndex<>(type, name, keys, false,
+                Objects.requireNonNull(order, "Index order cannot be null")));
+    }
+
+    /**
+     * Returns the registered items with the given key in an index, as a read-only copy
+     * that later changes to the registry do not affect.
+     *
+     * @param index an index created by this registry
+     * @param key   the key to look up
+     * @param <T>   the type of the items, extending {@link ManageableListItem}
+     * @param <K>   the type of the key
+     * @return the items with that key, or an empty list if there are none
+     * @throws IllegalArgumentException if the index was not created by this registry
+     */
+    @Override
+    public <T extends ManageableListItem, K> List<T> lookup(RegistryIndex<T, K> index, K key) {
+        OrderedStore<T> store = findStore(index.getType());
+        if (store == null || !store.owns(index)) {
+            throw new IllegalArgumentException("Index " + index.getName()
+                    + " does not belong to this registry");
+        }
+        return Collections.unmodifiableList(new ArrayList<>(index.lookup(key)));
+    }
+
+    /**
+     * Returns the number of registered items with the given key in an index.
+     *
+     * @param index an index created by this registry
+     * @param key   the key to look up
+     * @param <T>   the type of the items, extending {@link ManageableListItem}
+     * @param <K>   the type of the key
+     * @return the number of items with that key
+     * @throws IllegalArgumentException if the index was not created by this registry
+     */
+    @Override
+    public <T extends ManageableListItem, K> int count(RegistryIndex<T, K> index, K key) {
+        OrderedStore<T> store = findStore(index.getType());
+        if (store == null || !store.owns(index)) {
+            throw new IllegalArgumentException("Index " + index.getName()
+                    + " does not belong to this registry");
+        }
+        return index.count(key);
+    }
+
+    /**
+     * Brings every index over the item's type up to date after one of its key fields
+     * has changed. Does nothing if the item is not registered.
+     *
+     * @param item the registered item whose keys may have changed
+     * @param type the class of the item
+     * @param <T>  the type of the item, extending {@link ManageableListItem}
+     */
+    @Override
+    public <T extends ManageableListItem> void reindex(T item, Class<T> type) {
+        OrderedStore<T> store = findStore(type);
+        if (store != null && item.getId() != null) {
+            store.reindex(item.getId(), item);
+        }
+    }
+
+    /**
+     * Returns a read-only, point-in-time view of the registry in constant time per type.
+     * The stores copy their arrays on the first write after a snapshot, so the snapshot
+     * never sees later changes.
+     *
+     * @return a read-only snapshot of the registry
+     */
+    @Override
+    public Registry snapshot() {
+        Map<Class<? extends ManageableListItem>, OrderedStore<?>> frozen = new HashMap<>();
+        for (Map.Entry<Class<? extends ManageableListItem>, OrderedStore<?>> entry
+                : stores.entrySet()) {
+            frozen.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return new RegistrySnapshot(frozen);
+    }
+
+    /**
+     * Starts a bulk load of the specified type: items added from now until
+     * {@link #commitBulk()} are queued, unchecked and invisible, and stored together at
+     * the commit. Calling it again for a type already in bulk mode has no effect.
+     *
+     * @param type         the class of the items to be loaded
+     * @param expectedSize the number of items expected
+     * @param <T>          the type of the items, extending {@link ManageableListItem}
+     */
+    @Override
+    public <T extends ManageableListItem> void beginBulk(Class<T> type, int expectedSize) {
+        getOrCreateStore(type).beginBulk(expectedSize);
+    }
+
+    /**
+     * Stores every item queued since {@link #beginBulk}, for every type in bulk mode,
+     * and ends bulk mode. Duplicates are checked once per batch; a failing batch is
+     * discarded, while the other types' batches are still stored.
+     *
+     * @throws IllegalStateException if a queued item has the ID of a different item
+     */
+    @Override
+    public void commitBulk() {
+        IllegalStateException failure = null;
+        for (OrderedStore<?> store : stores.values()) {
+            try {
+                store.commitBulk();
+            } catch (IllegalStateException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,363 @@
+package examblock.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A secondary index over the items of one type in a {@link Registry}, mapping a key
+ * derived from each item (e.g., a {@link Session}'s venue, a {@link Student}'s subjects)
+ * to the items having that key. Indexes are created through
+ * {@link Registry#createIndex(Class, String, Function)} and friends, and the registry keeps
+ * them up to date on {@code add}, {@code remove}, {@code removeAll} and {@code clear}.
+ * When a key field of a registered item changes, call {@link Registry#reindex} so the
+ * index sees the new key.
+ * <p>
+ * A unique index holds at most one item per key and rejects a second; a multi-valued index
+ * holds any number of items per key, in the order they were indexed or, for a sorted
+ * index, in the order of its comparator. Items whose key is {@code null} are not indexed.
+ *
+ * @param <T> the type of the indexed items, extending {@link ManageableListItem}
+ * @param <K> the type of the index key
+ */
+public class RegistryIndex<T extends ManageableListItem, K> {
+
+    /**
+     * The class of the indexed items.
+     */
+    private final Class<T> type;
+
+    /**
+     * The name of this index, unique per type.
+     */
+    private final String name;
+
+    /**
+     * Derives every key of an item; single-key indexes wrap their key function.
+     */
+    private final Function<T, ? extends Collection<K>> keys;
+
+    /**
+     * Whether each key may map to at most one item.
+     */
+    private final boolean unique;
+
+    /**
+     * The order of the items under each key, or {@code null} to keep them in the order
+     * they were indexed.
+     */
+    private final Comparator<? super T> order;
+
+    /**
+     * The indexed items for each key.
+     */
+    private final Map<K, List<T>> entries;
+
+    /**
+     * The keys each item was last indexed under, so it can be found again after its
+     * key fields have changed.
+     */
+    private final Map<T, Collection<K>> indexedKeys;
+
+    /**
+     * Constructs a new, empty index.
+     *
+     * @param type   the class of the indexed items
+     * @param name   the name of the index
+     * @param keys   derives every key of an item
+     * @param unique true if each key may map to at most one item
+     */
+    RegistryIndex(Class<T> type, String name, Function<T, ? extends Collection<K>> keys,
+                  boolean unique) {
+        this(type, name, keys, unique, null);
+    }
+
+    /**
+     * Constructs a new, empty index keeping the items under each key sorted.
+     *
+     * @param type   the class of the indexed items
+     * @param name   the name of the index
+     * @param keys   derives every key of an item
+     * @param unique true if each key may map to at most one item
+     * @param order  the order of the items under each key, or {@code null} for the order
+     *               they were indexed
+     */
+    RegistryIndex(Class<T> type, String name, Function<T, ? extends Collection<K>> keys,
+                  boolean unique, Comparator<? super T> order) {
+        this.type = Objects.requireNonNull(type, "Index type cannot be null");
+        this.name = Objects.requireNonNull(name, "Index name cannot be null");
+        this.keys = Objects.requireNonNull(keys, "Index key cannot be null");
+        this.unique = unique;
+        this.order = order;
+        this.entries = new HashMap<>();
+        this.indexedKeys = new IdentityHashMap<>();
+    }
+
+    /**
+     * Wraps a single-key function as a function returning zero or one keys.
+     *
+     * @param key the key function, which may return {@code null}
+     * @param <T> the type of the indexed items
+     * @param <K> the type of the index key
+     * @return a function returning the key as a collection
+     */
+    static <T, K> Function<T, Collection<K>> singleKey(Function<T, K> key) {
+        Objects.requireNonNull(key, "Index key cannot be null");
+        return item -> {
+            K k = key.apply(item);
+            return k == null ? Collections.emptyList() : Collections.singletonList(k);
+        };
+    }
+
+    /**
+     * Gets the class of the indexed items.
+     *
+     * @return the class of the indexed items
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Gets the name of this index.
+     *
+     * @return the name of this index
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Is this a unique index?
+     *
+     * @return true if each key maps to at most one item
+     */
+    public boolean isUnique() {
+        return unique;
+    }
+
+    /**
+     * Gets the order of the items under each key.
+     *
+     * @return the comparator, or {@code null} if items are kept in the order indexed
+     */
+    public Comparator<? super T> getOrder() {
+        return order;
+    }
+
+    /**
+     * Returns the items indexed under a key. The list is a read-only view that follows
+     * later changes to the index.
+     *
+     * @param key the key to look up
+     * @return the items with that key, or an empty list if there are none
+     */
+    List<T> lookup(K key) {
+        List<T> items = entries.get(key);
+        return items == null ? Collections.emptyList() : Collections.unmodifiableList(items);
+    }
+
+    /**
+     * Returns the number of items indexed under a key.
+     *
+     * @param key the key to look up
+     * @return the number of items with that key
+     */
+    int count(K key) {
+        List<T> items = entries.get(key);
+        return items == null ? 0 : items.size();
+    }
+
+    /**
+     * Derives the keys of an item as it is now, without consulting the index.
+     *
+     * @param item the item
+     * @return the item's keys
+     */
+    Collection<K> keysOf(T item) {
+        return keys.apply(item);
+    }
+
+    /**
+     * Checks whether an item currently has the given key, without consulting the index.
+     *
+     * @param item the item to check
+     * @param key  the key
+     * @return true if the item's key function yields the key
+     */
+    boolean hasKey(T item, K key) {
+        return key != null && keys.apply(item).contains(key);
+    }
+
+    /**
+     * Checks that an item could be indexed without breaking uniqueness.
+     *
+     * @param item the item about to be indexed
+     * @throws IllegalStateException if a unique key is already taken by another item
+     */
+    void checkInsert(T item) {
+        if (!unique) {
+            return;
+        }
+        for (K key : keys.apply(item)) {
+            List<T> items = entries.get(key);
+            if (items != null && !items.isEmpty() && items.get(0) != item) {
+                throw new IllegalStateException("Unique index " + name + " on "
+                        + type.getSimpleName() + " already has an item with key " + key);
+            }
+        }
+    }
+
+    /**
+     * Indexes an item under its current keys.
+     *
+     * @param item the item to index
+     * @throws IllegalStateException if a unique key is already taken by another item
+     */
+    void insert(T item) {
+        checkInsert(item);
+        List<K> itemKeys = new ArrayList<>();
+        for (K key : keys.apply(item)) {
+            if (key == null || itemKeys.contains(key)) {
+                continue;
+            }
+            itemKeys.add(key);
+            place(entries.computeIfAbsent(key, k -> new ArrayList<>(unique ? 1 : 4)), item);
+        }
+        indexedKeys.put(item, itemKeys);
+    }
+
+    /**
+     * Removes an item from the index, using the keys it was indexed under.
+     *
+     * @param item the item to remove
+     */
+    void delete(T item) {
+        Collection<K> itemKeys = indexedKeys.remove(item);
+        if (itemKeys == null) {
+            return;
+        }
+        for (K key : itemKeys) {
+            List<T> items = entries.get(key);
+            if (items != null) {
+                displace(items, item);
+                if (items.isEmpty()) {
+                    entries.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Re-indexes an item whose key fields may have changed.
+     *
+     * @param item the item to re-index
+     * @throws IllegalStateException if a new unique key is already taken by another item
+     */
+    void update(T item) {
+        Collection<K> previous = indexedKeys.get(item);
+        delete(item);
+        try {
+            insert(item);
+        } catch (IllegalStateException e) {
+            if (previous != null) {
+                restore(item, previous);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Puts an item back under keys it was indexed under before.
+     *
+     * @param item     the item
+     * @param itemKeys the keys to index it under
+     */
+    private void restore(T item, Collection<K> itemKeys) {
+        for (K key : itemKeys) {
+            place(entries.computeIfAbsent(key, k -> new ArrayList<>()), item);
+        }
+        indexedKeys.put(item, itemKeys);
+    }
+
+    /**
+     * Adds an item to the items of one key: at the end, or after the items that sort
+     * before or equal to it, found by binary search.
+     *
+     * @param items the items of the key
+     * @param item  the item to add
+     */
+    private void place(List<T> items, T item) {
+        if (order == null) {
+            items.add(item);
+            return;
+        }
+        int low = 0;
+        int high = items.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (order.compare(items.get(mid), item) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        items.add(low, item);
+    }
+
+    /**
+     * Removes an item from the items of one key. In a sorted index the item is looked
+     * for among those comparing equal to it first, falling back to a full scan in case
+     * its sort fields changed since it was indexed.
+     *
+     * @param items the items of the key
+     * @param item  the item to remove
+     */
+    private void displace(List<T> items, T item) {
+        if (order != null) {
+            int low = 0;
+            int high = items.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (order.compare(items.get(mid), item) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            for (int i = low; i < items.size() && order.compare(items.get(i), item) == 0; i++) {
+                if (items.get(i) == item) {
+                    items.remove(i);
+                    return;
+                }
+            }
+        }
+        items.removeIf(indexed -> indexed == item);
+    }
+
+    /**
+     * Puts items found without the index, in insertion order, into this index's order.
+     *
+     * @param items the items, sorted in place
+     */
+    void sort(List<T> items) {
+        if (order != null) {
+            items.sort(order);
+        }
+    }
+
+    /**
+     * Removes every item from the index, keeping its definition.
+     */
+    void clear() {
+        entries.clear();
+        indexedKeys.clear();
+    }
+}
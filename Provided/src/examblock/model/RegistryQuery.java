@@ -0,0 +1,291 @@
+package examblock.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A query over the registered items of one type, built fluently from
+ * {@link Registry#query(Class)}, e.g.
+ * <pre>{@code
+ * int sitting = registry.query(Student.class)
+ *         .where(Student.subjectIndex(registry), subject)
+ *         .where(Student::isAara)
+ *         .count();
+ * }</pre>
+ * <p>
+ * Conditions on a {@link RegistryIndex} ({@link #where(RegistryIndex, Object)}) can be
+ * answered by the index. When there are any, the plan looks up each of them, starts from
+ * the smallest result and checks the remaining conditions on those items only. Without
+ * one, the plan scans every item of the type, in parallel once there are enough items
+ * for that to pay off, so plain predicates must be safe to call from several threads.
+ * {@link #explain()} describes the chosen plan.
+ * <p>
+ * Results keep the registry's insertion order (or the index's order, when one drives
+ * the query). A query reads the registry when a terminal operation runs, so it may be
+ * run again to see later changes.
+ *
+ * @param <T> the type of the queried items, extending {@link ManageableListItem}
+ */
+public class RegistryQuery<T extends ManageableListItem> {
+
+    /**
+     * Scans of fewer items than this run sequentially; splitting them costs more than
+     * it saves.
+     */
+    static final int PARALLEL_THRESHOLD = 4096;
+
+    /**
+     * The registry queried.
+     */
+    private final Registry registry;
+
+    /**
+     * The class of the queried items.
+     */
+    private final Class<T> type;
+
+    /**
+     * The conditions that an index can answer, in the order given.
+     */
+    private final List<IndexCondition<T, ?>> indexConditions;
+
+    /**
+     * The other conditions, in the order given.
+     */
+    private final List<Predicate<? super T>> predicates;
+
+    /**
+     * A condition that an item has a key in an index.
+     *
+     * @param <T> the type of the items
+     * @param <K> the type of the key
+     */
+    private static final class IndexCondition<T extends ManageableListItem, K> {
+
+        /**
+         * The index.
+         */
+        private final RegistryIndex<T, K> index;
+
+        /**
+         * The key the items must have.
+         */
+        private final K key;
+
+        /**
+         * Constructs a condition.
+         *
+         * @param index the index
+         * @param key   the key the items must have
+         */
+        private IndexCondition(RegistryIndex<T, K> index, K key) {
+            this.index = index;
+            this.key = key;
+        }
+
+        /**
+         * Looks the key up in the index.
+         *
+         * @param registry the registry owning the index
+         * @return the items with the key
+         */
+        private List<T> lookup(Registry registry) {
+            return registry.lookup(index, key);
+        }
+
+        /**
+         * Checks the condition on an item without the index.
+         *
+         * @param item the item
+         * @return true if the item has the key
+         */
+        private boolean test(T item) {
+            return index.hasKey(item, key);
+        }
+
+        /**
+         * Describes the condition for a plan.
+         *
+         * @return a description such as {@code subjects = Maths}
+         */
+        @Override
+        public String toString() {
+            return index.getName() + " = " + key;
+        }
+    }
+
+    /**
+     * Constructs an unconditional query; use {@link Registry#query(Class)}.
+     *
+     * @param registry the registry to query
+     * @param type     the class of the items to query
+     */
+    RegistryQuery(Registry registry, Class<T> type) {
+        this.registry = Objects.requireNonNull(registry, "Registry cannot be null");
+        this.type = Objects.requireNonNull(type, "Item type cannot be null");
+        this.indexConditions = new ArrayList<>();
+        this.predicates = new ArrayList<>();
+    }
+
+    /**
+     * Keeps only the items matching a predicate. The predicate may be called from
+     * several threads at once.
+     *
+     * @param predicate the condition the items must meet
+     * @return this query
+     */
+    public RegistryQuery<T> where(Predicate<? super T> predicate) {
+        predicates.add(Objects.requireNonNull(predicate, "Predicate cannot be null"));
+        return this;
+    }
+
+    /**
+     * Keeps only the items with a key in an index. The index can answer this condition
+     * without scanning.
+     *
+     * @param index an index created by the queried registry
+     * @param key   the key the items must have
+     * @param <K>   the type of the key
+     * @return this query
+     */
+    public <K> RegistryQuery<T> where(RegistryIndex<T, K> index, K key) {
+        Objects.requireNonNull(index, "Index cannot be null");
+        if (index.getType() != type) {
+            throw new IllegalArgumentException("Index " + index.getName() + " is over "
+                    + index.getType().getSimpleName() + ", not " + type.getSimpleName());
+        }
+        indexConditions.add(new IndexCondition<>(index, key));
+        return this;
+    }
+
+    /**
+     * Counts the matching items.
+     *
+     * @return the number of matching items
+     */
+    public int count() {
+        return (int) run().stream.count();
+    }
+
+    /**
+     * Lists the matching items.
+     *
+     * @return a new list of the matching items, in order
+     */
+    public List<T> list() {
+        return run().stream.collect(Collectors.toList());
+    }
+
+    /**
+     * Groups the matching items by a key.
+     *
+     * @param classifier derives the group key of an item
+     * @param <K>        the type of the group key
+     * @return the matching items of each group, with groups in order of first appearance
+     */
+    public <K> Map<K, List<T>> groupBy(Function<? super T, ? extends K> classifier) {
+        Objects.requireNonNull(classifier, "Classifier cannot be null");
+        return run().stream.collect(Collectors.groupingBy(classifier, LinkedHashMap::new,
+                Collectors.toList()));
+    }
+
+    /**
+     * Describes how the query would run now, e.g.
+     * {@code INDEX Student.subjects = Maths (12 rows) -> FILTER 1 predicate}.
+     *
+     * @return the plan
+     */
+    public String explain() {
+        return run().plan;
+    }
+
+    /**
+     * A planned run: the matching items and the description of how they were found.
+     *
+     * @param <T> the type of the items
+     */
+    private static final class Plan<T> {
+
+        /**
+         * The matching items.
+         */
+        private final Stream<T> stream;
+
+        /**
+         * The description of the plan.
+         */
+        private final String plan;
+
+        /**
+         * Constructs a planned run.
+         *
+         * @param stream the matching items
+         * @param plan   the description of the plan
+         */
+        private Plan(Stream<T> stream, String plan) {
+            this.stream = stream;
+            this.plan = plan;
+        }
+    }
+
+    /**
+     * Chooses how to find the matching items and returns them, lazily filtered.
+     *
+     * @return the planned run
+     */
+    private Plan<T> run() {
+        StringBuilder plan = new StringBuilder();
+        List<T> source;
+        IndexCondition<T, ?> driver = null;
+        if (indexConditions.isEmpty()) {
+            source = registry.getAll(type);
+        } else {
+            // start from the most selective index, check the rest per item
+            source = null;
+            for (IndexCondition<T, ?> condition : indexConditions) {
+                List<T> candidates = condition.lookup(registry);
+                if (source == null || candidates.size() < source.size()) {
+                    source = candidates;
+                    driver = condition;
+                }
+            }
+        }
+
+        Stream<T> stream;
+        if (driver != null) {
+            plan.append("INDEX ").append(type.getSimpleName()).append('.').append(driver)
+                    .append(" (").append(source.size()).append(" rows)");
+            stream = source.stream();
+        } else if (source.size() >= PARALLEL_THRESHOLD) {
+            plan.append("PARALLEL SCAN ").append(type.getSimpleName())
+                    .append(" (").append(source.size()).append(" rows)");
+            stream = source.parallelStream();
+        } else {
+            plan.append("SCAN ").append(type.getSimpleName())
+                    .append(" (").append(source.size()).append(" rows)");
+            stream = source.stream();
+        }
+
+        for (IndexCondition<T, ?> condition : indexConditions) {
+            if (condition != driver) {
+                plan.append(" -> CHECK ").append(condition);
+                stream = stream.filter(condition::test);
+            }
+        }
+        if (!predicates.isEmpty()) {
+            plan.append(" -> FILTER ").append(predicates.size())
+                    .append(predicates.size() == 1 ? " predicate" : " predicates");
+            for (Predicate<? super T> predicate : predicates) {
+                stream = stream.filter(predicate);
+            }
+        }
+        return new Plan<>(stream, plan.toString());
+    }
+}
@@ -0,0 +1,424 @@
+package examblock.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A read-only, point-in-time view of a {@link Registry}, returned by
+ * {@link Registry#snapshot()}. Holds a copy-on-write {@link OrderedStore} snapshot per
+ * type, so it always answers from the items registered when it was taken, however the
+ * registry changes afterwards, and it is safe to read from any number of threads.
+ * <p>
+ * Mutating methods throw {@link UnsupportedOperationException}. Indexes defined before
+ * the snapshot can still be looked up; the snapshot answers by checking the key of each
+ * of its items, as the live index may already hold newer items. Ordinals are those held
+ * when the snapshot was taken; look them up through {@link #byOrdinal}, as the items' own
+ * {@link ManageableListItem#getOrdinal()} follows the live registry.
+ */
+final class RegistrySnapshot implements Registry {
+
+    /**
+     * The snapshotted store of each type, keyed by the item's class.
+     */
+    private final Map<Class<? extends ManageableListItem>, OrderedStore<?>> stores;
+
+    /**
+     * Constructs a snapshot over the given store snapshots.
+     *
+     * @param stores the snapshotted store of each type; not copied
+     */
+    RegistrySnapshot(Map<Class<? extends ManageableListItem>, OrderedStore<?>> stores) {
+        this.stores = stores;
+    }
+
+    /**
+     * Retrieves the snapshotted store for the specified type.
+     *
+     * @param type the class of the items
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @return the store, or {@code null} if the type had no items registered
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends ManageableListItem> OrderedStore<T> findStore(Class<T> type) {
+        return (OrderedStore<T>) stores.get(type);
+    }
+
+    /**
+     * Builds the exception thrown by every mutating method.
+     *
+     * @return the exception to throw
+     */
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Registry snapshots are read-only");
+    }
+
+    /**
+     * Checks if an item with the given ID was registered for the specified type.
+     *
+     * @param id   the unique identifier to check
+     * @param type the class of the item
+     * @param <T>  the type of the item, extending {@link ManageableListItem}
+     * @return {@code true} if an item with the ID exists, {@code false} otherwise
+     */
+    @Override
+    public <T extends ManageableListItem> boolean contains(String id, Class<T> type) {
+        OrderedStore<T> store = findStore(type);
+        return store != null && store.contains(id);
+    }
+
+    /**
+     * Not supported; snapshots are read-only.
+     *
+     * @param item the item to add
+     * @param type the class of the item
+     * @param <T>  the type of the item, extending {@link ManageableListItem}
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public <T extends ManageableListItem> void add(T item, Class<T> type) {
+        throw readOnly();
+    }
+
+    /**
+     * Finds an item by its unique ID for the specified type. Unlike {@code find()},
+     * get will throw a RuntimeException if the item is not found
+     *
+     * @param id   the unique identifier of the item
+     * @param type the class of the item
+     * @param <T>  the type of the item, extending {@link ManageableListItem}
+     * @return the item if found, or {@code throw new RuntimeException} if not found
+     */
+    @Override
+    public <T extends ManageableListItem> T get(String id, Class<T> type) throws RuntimeException {
+        T item = find(id, type);
+        if (item == null) {
+            throw new RuntimeException("Item with ID " + id + " not found for type "
+                    + type.getSimpleName());
+        }
+        return item;
+    }
+
+    /**
+     * Finds an item by its unique ID for the specified type.
+     *
+     * @param id   the unique identifier of the item
+     * @param type the class of the item
+     * @param <T>  the type of the item, extending {@link ManageableListItem}
+     * @return the item if found, or {@code null} if not found
+     */
+    @Override
+    public <T extends ManageableListItem> T find(String id, Class<T> type) {
+        OrderedStore<T> store = findStore(type);
+        return store == null || id == null ? null : store.get(id);
+    }
+
+    /**
+     * Not supported; snapshots are read-only.
+     *
+     * @param id   the unique identifier of the item
+     * @param type the class of the item
+     * @param <T>  the type of the item, extending {@link ManageableListItem}
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public <T extends ManageableListItem> void remove(String id, Class<T> type) {
+        throw readOnly();
+    }
+
+    /**
+     * Not supported; snapshots are read-only.
+     *
+     * @param type the class of the items to remove
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public <T extends ManageableListItem> void removeAll(Class<T> type) {
+        throw readOnly();
+    }
+
+    /**
+     * Returns a new list of all items for the specified type, in insertion order.
+     *
+     * @param type the class of the items
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @return a new list containing all items of the specified type
+     */
+    @Override
+    public <T extends ManageableListItem> List<T> getAll(Class<T> type) {
+        OrderedStore<T> store = findStore(type);
+        return store == null ? new ArrayList<>() : store.toList();
+    }
+
+    /**
+     * Retrieves an item at the specified index in the ordered list for the given type.
+     *
+     * @param row  the index of the item (0-based)
+     * @param type the class of the item
+     * @param <T>  the type of the item, extending {@link ManageableListItem}
+     * @return the item at the index, or {@code null} if the index is invalid
+     */
+    @Override
+    public <T extends ManageableListItem> T getAt(int row, Class<T> type) {
+        OrderedStore<T> store = findStore(type);
+        return store == null ? null : store.getAt(row);
+    }
+
+    /**
+     * Not supported; snapshots are read-only.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void clear() {
+        throw readOnly();
+    }
+
+    /**
+     * Returns the number of items stored for the specified type.
+     *
+     * @param type the class of the items
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @return the number of items
+     */
+    @Override
+    public <T extends ManageableListItem> int count(Class<T> type) {
+        OrderedStore<T> store = findStore(type);
+        return store == null ? 0 : store.size();
+    }
+
+    /**
+     * Returns a stamp that identifies the items of the specified type held by the
+     * snapshot; it never changes.
+     *
+     * @param type the class of the items
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @return the current stamp for the type
+     */
+    @Override
+    public <T extends ManageableListItem> long modCount(Class<T> type) {
+        OrderedStore<T> store = findStore(type);
+        return store == null ? 0 : store.modCount();
+    }
+
+    /**
+     * Returns the index of the given name if it was defined when the snapshot was taken.
+     *
+     * @param type the class of the items
+     * @param name the name of the index
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @param <K>  the type of the key
+     * @return the existing index
+     * @throws UnsupportedOperationException if there was no such index
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends ManageableListItem, K> RegistryIndex<T, K> existingIndex(Class<T> type,
+                                                                              String name) {
+        OrderedStore<T> store = findStore(type);
+        RegistryIndex<T, ?> index = store == null ? null : store.findIndex(name);
+        if (index == null) {
+            throw readOnly();
+        }
+        return (RegistryIndex<T, K>) index;
+    }
+
+    /**
+     * Finds a registered {@link Student} by LUI, without boxing or building an ID string.
+     *
+     * @param lui the student's 10-digit Learner Unique Identifier
+     * @return the student if found, or {@code null} if not found
+     */
+    @Override
+    public Student findByLui(long lui) {
+        OrderedStore<Student> store = findStore(Student.class);
+        return store == null ? null : store.findByLui(lui);
+    }
+
+    /**
+     * Returns one past the highest ordinal held by a registered item of the specified type.
+     *
+     * @param type the class of the items
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @return the exclusive upper bound of the type's ordinals
+     */
+    @Override
+    public <T extends ManageableListItem> int ordinalBound(Class<T> type) {
+        OrderedStore<T> store = findStore(type);
+        return store == null ? 0 : store.ordinalBound();
+    }
+
+    /**
+     * Retrieves the registered item holding an ordinal for the specified type.
+     *
+     * @param ordinal the ordinal of the item
+     * @param type    the class of the item
+     * @param <T>     the type of the item, extending {@link ManageableListItem}
+     * @return the item, or {@code null} if no registered item holds the ordinal
+     */
+    @Override
+    public <T extends ManageableListItem> T byOrdinal(int ordinal, Class<T> type) {
+        OrderedStore<T> store = findStore(type);
+        return store == null ? null : store.byOrdinal(ordinal);
+    }
+
+    /**
+     * Returns the index of the given name defined before the snapshot was taken; new
+     * indexes cannot be created on a snapshot.
+     *
+     * @param type the class of the items to index
+     * @param name the name of the index
+     * @param key  ignored
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @param <K>  the type of the key
+     * @return the existing index
+     * @throws UnsupportedOperationException if there is no index of that name
+     */
+    @Override
+    public <T extends ManageableListItem, K> RegistryIndex<T, K> createIndex(Class<T> type,
+                                                                            String name,
+                                                                            Function<T, K> key) {
+        return existingIndex(type, name);
+    }
+
+    /**
+     * Returns the index of the given name defined before the snapshot was taken; new
+     * indexes cannot be created on a snapshot.
+     *
+     * @param type the class of the items to index
+     * @param name the name of the index
+     * @param key  ignored
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @param <K>  the type of the key
+     * @return the existing index
+     * @throws UnsupportedOperationException if there is no index of that name
+     */
+    @Override
+    public <T extends ManageableListItem, K> RegistryIndex<T, K> createUniqueIndex(
+            Class<T> type, String name, Function<T, K> key) {
+        return existingIndex(type, name);
+    }
+
+    /**
+     * Returns the index of the given name defined before the snapshot was taken; new
+     * indexes cannot be created on a snapshot.
+     *
+     * @param type the class of the items to index
+     * @param name the name of the index
+     * @param keys ignored
+     * @param <T>  the type of the items, extending {@link ManageableListItem}
+     * @param <K>  the type of the key
+     * @return the existing index
+     * @throws UnsupportedOperationException if there is no index of that name
+     */
+    @Override
+    public <T extends ManageableListItem, K> RegistryIndex<T, K> createMultiKeyIndex(
+            Class<T> type, String name, Function<T, ? extends Collection<K>> keys) {
+        return existingIndex(type, name);
+    }
+
+    /**
+     * Returns the index of the given name defined before the snapshot was taken; new
+     * indexes cannot be created on a snapshot.
+     *
+     * @param type  the class of the items to index
+     * @param name  the name of the index
+     * @param keys  ignored
+     * @param order ignored
+     * @param <T>   the type of the items, extending {@link ManageableListItem}
+     * @param <K>   the type of the key
+     * @return the existing index
+     * @throws UnsupportedOperationException if there is no index of that name
+     */
+    @Override
+    public <T extends ManageableListItem, K> RegistryIndex<T, K> createSortedMultiKeyIndex(
+            Class<T> type, String name, Function<T, ? extends Collection<K>> keys,
+            Comparator<? super T> order) {
+        return existingIndex(type, name);
+    }
+
+    /**
+     * Returns the snapshotted items whose current key in an index matches, in the index's
+     * order. Scans the type's items rather than reading the live index.
+     *
+     * @param index an index defined before the snapshot was taken
+     * @param key   the key to look up
+     * @param <T>   the type of the items, extending {@link ManageableListItem}
+     * @param <K>   the type of the key
+     * @return a read-only list of the items with that key
+     * @throws IllegalArgumentException if the index does not belong to the snapshot
+     */
+    @Override
+    public <T extends ManageableListItem, K> List<T> lookup(RegistryIndex<T, K> index, K key) {
+        OrderedStore<T> store = findStore(index.getType());
+        if (store == null || !store.owns(index)) {
+            throw new IllegalArgumentException("Index " + index.getName()
+                    + " does not belong to this registry");
+        }
+        return Collections.unmodifiableList(store.scan(index, key));
+    }
+
+    /**
+     * Counts the snapshotted items whose current key in an index matches, by scanning
+     * the type's items.
+     *
+     * @param index an index defined before the snapshot was taken
+     * @param key   the key to look up
+     * @param <T>   the type of the items, extending {@link ManageableListItem}
+     * @param <K>   the type of the key
+     * @return the number of items with that key
+     * @throws IllegalArgumentException if the index does not belong to the snapshot
+     */
+    @Override
+    public <T extends ManageableListItem, K> int count(RegistryIndex<T, K> index, K key) {
+        return lookup(index, key).size();
+    }
+
+    /**
+     * Does nothing; a snapshot reads index keys from the items themselves.
+     *
+     * @param item the item whose keys may have changed
+     * @param type the class of the item
+     * @param <T>  the type of the item, extending {@link ManageableListItem}
+     */
+    @Override
+    public <T extends ManageableListItem> void reindex(T item, Class<T> type) {
+    }
+
+    /**
+     * Returns this snapshot, which is already immutable.
+     *
+     * @return this snapshot
+     */
+    @Override
+    public Registry snapshot() {
+        return this;
+    }
+
+    /**
+     * Not supported; snapshots are read-only.
+     *
+     * @param type         the class of the items to be loaded
+     * @param expectedSize the number of items expected
+     * @param <T>          the type of the items, extending {@link ManageableListItem}
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public <T extends ManageableListItem> void beginBulk(Class<T> type, int expectedSize) {
+        throw readOnly();
+    }
+
+    /**
+     * Not supported; snapshots are read-only.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void commitBulk() {
+        throw readOnly();
+    }
+}
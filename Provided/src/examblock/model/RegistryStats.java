@@ -0,0 +1,228 @@
+package examblock.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Call counts and latency histograms for the operations of a {@link Registry}, kept per
+ * item type by a {@link MeteredRegistry}. Recording is lock-free, so the statistics can
+ * be read, dumped or reset while the registry is in use.
+ */
+public class RegistryStats implements RegistryStatsMBean {
+
+    /**
+     * The metered registry operations.
+     */
+    public enum Operation {
+        /** {@link Registry#contains}. */
+        CONTAINS("contains"),
+        /** {@link Registry#add}. */
+        ADD("add"),
+        /** {@link Registry#find}. */
+        FIND("find"),
+        /** {@link Registry#get}. */
+        GET("get"),
+        /** {@link Registry#remove}. */
+        REMOVE("remove"),
+        /** {@link Registry#removeAll}. */
+        REMOVE_ALL("removeAll"),
+        /** {@link Registry#getAll}. */
+        GET_ALL("getAll"),
+        /** {@link Registry#getAt}. */
+        GET_AT("getAt"),
+        /** {@link Registry#count}. */
+        COUNT("count"),
+        /** {@link Registry#findByLui}. */
+        FIND_BY_LUI("findByLui"),
+        /** {@link Registry#byOrdinal}. */
+        BY_ORDINAL("byOrdinal"),
+        /** {@link Registry#lookup}. */
+        LOOKUP("lookup"),
+        /** {@link Registry#reindex}. */
+        REINDEX("reindex"),
+        /** {@link Registry#clear}. */
+        CLEAR("clear"),
+        /** {@link Registry#snapshot}. */
+        SNAPSHOT("snapshot"),
+        /** {@link Registry#commitBulk}. */
+        COMMIT_BULK("commitBulk");
+
+        /**
+         * The name of the method, as shown in the statistics.
+         */
+        private final String method;
+
+        /**
+         * Constructs an operation.
+         *
+         * @param method the name of the method
+         */
+        Operation(String method) {
+            this.method = method;
+        }
+
+        /**
+         * Finds an operation by its method name.
+         *
+         * @param method the name of the method
+         * @return the operation, or {@code null} if there is none
+         */
+        static Operation named(String method) {
+            for (Operation operation : values()) {
+                if (operation.method.equals(method)) {
+                    return operation;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns the name of the method.
+         *
+         * @return the name of the method
+         */
+        @Override
+        public String toString() {
+            return method;
+        }
+    }
+
+    /**
+     * The name shown for operations on every type, such as {@code clear}.
+     */
+    static final String ALL_TYPES = "*";
+
+    /**
+     * The histograms of each type, indexed by operation; created on first use.
+     */
+    private final Map<String, LatencyHistogram[]> histograms;
+
+    /**
+     * Constructs empty statistics.
+     */
+    public RegistryStats() {
+        this.histograms = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Records one call.
+     *
+     * @param type      the class of the items, or {@code null} for an operation on every
+     *                  type
+     * @param operation the operation
+     * @param nanos     the time the call took, in nanoseconds
+     */
+    void record(Class<?> type, Operation operation, long nanos) {
+        String name = type == null ? ALL_TYPES : type.getSimpleName();
+        LatencyHistogram[] byOperation = histograms.get(name);
+        if (byOperation == null) {
+            byOperation = histograms.computeIfAbsent(name, key -> newHistograms());
+        }
+        byOperation[operation.ordinal()].record(nanos);
+    }
+
+    /**
+     * Creates one empty histogram per operation.
+     *
+     * @return the histograms, indexed by operation
+     */
+    private static LatencyHistogram[] newHistograms() {
+        LatencyHistogram[] byOperation = new LatencyHistogram[Operation.values().length];
+        for (int i = 0; i < byOperation.length; i++) {
+            byOperation[i] = new LatencyHistogram();
+        }
+        return byOperation;
+    }
+
+    /**
+     * Finds the histogram of a type and operation.
+     *
+     * @param type      the simple name of the item type
+     * @param operation the name of the operation
+     * @return the histogram, or {@code null} if nothing was recorded for it
+     */
+    private LatencyHistogram histogram(String type, String operation) {
+        LatencyHistogram[] byOperation = histograms.get(type);
+        Operation op = Operation.named(operation);
+        return byOperation == null || op == null ? null : byOperation[op.ordinal()];
+    }
+
+    @Override
+    public long getTotalCalls() {
+        long calls = 0;
+        for (LatencyHistogram[] byOperation : histograms.values()) {
+            for (LatencyHistogram histogram : byOperation) {
+                calls += histogram.count();
+            }
+        }
+        return calls;
+    }
+
+    @Override
+    public double getTotalMillis() {
+        long nanos = 0;
+        for (LatencyHistogram[] byOperation : histograms.values()) {
+            for (LatencyHistogram histogram : byOperation) {
+                nanos += histogram.total();
+            }
+        }
+        return nanos / 1e6;
+    }
+
+    @Override
+    public long getCalls(String type, String operation) {
+        LatencyHistogram histogram = histogram(type, operation);
+        return histogram == null ? 0 : histogram.count();
+    }
+
+    @Override
+    public double getLatencyMicros(String type, String operation, double percentile) {
+        LatencyHistogram histogram = histogram(type, operation);
+        return histogram == null ? 0 : histogram.valueAtPercentile(percentile) / 1e3;
+    }
+
+    /**
+     * Describes the calls recorded, one line per type and operation that was called,
+     * with the count, mean, median, 99th percentile and maximum latency in microseconds,
+     * e.g. {@code Student.find  calls=1200 mean=0.4 p50=0.3 p99=2.1 max=15.0}.
+     *
+     * @return the description, or a note that nothing was recorded
+     */
+    @Override
+    public String dumpStats() {
+        List<String> types = new ArrayList<>(histograms.keySet());
+        types.sort(Comparator.naturalOrder());
+        StringBuilder sb = new StringBuilder();
+        for (String type : types) {
+            LatencyHistogram[] byOperation = histograms.get(type);
+            for (Operation operation : Operation.values()) {
+                LatencyHistogram histogram = byOperation[operation.ordinal()];
+                if (histogram.count() == 0) {
+                    continue;
+                }
+                sb.append(String.format(Locale.ROOT,
+                        "%-24s calls=%d mean=%.1f p50=%.1f p99=%.1f max=%.1f (us)%n",
+                        type + "." + operation, histogram.count(), histogram.mean() / 1e3,
+                        histogram.valueAtPercentile(50) / 1e3,
+                        histogram.valueAtPercentile(99) / 1e3, histogram.max() / 1e3));
+            }
+        }
+        if (sb.length() == 0) {
+            return "No registry calls recorded" + System.lineSeparator();
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram[] byOperation : histograms.values()) {
+            for (LatencyHistogram histogram : byOperation) {
+                histogram.reset();
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package examblock.model;
+
+/**
+ * The management interface of {@link RegistryStats}, published over JMX by
+ * {@link MeteredRegistry#register()} so the registry's call counts and latencies can be
+ * watched from JConsole or VisualVM while the application runs.
+ */
+public interface RegistryStatsMBean {
+
+    /**
+     * Returns the number of registry calls recorded, over every type and operation.
+     *
+     * @return the number of calls
+     */
+    long getTotalCalls();
+
+    /**
+     * Returns the time spent in the registry calls recorded, over every type and
+     * operation.
+     *
+     * @return the total time, in milliseconds
+     */
+    double getTotalMillis();
+
+    /**
+     * Returns the number of calls recorded for one type and operation.
+     *
+     * @param type      the simple name of the item type, e.g. {@code Student}
+     * @param operation the operation, e.g. {@code find}
+     * @return the number of calls, or zero if there were none
+     */
+    long getCalls(String type, String operation);
+
+    /**
+     * Returns a latency that the given percentage of the calls for one type and operation
+     * did not exceed.
+     *
+     * @param type       the simple name of the item type, e.g. {@code Student}
+     * @param operation  the operation, e.g. {@code find}
+     * @param percentile the percentage, from 0 to 100
+     * @return the latency, in microseconds, or zero if there were no calls
+     */
+    double getLatencyMicros(String type, String operation, double percentile);
+
+    /**
+     * Describes the calls recorded, one line per type and operation.
+     *
+     * @return the description
+     */
+    String dumpStats();
+
+    /**
+     * Forgets every call recorded.
+     */
+    void reset();
+}
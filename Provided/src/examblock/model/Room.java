@@ -21,6 +21,9 @@ public class Room implements StreamManager, ManageableListItem {
      */
     private Registry registry;
 
+    /** The dense ordinal given by the registry, or -1 if not registered. */
+    private int ordinal = -1;
+
     /**
      * Default constructs a {@code Room}.
      * WARNING: This room does not register itself. It is the responsibility of the Venue
@@ -169,6 +172,7 @@ public class Room implements StreamManager, ManageableListItem {
     @Override
     public void streamOut(BufferedWriter bw, int nthItem) throws IOException {
         bw.write(nthItem + ". " + this.id);
+        bw.newLine();
     }
 
     /**
@@ -209,10 +213,20 @@ public class Room implements StreamManager, ManageableListItem {
             throw new RuntimeException("Room index out of sync!");
         }
 
-        id = bits[1];
+        id = StringPool.SHARED.intern(bits[1]);
 
         if (Verbose.isVerbose()) {
             System.out.println("Loaded Room: " + id);
         }
     }
+
+    @Override
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    @Override
+    public void setOrdinal(int ordinal) {
+        this.ordinal = ordinal;
+    }
 }
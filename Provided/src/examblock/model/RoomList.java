@@ -6,7 +6,6 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 /**
  * A collection object for holding and managing {@link Room}s.
@@ -31,12 +30,7 @@ public class RoomList extends ListManager<Room> {
      */
     @Override
     public Room find(String key) {
-        Optional<Room> p = all()
-                .stream()
-                .filter(pn -> pn.getId().equals(key))
-                .findFirst();
-
-        return p.orElse(null);
+        return findById(key);
     }
 
     /**
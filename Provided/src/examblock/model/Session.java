@@ -67,6 +67,9 @@ public class Session implements StreamManager, ManageableListItem {
 
     private Registry registry;
 
+    /** The dense ordinal given by the registry, or -1 if not registered. */
+    private int ordinal = -1;
+
     /**
      * Constructs a new empty {@link Exam} {@code Session} for a particular {@link Venue}.
      * The calling process must check that the supplied session number is unique for this venue.
@@ -147,13 +150,23 @@ public class Session implements StreamManager, ManageableListItem {
         return start;
     }
 
+    /**
+     * Return a unique string identifying us: the venue identifier and session number.
+     *
+     * @return a unique string identifying us, or an empty string if there is no venue
+     */
+    @Override
+    public String getId() {
+        return venue == null ? "" : venue.venueId() + "#" + sessionNumber;
+    }
+
     /**
      * Gets the list of exams being held in this session.
      *
-     * @return The list of exams being held in this session.
+     * @return a read-only view of the exams being held in this session.
      */
     public List<Exam> getExams() {
-        return new ArrayList<>(exams.all());
+        return exams.view();
     }
 
     /**
@@ -183,16 +196,13 @@ public class Session implements StreamManager, ManageableListItem {
      * in the code : nbStudent =  the number of students being added with this allocation.
      */
     public void scheduleExam(Exam exam) {
-        // now we are going to get the number of STudents through the registry
-        int nbSTudent =0;
-        List<Student> allStudents = this.registry.getAll(Student.class);
-        for (Student mySTudent : allStudents) {
-            if (mySTudent.getExams().all().contains(exam)) {
-                nbSTudent +=1;
-            }
-        }
+        // now we are going to get the number of STudents through the registry's exam index
+        int nbSTudent = this.registry.query(Student.class)
+                .where(Student.examIndex(this.registry), exam)
+                .count();
         studentCount += nbSTudent;
         exams.add(exam);
+        this.registry.scheduled(this, exam);
     }
 
     /**
@@ -230,42 +240,97 @@ public class Session implements StreamManager, ManageableListItem {
             if (countExams > 1) {
                 interGaps = gaps / (countExams - 1);
             }
+            List<List<Student>> takers = takersBySubject(students);
             Subject subject;
             for (Exam exam : sessionExams) {
                 // foreach exam find the students in this venue
                 startDesk = nextDesk;
                 finishDesk = nextDesk;
                 subject = exam.getSubject();
-                for (Student student : students) {
-                    if (student.isAara() == this.venue.isAara()) {
-                        List<Subject> subjects = student.getSubjects().all();
-                        for (Subject check : subjects) {
-                            if (check == subject) {
-                                // Assign the student to the next desk
-                                j = (nextDesk - 1) / rows;
-                                i = (nextDesk - 1) % rows;
-                                String givenAndInit = getGivenAndInit(student.givenNames());
-                                // setFamilyName is now deleted
-                                // we use setStudent
-                                desks[i][j].setStudent(student);
-//                                desks[i][j].setFamilyName(student.familyName());
-//                                desks[i][j].setGivenAndInit(givenAndInit);
-                                finishDesk = nextDesk;
-                                if (skipColumns) {
-                                    if (nextDesk % rows == 0) {
-                                        nextDesk += rows;
-                                    }
-                                }
-                                nextDesk++;
-                            }
+                for (Student student : takersOf(subject, takers, students)) {
+                    // Assign the student to the next desk
+                    j = (nextDesk - 1) / rows;
+                    i = (nextDesk - 1) % rows;
+                    // setFamilyName is now deleted
+                    // we use setStudent
+                    desks[i][j].setStudent(student);
+                    desks[i][j].setExam(exam);
+                    finishDesk = nextDesk;
+                    if (skipColumns) {
+                        if (nextDesk % rows == 0) {
+                            nextDesk += rows;
                         }
                     }
+                    nextDesk++;
                 }
                 nextDesk += interGaps;
             }
         }
     }
 
+    /**
+     * Sorts the students sitting in this venue into buckets by the ordinal of each subject
+     * they take, keeping their order, so each exam reads its students by index
+     * instead of searching every student's subjects.
+     *
+     * @param students the students, in desk order
+     * @return the students taking each subject, indexed by subject ordinal; an element
+     *         is {@code null} if no student here takes that subject
+     */
+    private List<List<Student>> takersBySubject(List<Student> students) {
+        int bound = registry.ordinalBound(Subject.class);
+        Subject[] owners = new Subject[bound];
+        for (int ordinal = 0; ordinal < bound; ordinal++) {
+            owners[ordinal] = registry.byOrdinal(ordinal, Subject.class);
+        }
+        List<List<Student>> takers = new ArrayList<>(Collections.nCopies(bound, null));
+        for (Student student : students) {
+            if (student.isAara() == this.venue.isAara()) {
+                for (int ordinal = student.nextSubject(0); ordinal >= 0 && ordinal < bound;
+                     ordinal = student.nextSubject(ordinal + 1)) {
+                    if (owners[ordinal] != null) {
+                        if (takers.get(ordinal) == null) {
+                            takers.set(ordinal, new ArrayList<>());
+                        }
+                        takers.get(ordinal).add(student);
+                    }
+                }
+            }
+        }
+        return takers;
+    }
+
+    /**
+     * Gets the students sitting in this venue who take a subject, in desk order.
+     *
+     * @param subject  the subject of the exam
+     * @param takers   the buckets from {@link #takersBySubject(List)}
+     * @param students all the students, in desk order, searched if the subject is not
+     *                 registered with this session's registry
+     * @return the students taking the subject
+     */
+    private List<Student> takersOf(Subject subject, List<List<Student>> takers,
+                                   List<Student> students) {
+        int ordinal = subject.getOrdinal();
+        if (ordinal >= 0 && ordinal < takers.size()
+                && registry.byOrdinal(ordinal, Subject.class) == subject) {
+            List<Student> bucket = takers.get(ordinal);
+            return bucket == null ? Collections.emptyList() : bucket;
+        }
+        List<Student> found = new ArrayList<>();
+        for (Student student : students) {
+            if (student.isAara() == this.venue.isAara()) {
+                // the subject's ordinal means nothing here, so compare the subjects
+                for (Subject check : student.subjectsTaken()) {
+                    if (check == subject) {
+                        found.add(student);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
     private String getGivenAndInit(String given) {
         if (given != null && !given.isEmpty()) {
             String[] names = given.split(" ");
@@ -385,15 +450,44 @@ public class Session implements StreamManager, ManageableListItem {
     @Override
     public void streamOut(BufferedWriter bw, int nthItem) throws IOException
     {
-
+        List<Exam> sessionExams = this.getExams();
+        bw.write(nthItem + ". Venue: " + venue.venueId() + ", Session Number: " + sessionNumber
+                + ", Day: " + day + ", Start: " + start + ", Exams: " + sessionExams.size());
+        bw.newLine();
+        for (Exam exam : sessionExams) {
+            bw.write(exam.getShortTitle());
+            bw.newLine();
+            // the desks allocated to this exam, in desk number order
+            List<Desk> allocated = new ArrayList<>();
+            for (int j = 0; j < columns; j++) {
+                for (int i = 0; i < rows; i++) {
+                    if (desks[i][j].getExam() == exam) {
+                        allocated.add(desks[i][j]);
+                    }
+                }
+            }
+            bw.write("    [Desks: " + allocated.size() + "]");
+            bw.newLine();
+            for (Desk desk : allocated) {
+                bw.write("    Desk: " + desk.deskNumber() + ", LUI: " + desk.deskLui()
+                        + ", Name: " + desk.deskFamilyName() + ", " + desk.deskGivenAndInit());
+                bw.newLine();
+            }
+        }
     }
 
     @Override
     public String getFullDetail() {
         return "test";
     }
-}
-
-
 
+    @Override
+    public int getOrdinal() {
+        return ordinal;
+    }
 
+    @Override
+    public void setOrdinal(int ordinal) {
+        this.ordinal = ordinal;
+    }
+}
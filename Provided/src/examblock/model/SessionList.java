@@ -1,16 +1,21 @@
 package examblock.model;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 /**
  * A collection object for holding and managing {@link Exam} {@link Session}s.
  */
 public class SessionList extends ListManager<Session> {
 
+    /**
+     * The sessions of this list by date and start time.
+     */
+    private final Timetable<Session> timetable =
+            new Timetable<>(Session::getDate, Session::getTime);
 
     /**
      * Constructs a new empty SessionList.
@@ -28,12 +33,7 @@ public class SessionList extends ListManager<Session> {
      */
     @Override
     public Session find(String key) {
-        Optional<Session> p = all()
-                .stream()
-                .filter(pn -> pn.getId().equals(key))
-                .findFirst();
-
-        return p.orElse(null);
+        return findById(key);
     }
 
     /**
@@ -58,7 +58,7 @@ public class SessionList extends ListManager<Session> {
      * @param session the given {@link Session} for this {@code SessionList} to manage.
      */
     public void add(Session session) {
-        this.getItems().add(session);
+        addUnchecked(session);
     }
 
     /**
@@ -67,7 +67,73 @@ public class SessionList extends ListManager<Session> {
      * @param session the given {@link Session} from this {@code SessionList}.
      */
     public void remove(Session session) {
-        this.getItems().remove(session);
+        super.remove(session);
+    }
+
+    /**
+     * Gets the sessions in this list starting at exactly the given date and time, in
+     * any venue.
+     *
+     * @param day   the date of the sessions
+     * @param start the start time of the sessions
+     * @return a read-only list of the sessions, in the order they were added
+     */
+    public List<Session> sessionsAt(LocalDate day, LocalTime start) {
+        return timetable.at(day, start);
+    }
+
+    /**
+     * Gets the sessions in this list held on the given date, in any venue.
+     *
+     * @param day the date of the sessions
+     * @return a new list of the sessions, by start time
+     */
+    public List<Session> sessionsOn(LocalDate day) {
+        return timetable.on(day);
+    }
+
+    /**
+     * Gets the sessions in this list starting at or after {@code from} and before
+     * {@code to}, in any venue.
+     *
+     * @param from the start of the range, inclusive
+     * @param to   the end of the range, exclusive
+     * @return a new list of the sessions, by start time
+     */
+    public List<Session> sessionsBetween(LocalDateTime from, LocalDateTime to) {
+        return timetable.between(from, to);
+    }
+
+    /**
+     * Finds the session in a venue starting at the given date and time.
+     *
+     * @param venue the venue of the session
+     * @param day   the session date
+     * @param start the start time of the session
+     * @return the first such session, or {@code null} if there is none
+     */
+    private Session sessionAt(Venue venue, LocalDate day, LocalTime start) {
+        for (Session session : timetable.at(day, start)) {
+            if (session.getVenue().venueId().equals(venue.venueId())) {
+                return session;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected void added(Session session) {
+        timetable.add(session);
+    }
+
+    @Override
+    protected void removed(Session session) {
+        timetable.remove(session);
+    }
+
+    @Override
+    protected void cleared() {
+        timetable.clear();
     }
 
     /**
@@ -80,13 +146,8 @@ public class SessionList extends ListManager<Session> {
      * @return the sessionNumber of a session at a particular time in a given Venue, else zero.
      */
     public int getSessionNumber(Venue venue, LocalDate day, LocalTime start) {
-        for (Session session : this.getItems()) {
-            if (session.getVenue().venueId().equals(venue.venueId())
-                    && session.getDate().equals(day) && session.getTime().equals(start)) {
-                return session.getSessionNumber();
-            }
-        }
-        return 0;
+        Session session = sessionAt(venue, day, start);
+        return session == null ? 0 : session.getSessionNumber();
     }
 
     /**
@@ -177,17 +238,13 @@ public class SessionList extends ListManager<Session> {
         LocalTime start = exam.getTime();
         boolean aara = venue.isAara();
         // see if there is already a session set up in that venue at that time.
-        Session session; // Local variables for handling the exam session checks.
-        int sessionNumber = this.getSessionNumber(venue, day, start);
-        if (sessionNumber == 0) { // if 0 no session already existing in that venue at that time
+        Session session = this.sessionAt(venue, day, start);
+        if (session == null) { // no session already existing in that venue at that time
             System.out.println("There is currently no exam session in that venue at that time.");
             System.out.println("Creating a session...");
             session = new Session(venue, getNextSessionNumber(venue), day, start, this.getRegistry());
-            this.getItems().add(session);
+            addUnchecked(session);
         }
-        // Redo the getSession in case it was already existing.
-        sessionNumber = this.getSessionNumber(venue, day, start);
-        session = this.getSession(venue, sessionNumber);
         // See how many are already in the venue.
         int numberAlready = session.countStudents();
         int totalStudents = numberAlready + numberStudents;
@@ -212,15 +269,8 @@ public class SessionList extends ListManager<Session> {
     }
 
     public int getExistingSessionTotal(Venue venue, Exam exam) {
-        for (Session session : this.getItems()) {
-            if (session.getVenue().venueId().equals(venue.venueId())
-                    && session.getDate().equals(exam.getDate()) && session.getTime().equals(exam.getTime())) {
-                // then this is the right session
-                return session.countStudents();
-            }
-
-            }
-        return 0;
+        Session session = sessionAt(venue, exam.getDate(), exam.getTime());
+        return session == null ? 0 : session.countStudents();
     }
 
     /**
@@ -239,8 +289,10 @@ public class SessionList extends ListManager<Session> {
         Subject subject = exam.getSubject();
         LocalDate day = exam.getDate();
         LocalTime start = exam.getTime();
-        int sessionNumber = this.getSessionNumber(venue, day, start);
-        Session session = this.getSession(venue, sessionNumber);
+        Session session = this.sessionAt(venue, day, start);
+        if (session == null) {
+            throw new IllegalStateException("No such session!");
+        }
         session.scheduleExam(exam);
         System.out.println(subject.getTitle() + " exam added to " + venue.venueId() + ".");
     }
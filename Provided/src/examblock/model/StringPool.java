@@ -0,0 +1,80 @@
+package examblock.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A pool of canonical copies of strings, used when loading to make every occurrence of a
+ * repeated field value (a house colour, a subject title, a room ID) share one
+ * {@code String} instead of each item keeping the copy split from its own line. Besides
+ * saving heap, pooled values compare equal by identity, so {@link String#equals} returns
+ * at its first check.
+ * <p>
+ * Only low-cardinality fields should be pooled. The pool stops taking new values once it
+ * holds {@value #DEFAULT_CAPACITY} of them, so pooling a field that turns out to be
+ * unique per item costs a lookup but cannot grow the pool without bound. The pool is
+ * safe to use from any number of threads.
+ */
+final class StringPool {
+
+    /**
+     * The number of distinct values the shared pool holds at most.
+     */
+    static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * The pool shared by the loaders of every item type.
+     */
+    static final StringPool SHARED = new StringPool(DEFAULT_CAPACITY);
+
+    /**
+     * The canonical copy of each pooled value, keyed by itself.
+     */
+    private final Map<String, String> canonical;
+
+    /**
+     * The number of distinct values held at most.
+     */
+    private final int capacity;
+
+    /**
+     * Constructs an empty pool.
+     *
+     * @param capacity the number of distinct values to hold at most
+     */
+    StringPool(int capacity) {
+        this.canonical = new ConcurrentHashMap<>();
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the canonical copy of a value, making this one canonical if the value is
+     * new and the pool has room.
+     *
+     * @param value the value, which may be {@code null}
+     * @return an equal string, shared where possible; {@code null} if {@code value} is
+     */
+    String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pooled = canonical.get(value);
+        if (pooled != null) {
+            return pooled;
+        }
+        if (canonical.size() >= capacity) {
+            return value;
+        }
+        pooled = canonical.putIfAbsent(value, value);
+        return pooled == null ? value : pooled;
+    }
+
+    /**
+     * Returns the number of distinct values pooled.
+     *
+     * @return the number of values
+     */
+    int size() {
+        return canonical.size();
+    }
+}
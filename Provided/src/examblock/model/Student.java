@@ -4,6 +4,10 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -36,11 +40,23 @@ public class Student implements StreamManager, ManageableListItem {
      */
     private Boolean aara;
     /**
-     * The list of the Student's subjects.
+     * The Student's subjects, as a bitset over the subjects' registry ordinals: bit
+     * {@code o % 64} of word {@code o / 64} is set if the Student takes the subject with
+     * ordinal {@code o}. Sized to the highest ordinal taken; a cohort's 30-odd subjects
+     * fit in one word.
+     */
+    private long[] subjectBits = NO_SUBJECTS;
+    /**
+     * The list last returned by {@link #getSubjects()}, or {@code null} once the subject
+     * bits have changed since.
      */
     private SubjectList subjects;
     /**
-     * The list of the Student's current units.
+     * The registry's subject stamp when {@link #subjects} was built.
+     */
+    private long subjectsStamp;
+    /**
+     * The list of the Student's current units, created when the first unit is added.
      */
     private UnitList units;
     /**
@@ -48,22 +64,202 @@ public class Student implements StreamManager, ManageableListItem {
      */
     private ExamList exams;
 
+    /** The ID, i.e. the LUI as text, built on first use and cleared when the LUI changes. */
     private String id;
 
+    /** The first given name, built on first use and cleared when the names change. */
+    private String firstName;
+
+    /** The first given name and family name, built on first use. */
+    private String shortName;
+
+    /** All the given names and family name, built on first use. */
+    private String fullName;
+
     private Registry registry;
 
     private int  nthIndex;
 
+    /** The dense ordinal given by the registry, or -1 if not registered. */
+    private int ordinal = -1;
+
+    /**
+     * The subject bits of a student taking no subjects, shared by all of them.
+     */
+    private static final long[] NO_SUBJECTS = new long[0];
+
+    /**
+     * Name of the registry index of students by each of their subjects.
+     */
+    static final String SUBJECT_INDEX = "subjects";
+
+    /**
+     * Name of the registry index of students by each of their exams.
+     */
+    static final String EXAM_INDEX = "exams";
+
+    /**
+     * Gets (creating it on first use) the registry index of students by subject.
+     *
+     * @param registry the registry holding the students
+     * @return the index of students by each subject they take
+     */
+    public static RegistryIndex<Student, Subject> subjectIndex(Registry registry) {
+        return registry.createMultiKeyIndex(Student.class, SUBJECT_INDEX,
+                Student::subjectsTaken);
+    }
+
+    /**
+     * Gets (creating it on first use) the registry index of students by exam.
+     *
+     * @param registry the registry holding the students
+     * @return the index of students by each exam they sit
+     */
+    public static RegistryIndex<Student, Exam> examIndex(Registry registry) {
+        return registry.createMultiKeyIndex(Student.class, EXAM_INDEX,
+                student -> student.getExams().getItems());
+    }
+
+    /**
+     * Name of the registry index of students by each subject they take, split into AARA
+     * and non-AARA students.
+     */
+    static final String ENROLMENT_INDEX = "enrolments";
+
+    /**
+     * The order of the students on a subject's roster: by family name, then by LUI.
+     */
+    static final Comparator<Student> ROSTER_ORDER =
+            Comparator.comparing(Student::familyName).thenComparing(Student::getLui);
+
+    /**
+     * A key of the {@link #enrolmentIndex enrolment index}: a subject, and whether the
+     * students under it are the AARA or the non-AARA students taking it.
+     */
+    public static final class Enrolment {
+
+        /**
+         * The subject taken.
+         */
+        private final Subject subject;
+
+        /**
+         * True for the AARA students, false for the others.
+         */
+        private final boolean aara;
+
+        /**
+         * Constructs an enrolment key.
+         *
+         * @param subject the subject taken
+         * @param aara    true for the AARA students, false for the non-AARA students
+         */
+        public Enrolment(Subject subject, boolean aara) {
+            this.subject = Objects.requireNonNull(subject, "Subject cannot be null");
+            this.aara = aara;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Enrolment other)) {
+                return false;
+            }
+            return aara == other.aara && subject.equals(other.subject);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * subject.hashCode() + Boolean.hashCode(aara);
+        }
+
+        @Override
+        public String toString() {
+            return subject.getTitle() + (aara ? " (AARA)" : "");
+        }
+    }
+
+    /**
+     * Gets (creating it on first use) the registry index of students by subject and AARA
+     * setting. Each subject's AARA and non-AARA students are kept apart and in
+     * {@link #ROSTER_ORDER}, so counting either group is a map lookup and listing it
+     * touches only its own students.
+     *
+     * @param registry the registry holding the students
+     * @return the index of students by each of their enrolments
+     */
+    public static RegistryIndex<Student, Enrolment> enrolmentIndex(Registry registry) {
+        return registry.createSortedMultiKeyIndex(Student.class, ENROLMENT_INDEX,
+                Student::enrolments, ROSTER_ORDER);
+    }
+
+    /**
+     * Counts the registered students taking a subject with the given AARA setting.
+     *
+     * @param registry the registry holding the students
+     * @param subject  the subject
+     * @param aara     true to count AARA students, false for non-AARA students
+     * @return the number of students
+     */
+    public static int countEnrolled(Registry registry, Subject subject, boolean aara) {
+        return registry.count(enrolmentIndex(registry), new Enrolment(subject, aara));
+    }
+
+    /**
+     * Gets the registered students taking a subject with the given AARA setting, by
+     * family name then LUI.
+     *
+     * @param registry the registry holding the students
+     * @param subject  the subject
+     * @param aara     true for AARA students, false for non-AARA students
+     * @return a read-only list of the students
+     */
+    public static List<Student> enrolled(Registry registry, Subject subject, boolean aara) {
+        return registry.lookup(enrolmentIndex(registry), new Enrolment(subject, aara));
+    }
+
+    /**
+     * Derives this student's keys in the enrolment index, one per subject.
+     *
+     * @return the enrolments of this student
+     */
+    private List<Enrolment> enrolments() {
+        boolean isAara = Boolean.TRUE.equals(aara);
+        List<Subject> taken = subjectsTaken();
+        List<Enrolment> keys = new ArrayList<>(taken.size());
+        for (Subject subject : taken) {
+            keys.add(new Enrolment(subject, isAara));
+        }
+        return keys;
+    }
+
+    /**
+     * Tells the registry that this student's subjects or exams have changed, so its
+     * indexes stay correct.
+     */
+    private void reindex() {
+        if (registry != null) {
+            registry.reindex(this, Student.class);
+        }
+    }
+
     private String generateId() {
         return this.lui.toString();
     }
 
+    /**
+     * Forgets the display names built from the given and family names.
+     */
+    private void clearNames() {
+        firstName = null;
+        shortName = null;
+        fullName = null;
+    }
+
     public Student(BufferedReader br, Registry registry, int nthItem) throws IOException, RuntimeException {
-        subjects = new SubjectList(registry);
-        units = new UnitList(registry);
         exams = new ExamList(registry);
-        this.streamIn(br, registry, nthItem);
+        // subjects are read as ordinals of this registry
         this.registry = registry;
+        this.streamIn(br, registry, nthItem);
         this.nthIndex = registry.count(Student.class);
         registry.add(this, Student.class);
 
@@ -97,8 +293,6 @@ public class Student implements StreamManager, ManageableListItem {
     public Student(Long lui, String givenNames, String familyName, int day,
                    int month, int year, String house, Registry registry) {
         this(lui, givenNames, familyName, day, month, year, house, false, registry);
-        subjects = new SubjectList(registry);
-        units = new UnitList(registry);
         exams = new ExamList(registry);
         this.registry = registry;
         this.nthIndex = registry.count(Student.class);
@@ -141,8 +335,6 @@ public class Student implements StreamManager, ManageableListItem {
         dob = LocalDate.of(year, month, day);
         this.house = house;
         this.aara = aara;
-        subjects = new SubjectList(registry);
-        units = new UnitList(registry);
         exams = new ExamList(registry);
         this.nthIndex = registry.count(Student.class);
         this.registry = registry;
@@ -154,17 +346,44 @@ public class Student implements StreamManager, ManageableListItem {
      * */
     public void addExam( Exam exam) {
         this.exams.add(exam);
+        reindex();
+    }
+
+    /**
+     * Removes an exam from this student, keeping the registry's exam index up to date.
+     *
+     * @param exam the exam to be removed
+     */
+    public void removeExam(Exam exam) {
+        if (this.exams.contains(exam)) {
+            this.exams.remove(exam);
+            reindex();
+        }
     }
 
 
     /**
-     * Change the LUI of the student.
+     * Change the LUI of the student. A registered student is re-registered under its new
+     * LUI, which moves it to the end of the registry's order.
      *
      * @param lui the student's 10-digit Learner Unique Identifier (LUI). The LUI
      *            must be unique to each student throughout the entire cohort.
+     * @throws IllegalStateException if another registered student already has the LUI
      */
     public void changeLui(Long lui) {
+        if (registry == null || registry.find(getId(), Student.class) != this) {
+            this.lui = lui;
+            this.id = null;
+            return;
+        }
+        Student other = registry.find(lui.toString(), Student.class);
+        if (other != null && other != this) {
+            throw new IllegalStateException("Duplicate LUI: " + lui);
+        }
+        registry.remove(getId(), Student.class);
         this.lui = lui;
+        this.id = null;
+        registry.add(this, Student.class);
     }
 
     /**
@@ -180,6 +399,7 @@ public class Student implements StreamManager, ManageableListItem {
         // only set the given names if the supplied names are not null or empty
         if (givenNames != null && !givenNames.isEmpty()) {
             given = givenNames;
+            clearNames();
         }
     }
 
@@ -196,6 +416,9 @@ public class Student implements StreamManager, ManageableListItem {
         // only set the family name if the supplied name is not null or empty
         if (familyName != null && familyName.length() > 0) {
             family = familyName;
+            clearNames();
+            // the family name orders the enrolment index's rosters
+            reindex();
         }
     }
 
@@ -226,14 +449,19 @@ public class Student implements StreamManager, ManageableListItem {
      * @return the first given name of this student.
      */
     public String firstName() {
-        if (given != null && !given.isEmpty()) {
-            String stripped = given.replaceAll("\\s+", " ").strip();
-            String[] tokens = stripped.split(" ");
-            if (tokens.length > 0) {
-                return tokens[0];
+        String first = firstName;
+        if (first == null) {
+            first = "";
+            if (given != null && !given.isEmpty()) {
+                String stripped = given.replaceAll("\\s+", " ").strip();
+                String[] tokens = stripped.split(" ");
+                if (tokens.length > 0) {
+                    first = tokens[0];
+                }
             }
+            firstName = first;
         }
-        return "";
+        return first;
     }
 
     /**
@@ -255,7 +483,12 @@ public class Student implements StreamManager, ManageableListItem {
      * @return the first given name and family name of this student.
      */
     public String shortName() {
-        return this.firstName() + " " + family;
+        String name = shortName;
+        if (name == null) {
+            name = this.firstName() + " " + family;
+            shortName = name;
+        }
+        return name;
     }
 
     /**
@@ -264,7 +497,12 @@ public class Student implements StreamManager, ManageableListItem {
      * @return all the given name(s) and family name of this student.
      */
     public String fullName() {
-        return given + " " + family;
+        String name = fullName;
+        if (name == null) {
+            name = given + " " + family;
+            fullName = name;
+        }
+        return name;
     }
 
     /**
@@ -296,12 +534,126 @@ public class Student implements StreamManager, ManageableListItem {
     }
 
     /**
-     * Gets the {@link SubjectList} for this student.
+     * Gets the {@link SubjectList} for this student, in the order of the subjects'
+     * registry ordinals. The list is built from the student's subject bits and kept until
+     * they or the registered subjects change, so it must be treated as read-only; use
+     * {@link #addSubject(Subject)} and {@link #removeSubject(Subject)}. Prefer
+     * {@link #takes(Subject)} and {@link #subjectsTaken()}, which do not build a list
+     * manager.
      *
-     * @return the reference to this student's {@link SubjectList}.
+     * @return the {@link SubjectList} of this student's subjects.
      */
     public SubjectList getSubjects() {
-        return subjects;
+        long stamp = registry.modCount(Subject.class);
+        if (subjects != null && subjectsStamp == stamp) {
+            return subjects;
+        }
+        SubjectList list = new SubjectList(registry);
+        for (int o = nextSubject(0); o >= 0; o = nextSubject(o + 1)) {
+            Subject subject = registry.byOrdinal(o, Subject.class);
+            if (subject != null) {
+                list.addUnchecked(subject);
+            }
+        }
+        subjects = list;
+        subjectsStamp = stamp;
+        return list;
+    }
+
+    /**
+     * Gets this student's subjects, in the order of their registry ordinals. Subjects
+     * that have since been unregistered are left out.
+     *
+     * @return a new list of this student's subjects.
+     */
+    public List<Subject> subjectsTaken() {
+        List<Subject> taken = new ArrayList<>(subjectCount());
+        for (int o = nextSubject(0); o >= 0; o = nextSubject(o + 1)) {
+            Subject subject = registry.byOrdinal(o, Subject.class);
+            if (subject != null) {
+                taken.add(subject);
+            }
+        }
+        return taken;
+    }
+
+    /**
+     * Checks whether this student takes a subject; a single bit test.
+     *
+     * @param subject a subject registered with this student's registry
+     * @return true if this student takes the subject.
+     */
+    public boolean takes(Subject subject) {
+        int o = subject == null ? -1 : subject.getOrdinal();
+        int word = o >>> 6;
+        return o >= 0 && word < subjectBits.length && (subjectBits[word] & (1L << o)) != 0;
+    }
+
+    /**
+     * Counts the subjects this student takes.
+     *
+     * @return the number of subjects.
+     */
+    public int subjectCount() {
+        int count = 0;
+        for (long word : subjectBits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Finds the ordinal of the next subject this student takes, as
+     * {@link java.util.BitSet#nextSetBit(int)} does.
+     *
+     * @param from the ordinal to start from, inclusive
+     * @return the ordinal of the next subject taken, or -1 if there is none
+     */
+    int nextSubject(int from) {
+        int word = from >>> 6;
+        if (from < 0 || word >= subjectBits.length) {
+            return -1;
+        }
+        long bits = subjectBits[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == subjectBits.length) {
+                return -1;
+            }
+            bits = subjectBits[word];
+        }
+    }
+
+    /**
+     * Sets the bit of a subject, without reindexing. The subject's registration is checked
+     * again once the bit is set, so a subject unregistered meanwhile, whose students were
+     * already withdrawn, is not left set.
+     *
+     * @param subject the subject
+     * @throws IllegalStateException if the subject is not registered with this
+     *         student's registry
+     */
+    private void enrol(Subject subject) {
+        Objects.requireNonNull(subject, "Item cannot be null");
+        int o = subject.getOrdinal();
+        if (o < 0 || registry.byOrdinal(o, Subject.class) != subject) {
+            throw new IllegalStateException("Item with ID " + subject.getId()
+                    + " is not registered for type Subject");
+        }
+        int word = o >>> 6;
+        if (word >= subjectBits.length) {
+            subjectBits = Arrays.copyOf(subjectBits, word + 1);
+        }
+        subjectBits[word] |= 1L << o;
+        subjects = null;
+        if (registry.byOrdinal(o, Subject.class) != subject) {
+            // unregistered since the check, after withdrawing its students
+            subjectBits[word] &= ~(1L << o);
+            throw new IllegalStateException("Item with ID " + subject.getId()
+                    + " is not registered for type Subject");
+        }
     }
 
     /**
@@ -319,7 +671,8 @@ public class Student implements StreamManager, ManageableListItem {
      * @param subject the {@link Subject} being added to this student.
      */
     public void addSubject(Subject subject) {
-        subjects.add(subject);
+        enrol(subject);
+        reindex();
     }
 
     /**
@@ -328,7 +681,29 @@ public class Student implements StreamManager, ManageableListItem {
      * @param subject the {@link Subject} being removed from this student.
      */
     public void removeSubject(Subject subject) {
-        this.subjects.remove(subject);
+        if (takes(subject)) {
+            int o = subject.getOrdinal();
+            subjectBits[o >>> 6] &= ~(1L << o);
+            subjects = null;
+            reindex();
+        }
+    }
+
+    /**
+     * Withdraws every student registered with a registry from a subject that is about to
+     * be unregistered. Subject ordinals are reused, so a bit left set would make the
+     * students take whichever subject is registered next in its place.
+     *
+     * @param registry the registry the subject is leaving
+     * @param subject  the subject, still registered
+     */
+    static void withdrawAll(Registry registry, Subject subject) {
+        if (subject == null || subject.getOrdinal() < 0) {
+            return;
+        }
+        for (Student student : registry.getAll(Student.class)) {
+            student.removeSubject(subject);
+        }
     }
 
 
@@ -343,7 +718,7 @@ public class Student implements StreamManager, ManageableListItem {
         final String nameLine = String.valueOf(lui) + " " + this.shortName() + "\n";
         StringBuilder studentPrint = new StringBuilder();
         studentPrint.append(nameLine);
-        studentPrint.append(this.subjects.toString());
+        studentPrint.append(this.getSubjects().toString());
         studentPrint.append(this.exams.toString());
         studentPrint.append("=".repeat(60));
         studentPrint.append("\n");
@@ -351,11 +726,19 @@ public class Student implements StreamManager, ManageableListItem {
     }
 
     public void addUnit( Unit unit) {
+        if (this.units == null) {
+            this.units = new UnitList(registry);
+        }
         this.units.add(unit);
     }
 
     public String getId() {
-        return this.lui.toString();
+        String text = this.id;
+        if (text == null) {
+            text = generateId();
+            this.id = text;
+        }
+        return text;
     }
 
 
@@ -425,17 +808,27 @@ public class Student implements StreamManager, ManageableListItem {
 
 
         total.append("Subjects: ");
-        for (int i = 0; i < subjects.all().size(); i++) {
-            total.append(subjects.all().get(i).getTitle());
-            if (i < subjects.all().size() - 1) {
-                total.append(", ");
-            }
-        }
+        appendSubjectTitles(total);
 
         total.append("\n");
         return total.toString();
     }
 
+    /**
+     * Appends the titles of this student's subjects, separated by commas.
+     *
+     * @param sb the builder to append to
+     */
+    private void appendSubjectTitles(StringBuilder sb) {
+        List<Subject> taken = subjectsTaken();
+        for (int i = 0; i < taken.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(taken.get(i).getTitle());
+        }
+    }
+
     /** /
      * 1. LIAM ALEXANDER SMITH
      * LUI: 9999365663, Family Name: Smith, Given Name(s): Liam Alexander, Date of Birth: 2007-12-08, House: Blue, AARA: false
@@ -472,12 +865,7 @@ public class Student implements StreamManager, ManageableListItem {
         // Line 3: Subjects
         StringBuilder line3 = new StringBuilder();
         line3.append("Subjects: ");
-        for (int i = 0; i < subjects.all().size(); i++) {
-            line3.append(subjects.all().get(i).getTitle());
-            if (i < subjects.all().size() - 1) {
-                line3.append(", ");
-            }
-        }
+        appendSubjectTitles(line3);
         bw.write(line3.toString());
         bw.newLine();
 
@@ -533,11 +921,13 @@ public class Student implements StreamManager, ManageableListItem {
                 case "Family Name" -> this.family = value;
                 case "Given Name(s)" -> this.given = value;
                 case "Date of Birth" -> this.dob = LocalDate.parse(value);
-                case "House" -> this.house = value;
+                case "House" -> this.house = StringPool.SHARED.intern(value);
                 case "AARA" -> this.aara = Boolean.parseBoolean(value);
                 default -> System.err.println("Unknown field: " + key);
             }
         }
+        this.id = null;
+        clearNames();
 
 
         // Third line: subjects
@@ -551,7 +941,7 @@ public class Student implements StreamManager, ManageableListItem {
             String potentialId = (title).trim().toLowerCase().replaceAll("[^a-z0-9]+", "_");
             Subject subject = registry.get(potentialId, Subject.class);
             // registry.get will throw an error if nothing found
-            this.subjects.add(subject);
+            enrol(subject);
 
         }
 
@@ -561,11 +951,21 @@ public class Student implements StreamManager, ManageableListItem {
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof Student student)) return false;
-        return nthIndex == student.nthIndex && Objects.equals(getLui(), student.getLui()) && Objects.equals(given, student.given) && Objects.equals(family, student.family) && Objects.equals(getDob(), student.getDob()) && Objects.equals(getHouse(), student.getHouse()) && Objects.equals(aara, student.aara) && Objects.equals(getSubjects(), student.getSubjects()) && Objects.equals(units, student.units) && Objects.equals(getExams(), student.getExams()) && Objects.equals(getId(), student.getId()) && Objects.equals(registry, student.registry);
+        return nthIndex == student.nthIndex && Objects.equals(getLui(), student.getLui()) && Objects.equals(given, student.given) && Objects.equals(family, student.family) && Objects.equals(getDob(), student.getDob()) && Objects.equals(getHouse(), student.getHouse()) && Objects.equals(aara, student.aara) && Arrays.equals(subjectBits, student.subjectBits) && Objects.equals(units, student.units) && Objects.equals(getExams(), student.getExams()) && Objects.equals(getId(), student.getId()) && Objects.equals(registry, student.registry);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getLui(), given, family, getDob(), getHouse(), aara, getSubjects(), units, getExams(), getId(), registry, nthIndex);
+        return Objects.hash(getLui(), given, family, getDob(), getHouse(), aara, Arrays.hashCode(subjectBits), units, getExams(), getId(), registry, nthIndex);
+    }
+
+    @Override
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    @Override
+    public void setOrdinal(int ordinal) {
+        this.ordinal = ordinal;
     }
 }
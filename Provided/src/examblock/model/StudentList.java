@@ -1,8 +1,8 @@
 package examblock.model;
 
 import java.util.ArrayList;
-import java.util.List;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 /**
  * A collection object for holding and managing {@link Student}s.
@@ -20,23 +20,16 @@ public class StudentList extends ListManager<Student> {
 
     @Override
     public Student find(String key)  {
-        // find an item by a key
-        for (Student myStudent : this.getItems()) {
-            if (myStudent.getId().equals(key)) {
-                return myStudent;
-            }
-        }
-        return null;
+        return findById(key);
 
     }
 
     @Override
     public Student get(String key)
             throws IllegalStateException {
-        for (Student myStudent : this.getItems()) {
-            if (myStudent.getId().equals(key)) {
-                return myStudent;
-            }
+        Student myStudent = findById(key);
+        if (myStudent != null) {
+            return myStudent;
         }
         throw new IllegalStateException();
     }
@@ -52,6 +45,13 @@ public class StudentList extends ListManager<Student> {
      *         the executing state and the complete list of possible students.
      */
     public Student byLui(Long lui) throws IllegalStateException {
+        if (lui != null && holdsAllRegistered()) {
+            Student student = getRegistry().findByLui(lui);
+            if (student != null) {
+                return student;
+            }
+            throw new IllegalStateException("No such student!");
+        }
         for (Student student : this.getItems()) {
             if (Objects.equals(student.getLui(), lui)) {
                 return student;
@@ -70,18 +70,14 @@ public class StudentList extends ListManager<Student> {
      * @return The number of either non-AARA or AARA students taking a particular subject.
      */
     public int countStudents(Subject subject, boolean aara) {
-        int count = 0;
-        for (Student student : this.getItems()) {
-            if (student.isAara() == aara) {
-                List<Subject> subjects = student.getSubjects().all();
-                for (Subject check : subjects) {
-                    if (check == subject) {
-                        count++;
-                    }
-                }
-            }
+        if (holdsAllRegistered()) {
+            // whole cohort: the enrolment index already counts each subject's partitions
+            return Student.countEnrolled(getRegistry(), subject, aara);
         }
-        return count;
+        return (int) bulkStream()
+                .filter(student -> student.isAara() == aara
+                        && student.takes(subject))
+                .count();
     }
 
     /**
@@ -98,11 +94,10 @@ public class StudentList extends ListManager<Student> {
                  
                 """;
 
-        StringBuilder studentStrings = new StringBuilder();
-        for (Student student : this.getItems()) {
-            studentStrings.append(student.getFullDetail());
-            studentStrings.append("\n");
-        }
+        // render the students on all cores; joining keeps them in list order
+        String studentStrings = bulkStream()
+                .map(student -> student.getFullDetail() + "\n")
+                .collect(Collectors.joining());
         return topLine + studentStrings + "\n";
     }
 
@@ -21,6 +21,9 @@ public class Subject implements ManageableListItem, StreamManager {
     /** The Subject Id . */
     private String id;
 
+    /** The dense ordinal given by the registry, or -1 if not registered. */
+    private int ordinal = -1;
+
 
     /**
      * GenerateId : used to create id string
@@ -285,10 +288,10 @@ public class Subject implements ManageableListItem, StreamManager {
         }
 
         // ID (e.g., "ACCOUNTING")
-        this.id = bits[1].trim();
+        this.id = StringPool.SHARED.intern(bits[1].trim());
 
         // Title (e.g., "Accounting")
-        this.title = CSSE7023.getLine(br).trim();
+        this.title = StringPool.SHARED.intern(CSSE7023.getLine(br).trim());
 
         // Description (quoted, ends with semicolon)
         String descLine = CSSE7023.getLine(br).trim();
@@ -325,4 +328,14 @@ public class Subject implements ManageableListItem, StreamManager {
     public int hashCode() {
         return Objects.hash(getTitle(), getDescription(), getId());
     }
+
+    @Override
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    @Override
+    public void setOrdinal(int ordinal) {
+        this.ordinal = ordinal;
+    }
 }
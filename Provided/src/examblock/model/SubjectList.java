@@ -8,6 +8,10 @@ import java.util.List;
  */
 public class SubjectList extends ListManager<Subject> {
 
+    /**
+     * The subjects of this list by title.
+     */
+    private final TitleIndex<Subject, String> byTitle = new TitleIndex<>(Subject::getTitle);
 
 
     /**
@@ -27,13 +31,7 @@ public class SubjectList extends ListManager<Subject> {
      */
     @Override
     public Subject find(String key)  {
-        // find an item by a key
-        for (Subject mySUbject : this.getItems()) {
-            if (mySUbject.getId().equals(key)) {
-                return mySUbject;
-            }
-        }
-        return null;
+        return findById(key);
 
     }
 
@@ -47,10 +45,9 @@ public class SubjectList extends ListManager<Subject> {
     @Override
     public Subject get(String key)
             throws IllegalStateException {
-        for (Subject mySUbject : this.getItems()) {
-            if (mySUbject.getId().equals(key)) {
-                return mySUbject;
-            }
+        Subject mySUbject = findById(key);
+        if (mySUbject != null) {
+            return mySUbject;
         }
         throw new IllegalStateException();
     }
@@ -67,12 +64,26 @@ public class SubjectList extends ListManager<Subject> {
      *         the executing state and the complete list of possible subjects.
      */
     public Subject byTitle(String title) throws IllegalStateException {
-        for (Subject subject : this.getItems()) {
-            if (subject.getTitle().equals(title)) {
-                return subject;
-            }
+        Subject subject = title == null ? null : this.byTitle.get(title, this.view());
+        if (subject == null) {
+            throw new IllegalStateException("No such subject!");
         }
-        throw new IllegalStateException("No such subject!");
+        return subject;
+    }
+
+    @Override
+    protected void added(Subject subject) {
+        byTitle.add(subject);
+    }
+
+    @Override
+    protected void removed(Subject subject) {
+        byTitle.remove(subject, view());
+    }
+
+    @Override
+    protected void cleared() {
+        byTitle.clear();
     }
 
 
@@ -0,0 +1,129 @@
+package examblock.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * A calendar index over the items of a list, such as an {@link ExamList}'s exams or a
+ * {@link SessionList}'s sessions, keyed by the date and start time of each item. Items in
+ * the same time slot are kept in the order they were added, and slots in time order, so
+ * finding what starts at a time, on a day or within a range reads only the matching
+ * slots instead of comparing the dates and times of the whole list.
+ * <p>
+ * An item's date and time must not change while it is indexed. Items without a date or
+ * time are not indexed.
+ *
+ * @param <T> the type of the indexed items
+ */
+final class Timetable<T> {
+
+    /**
+     * Derives the time slot of an item, or {@code null} if it has none.
+     */
+    private final Function<T, LocalDateTime> slotOf;
+
+    /**
+     * The items starting in each time slot, in time order.
+     */
+    private final NavigableMap<LocalDateTime, List<T>> slots;
+
+    /**
+     * Constructs an empty timetable.
+     *
+     * @param date derives the date of an item
+     * @param time derives the start time of an item
+     */
+    Timetable(Function<T, LocalDate> date, Function<T, LocalTime> time) {
+        Objects.requireNonNull(date, "Date cannot be null");
+        Objects.requireNonNull(time, "Time cannot be null");
+        this.slotOf = item -> {
+            LocalDate day = date.apply(item);
+            LocalTime start = time.apply(item);
+            return day == null || start == null ? null : LocalDateTime.of(day, start);
+        };
+        this.slots = new TreeMap<>();
+    }
+
+    /**
+     * Indexes an item under its date and start time.
+     *
+     * @param item the item
+     */
+    void add(T item) {
+        LocalDateTime slot = slotOf.apply(item);
+        if (slot != null) {
+            slots.computeIfAbsent(slot, k -> new ArrayList<>(2)).add(item);
+        }
+    }
+
+    /**
+     * Removes an item from the index.
+     *
+     * @param item the item
+     */
+    void remove(T item) {
+        LocalDateTime slot = slotOf.apply(item);
+        List<T> items = slot == null ? null : slots.get(slot);
+        if (items != null) {
+            items.removeIf(indexed -> indexed == item);
+            if (items.isEmpty()) {
+                slots.remove(slot);
+            }
+        }
+    }
+
+    /**
+     * Removes every item from the index.
+     */
+    void clear() {
+        slots.clear();
+    }
+
+    /**
+     * Returns the items starting at exactly the given date and time.
+     *
+     * @param day   the date
+     * @param start the start time
+     * @return a read-only list of the items, in the order they were added
+     */
+    List<T> at(LocalDate day, LocalTime start) {
+        List<T> items = slots.get(LocalDateTime.of(day, start));
+        return items == null ? Collections.emptyList() : Collections.unmodifiableList(items);
+    }
+
+    /**
+     * Returns the items starting on the given date.
+     *
+     * @param day the date
+     * @return a new list of the items, by start time
+     */
+    List<T> on(LocalDate day) {
+        return between(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Returns the items starting at or after {@code from} and before {@code to}.
+     *
+     * @param from the start of the range, inclusive
+     * @param to   the end of the range, exclusive
+     * @return a new list of the items, by start time; empty if {@code to} is not after
+     *         {@code from}
+     */
+    List<T> between(LocalDateTime from, LocalDateTime to) {
+        List<T> found = new ArrayList<>();
+        if (from.isBefore(to)) {
+            for (List<T> items : slots.subMap(from, true, to, false).values()) {
+                found.addAll(items);
+            }
+        }
+        return found;
+    }
+}
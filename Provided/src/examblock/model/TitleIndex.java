@@ -0,0 +1,122 @@
+package examblock.model;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A hash index from a title-like key of each item in a list to the first item with that
+ * key, so that lists resolving items by title (e.g. {@link SubjectList#byTitle(String)})
+ * do so in constant time.
+ * <p>
+ * The index is built from the list on the first lookup, so lists that are never searched
+ * by title (such as each student's exams) pay nothing for it; from then on the owning
+ * list tells it of every add, remove and clear, and a miss is answered from the index
+ * alone. Items are read in before they are listed, so their titles do not change while
+ * they are indexed; a lookup that hits an item whose key no longer matches still
+ * rebuilds the index rather than return it.
+ *
+ * @param <T> the type of the indexed items
+ * @param <K> the type of the key
+ */
+final class TitleIndex<T, K> {
+
+    /**
+     * Derives the key of an item.
+     */
+    private final Function<T, K> keyOf;
+
+    /**
+     * The first item listed with each key, or {@code null} until the first lookup.
+     */
+    private Map<K, T> first;
+
+    /**
+     * Constructs an empty index.
+     *
+     * @param keyOf derives the key of an item; items with a {@code null} key are not
+     *              indexed
+     */
+    TitleIndex(Function<T, K> keyOf) {
+        this.keyOf = Objects.requireNonNull(keyOf, "Index key cannot be null");
+    }
+
+    /**
+     * Indexes an item just added to the end of the list.
+     *
+     * @param item the item
+     */
+    void add(T item) {
+        if (first == null) {
+            return;
+        }
+        K key = keyOf.apply(item);
+        if (key != null) {
+            first.putIfAbsent(key, item);
+        }
+    }
+
+    /**
+     * Removes an item just removed from the list; the next item with its key, if any,
+     * takes its place.
+     *
+     * @param item  the item
+     * @param items the items left in the list
+     */
+    void remove(T item, List<T> items) {
+        if (first == null) {
+            return;
+        }
+        K key = keyOf.apply(item);
+        if (key == null || first.get(key) != item) {
+            return;
+        }
+        first.remove(key);
+        for (T other : items) {
+            if (key.equals(keyOf.apply(other))) {
+                first.put(key, other);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Removes every item from the index.
+     */
+    void clear() {
+        first = null;
+    }
+
+    /**
+     * Finds the first item in the list with a key.
+     *
+     * @param key   the key
+     * @param items the items of the list, in order, indexed on the first lookup
+     * @return the first item with that key, or {@code null} if there is none
+     */
+    T get(K key, List<T> items) {
+        if (first == null) {
+            rebuild(items);
+        }
+        T item = first.get(key);
+        if (item != null && !key.equals(keyOf.apply(item))) {
+            rebuild(items);
+            item = first.get(key);
+        }
+        return item;
+    }
+
+    /**
+     * Re-indexes every item of the list under its current key.
+     *
+     * @param items the items of the list, in order
+     */
+    private void rebuild(List<T> items) {
+        first = new HashMap<>();
+        for (T item : items) {
+            add(item);
+        }
+    }
+}
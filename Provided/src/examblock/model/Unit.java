@@ -22,6 +22,9 @@ public class Unit implements StreamManager, ManageableListItem {
     /** The description of the Unit. */
     private String description;
 
+    /** The dense ordinal given by the registry, or -1 if not registered. */
+    private int ordinal = -1;
+
     // ID for a unit :
     // Subject.getID + Unit + Title + Description
     /**
@@ -77,6 +80,26 @@ public class Unit implements StreamManager, ManageableListItem {
         return unitId;
     }
 
+    /**
+     * Returns the ID of this unit in the registry, made of its subject's ID and its unit
+     * identifier, so that each subject's units are registered side by side.
+     *
+     * @return the ID, e.g. {@code accounting#3}
+     */
+    @Override
+    public String getId() {
+        return subject == null ? "" : subject.getId() + "#" + unitId;
+    }
+
+    /**
+     * Gets the {@code title} of the unit.
+     *
+     * @return the string {@code title} of the unit.
+     */
+    public String getTitle() {
+        return title;
+    }
+
     /**
      * Gets the text {@code description} of the unit.
      *
@@ -207,7 +230,7 @@ public class Unit implements StreamManager, ManageableListItem {
         }
 
         this.unitId = unitParts[0].trim().charAt(0); // e.g., '3'
-        this.title = unitParts[1].trim();            // e.g., "Reconstructing the Ancient World"
+        this.title = StringPool.SHARED.intern(unitParts[1].trim()); // e.g., "Reconstructing the Ancient World"
 
         //  Quoted description with trailing semicolon
         String line3 = CSSE7023.getLine(br).trim();
@@ -241,5 +264,13 @@ public class Unit implements StreamManager, ManageableListItem {
         return new Object[] { this.subject.getTitle(), this.unitId, this.title };
     }
 
+    @Override
+    public int getOrdinal() {
+        return ordinal;
+    }
 
+    @Override
+    public void setOrdinal(int ordinal) {
+        this.ordinal = ordinal;
+    }
 }
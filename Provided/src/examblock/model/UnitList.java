@@ -1,6 +1,7 @@
 package examblock.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -9,7 +10,13 @@ import java.util.List;
 public class UnitList extends ListManager<Unit>
 {
 
-
+    /**
+     * The units of this list by their subject's title and unit identifier, keyed by
+     * {@link #unitKey(String, Character)}.
+     */
+    private final TitleIndex<Unit, List<Object>> bySubjectAndId =
+            new TitleIndex<>(unit -> unit.getSubject() == null ? null
+                    : unitKey(unit.getSubject().getTitle(), unit.id()));
 
     /**
      * Constructs an empty list of {@link Unit}s.
@@ -28,13 +35,7 @@ public class UnitList extends ListManager<Unit>
      */
     @Override
     public Unit find(String key)  {
-        // find an item by a key
-        for (Unit myunit : this.getItems()) {
-            if (myunit.getId().equals(key)) {
-                return myunit;
-            }
-        }
-        return null;
+        return findById(key);
 
     }
 
@@ -49,10 +50,9 @@ public class UnitList extends ListManager<Unit>
     @Override
     public Unit get(String key)
             throws IllegalStateException {
-        for (Unit myunit : this.getItems()) {
-            if (myunit.getId().equals(key)) {
-                return myunit;
-            }
+        Unit myunit = findById(key);
+        if (myunit != null) {
+            return myunit;
         }
         throw new IllegalStateException();
     }
@@ -73,12 +73,37 @@ public class UnitList extends ListManager<Unit>
      *         the executing state and the complete list of possible units.
      */
     public Unit getUnit(String title, Character unitId) throws IllegalStateException {
-        for (Unit unit : this.getItems()) {
-            if (unit.getSubject().getTitle().equals(title) && unit.id() == unitId) {
-                return unit;
-            }
+        Unit unit = this.bySubjectAndId.get(unitKey(title, unitId), this.view());
+        if (unit == null) {
+            throw new IllegalStateException("No such unit!");
         }
-        throw new IllegalStateException("No such unit!");
+        return unit;
+    }
+
+    /**
+     * Builds the composite key of a unit.
+     *
+     * @param title  the title of the unit's subject
+     * @param unitId the unit identifier
+     * @return the key
+     */
+    private static List<Object> unitKey(String title, Character unitId) {
+        return Arrays.asList(title, unitId);
+    }
+
+    @Override
+    protected void added(Unit unit) {
+        bySubjectAndId.add(unit);
+    }
+
+    @Override
+    protected void removed(Unit unit) {
+        bySubjectAndId.remove(unit, view());
+    }
+
+    @Override
+    protected void cleared() {
+        bySubjectAndId.clear();
     }
 
 //    /**
@@ -31,7 +31,7 @@ public class Venue extends Room {
 
     private String getRoomNames() {
         StringBuilder sb = new StringBuilder();
-        List<Room> allRooms = rooms.all();
+        List<Room> allRooms = rooms.view();
         for (int i = 0; i < allRooms.size(); i++) {
             Room myRoom = allRooms.get(i);
             sb.append(myRoom.getId().toUpperCase());
@@ -65,7 +65,7 @@ public class Venue extends Room {
         // don't just set our own list to reference the passed parameter rooms!
         int counter = 0;
         this.rooms = new RoomList(registry);
-        for (Room room : rooms.all()) {
+        for (Room room : rooms.view()) {
             counter++;
             this.rooms.add(room);
         }
@@ -287,7 +287,7 @@ public class Venue extends Room {
             throw new RuntimeException("Room index out of sync!");
         }
 
-        id = bits[1]; // W1+W2
+        id = StringPool.SHARED.intern(bits[1]); // W1+W2
 
 
 
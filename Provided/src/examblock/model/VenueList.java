@@ -1,5 +1,7 @@
 package examblock.model;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -25,13 +27,7 @@ public class VenueList extends ListManager<Venue> {
      */
     @Override
     public Venue find(String key)  throws IllegalStateException {
-        // find an item by a key
-        for (Venue myVenue : this.getItems()) {
-            if (myVenue.getId().equals(key)) {
-                return myVenue;
-            }
-        }
-        return null;
+        return findById(key);
 
     }
 
@@ -46,10 +42,9 @@ public class VenueList extends ListManager<Venue> {
     @Override
     public Venue get(String key)
             throws IllegalStateException {
-        for (Venue myVenue : this.getItems()) {
-            if (myVenue.getId().equals(key)) {
-                return myVenue;
-            }
+        Venue myVenue = findById(key);
+        if (myVenue != null) {
+            return myVenue;
         }
         throw new IllegalStateException();
     }
@@ -90,16 +85,67 @@ public class VenueList extends ListManager<Venue> {
      * @param cohort all the Year 12 students.
      */
     public void allocateStudents(SessionList sessions, ExamList exams, StudentList cohort) {
+        List<List<Session>> byVenue = sessionsByVenue(sessions);
         List<Session> sessionList;
         for (Venue venue : this.getItems()) {
             // get the list of sessions for this venue
-            sessionList = sessions.forVenue(venue);
+            sessionList = byVenue == null ? sessions.forVenue(venue) : sessionsOf(venue, byVenue,
+                    sessions);
             for (Session session : sessionList) {
                 session.allocateStudents(exams, cohort);
             }
         }
     }
 
+    /**
+     * Groups the sessions by the ordinal of their venue in one pass, so each venue finds its
+     * sessions by index in a list rather than by searching every session.
+     *
+     * @param sessions the sessions to group
+     * @return the sessions of each venue, indexed by venue ordinal, or {@code null} if some
+     *         session's venue is not registered with this list's registry
+     */
+    private List<List<Session>> sessionsByVenue(SessionList sessions) {
+        Registry registry = getRegistry();
+        int bound = registry.ordinalBound(Venue.class);
+        Venue[] owners = new Venue[bound];
+        for (int ordinal = 0; ordinal < bound; ordinal++) {
+            owners[ordinal] = registry.byOrdinal(ordinal, Venue.class);
+        }
+        List<List<Session>> byVenue = new ArrayList<>(Collections.nCopies(bound, null));
+        for (Session session : sessions.getItems()) {
+            int ordinal = session.getVenue().getOrdinal();
+            if (ordinal < 0 || ordinal >= bound || owners[ordinal] != session.getVenue()) {
+                return null;
+            }
+            if (byVenue.get(ordinal) == null) {
+                byVenue.set(ordinal, new ArrayList<>());
+            }
+            byVenue.get(ordinal).add(session);
+        }
+        return byVenue;
+    }
+
+    /**
+     * Gets the sessions held in a venue from the groups built by
+     * {@link #sessionsByVenue(SessionList)}.
+     *
+     * @param venue    the venue
+     * @param byVenue  the sessions of each venue, indexed by venue ordinal
+     * @param sessions all the sessions, searched if the venue is not registered
+     * @return the sessions held in the venue
+     */
+    private List<Session> sessionsOf(Venue venue, List<List<Session>> byVenue,
+                                     SessionList sessions) {
+        int ordinal = venue.getOrdinal();
+        if (ordinal < 0 || ordinal >= byVenue.size()
+                || getRegistry().byOrdinal(ordinal, Venue.class) != venue) {
+            return sessions.forVenue(venue);
+        }
+        List<Session> held = byVenue.get(ordinal);
+        return held == null ? new ArrayList<>() : held;
+    }
+
     /**
      * Print the allocations of {@link Student}s to {@link Desk}s for every {@link Session}
      * in every {@link Venue}.
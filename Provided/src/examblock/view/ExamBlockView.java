@@ -428,16 +428,10 @@ public class ExamBlockView implements ModelObserver {
     }
 
     private int getNbStudent( Exam myExam, Boolean AARA) {
-        List<Student> allStudents = this.registry.getAll(Student.class);
-        int total = 0;
-        for (Student myStudent : allStudents) {
-            if (myStudent.getSubjects().getItems().contains(myExam.getSubject()) && myStudent.isAara().equals(AARA)) {
-                // then that student is actually going to take that given exam
-                // because he is taking that subject + he has the same AARA as the venue
-                total+=1;
-            }
-        }
-        return total;
+        // the students actually going to take that given exam:
+        // taking that subject + having the same AARA as the venue
+        // through the model, which registers the students first if they are still loading
+        return this.model.getStudents().countStudents(myExam.getSubject(), AARA);
     }
 
     private void handleCreateNewSession(Venue venue, Exam exam) {
@@ -577,8 +571,8 @@ public class ExamBlockView implements ModelObserver {
         if (this.ExamTable == null) {
             this.ExamTable = new JTable();
         }
-        ArrayList<Object[]> dataList = new ArrayList<>();
-        for (Exam myExam : exams.all()) {
+        ArrayList<Object[]> dataList = new ArrayList<>(exams.size());
+        for (Exam myExam : exams.view()) {
             dataList.add(myExam.toLongTableRow()); // returns Object[]
         }
 
@@ -603,8 +597,8 @@ public class ExamBlockView implements ModelObserver {
         if (this.SubjectTable == null) {
             this.SubjectTable = new JTable();
         }
-        ArrayList<Object[]> dataList = new ArrayList<>();
-        for (Subject mySubject : subjects.all()) {
+        ArrayList<Object[]> dataList = new ArrayList<>(subjects.size());
+        for (Subject mySubject : subjects.view()) {
             dataList.add(mySubject.toLongTableRow()); // returns Object[]
         }
 
@@ -620,8 +614,8 @@ public class ExamBlockView implements ModelObserver {
         if (this.UnitTable == null) {
             this.UnitTable = new JTable();
         }
-        ArrayList<Object[]> dataList = new ArrayList<>();
-        for (Unit unit : units.all()) {
+        ArrayList<Object[]> dataList = new ArrayList<>(units.size());
+        for (Unit unit : units.view()) {
             dataList.add(unit.toTableRow());
         }
 
@@ -638,8 +632,8 @@ public class ExamBlockView implements ModelObserver {
             this.StudentTable = new JTable();
         }
 
-        ArrayList<Object[]> dataList = new ArrayList<>();
-        for (Student student : students.all()) {
+        ArrayList<Object[]> dataList = new ArrayList<>(students.size());
+        for (Student student : students.view()) {
             dataList.add(student.toTableRow());
         }
 
@@ -655,8 +649,8 @@ public class ExamBlockView implements ModelObserver {
         if (this.VenueTable == null) {
             this.VenueTable = new JTable();
         }
-        ArrayList<Object[]> dataList = new ArrayList<>();
-        for (Venue venue : venues.all()) {
+        ArrayList<Object[]> dataList = new ArrayList<>(venues.size());
+        for (Venue venue : venues.view()) {
             dataList.add(venue.toLongTableRow());
         }
 
@@ -672,8 +666,8 @@ public class ExamBlockView implements ModelObserver {
         if (this.RoomTable == null) {
             this.RoomTable = new JTable();
         }
-        ArrayList<Object[]> dataList = new ArrayList<>();
-        for (Room room : rooms.all()) {
+        ArrayList<Object[]> dataList = new ArrayList<>(rooms.size());
+        for (Room room : rooms.view()) {
             dataList.add(room.toLongTableRow());
         }
 
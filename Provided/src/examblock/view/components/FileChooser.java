@@ -82,6 +82,9 @@ public class FileChooser {
         FileNameExtensionFilter ebdFilter = new FileNameExtensionFilter(
                 "Exam Block Files (*.ebd)", "ebd");
         fileChooser.addChoosableFileFilter(ebdFilter);
+        FileNameExtensionFilter ebbFilter = new FileNameExtensionFilter(
+                "Exam Block Binary Files (*.ebb)", "ebb");
+        fileChooser.addChoosableFileFilter(ebbFilter);
         FileNameExtensionFilter ebrFilter = new FileNameExtensionFilter(
                 "Exam Block Finalise Reports (*.efr)", "efr");
         fileChooser.addChoosableFileFilter(ebrFilter);
@@ -90,6 +93,7 @@ public class FileChooser {
         fileChooser.addChoosableFileFilter(txtFilter);
         fileChooser.setFileFilter(switch (fileType) {
             case EBD -> ebdFilter;
+            case EBB -> ebbFilter;
             case EFR -> ebrFilter;
             case TXT -> txtFilter;
         });
@@ -189,6 +193,7 @@ public class FileChooser {
                             fileChooser.getFileFilter().getDescription();
                     String newExtension = switch (extensionDescription) {
                         case "Exam Block Files (*.ebd)" -> ".ebd";
+                        case "Exam Block Binary Files (*.ebb)" -> ".ebb";
                         case "Exam Block Finalise Reports (*.efr)" -> ".efr";
                         case "Text Files (*.txt)" -> ".txt";
                         default -> "";
@@ -229,6 +234,8 @@ public class FileChooser {
             fileChooser.setDialogType(JFileChooser.OPEN_DIALOG);
             FileNameExtensionFilter ebdFilter = new FileNameExtensionFilter("Exam Block Files (*.ebd)", "ebd");
             fileChooser.addChoosableFileFilter(ebdFilter);
+            FileNameExtensionFilter ebbFilter = new FileNameExtensionFilter("Exam Block Binary Files (*.ebb)", "ebb");
+            fileChooser.addChoosableFileFilter(ebbFilter);
             FileNameExtensionFilter ebrFilter = new FileNameExtensionFilter("Exam Block Finalise Reports (*.efr)", "efr");
             fileChooser.addChoosableFileFilter(ebrFilter);
             FileNameExtensionFilter txtFilter = new FileNameExtensionFilter("Text Files (*.txt)", "txt");
@@ -236,6 +243,7 @@ public class FileChooser {
             fileChooser.addChoosableFileFilter(txtFilter);
             fileChooser.setFileFilter(switch (fileType) {
                 case EBD -> ebdFilter;
+                case EBB -> ebbFilter;
                 case EFR -> ebrFilter;
                 case TXT -> txtFilter;
             });
@@ -255,6 +263,7 @@ public class FileChooser {
                         fileChooser.getFileFilter().getDescription();
                 String newExtension = switch (extensionDescription) {
                     case "Exam Block Files (*.ebd)" -> ".ebd";
+                    case "Exam Block Binary Files (*.ebb)" -> ".ebb";
                     case "Exam Block Finalise Reports (*.efr)" -> ".efr";
                     case "Text Files (*.txt)" -> ".txt";
                     default -> "";
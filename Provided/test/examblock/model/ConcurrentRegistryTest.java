@@ -0,0 +1,134 @@
+package examblock.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ConcurrentRegistryTest {
+
+    private static final int ADDERS = 4;
+    private static final int READERS = 4;
+    private static final int ROOMS_PER_ADDER = 5000;
+
+    @Test
+    public void basicAddFindRemove() {
+        Registry reg = new ConcurrentRegistry();
+        Room r1 = new Room("R1", reg);
+        Room r2 = new Room("R2", reg);
+        assertEquals(2, reg.count(Room.class));
+        assertSame(r1, reg.find("R1", Room.class));
+        assertSame(r2, reg.getAt(1, Room.class));
+        reg.add(r1, Room.class); // same instance, not re-added
+        assertEquals(2, reg.count(Room.class));
+        reg.remove("R1", Room.class);
+        assertSame(r2, reg.getAt(0, Room.class));
+        assertEquals(1, reg.getAll(Room.class).size());
+    }
+
+    @Test
+    public void readsOfAnEmptyTypeFindNothing() {
+        Registry reg = new ConcurrentRegistry();
+        assertFalse(reg.contains("R1", Room.class));
+        assertNull(reg.find("R1", Room.class));
+        assertNull(reg.getAt(0, Room.class));
+        assertNull(reg.byOrdinal(0, Room.class));
+        assertNull(reg.findByLui(9999000001L));
+        assertTrue(reg.getAll(Room.class).isEmpty());
+        assertEquals(0, reg.count(Room.class));
+        assertEquals(0, reg.ordinalBound(Room.class));
+        reg.remove("R1", Room.class);
+        Room r1 = new Room("R1", reg);
+        assertSame(r1, reg.find("R1", Room.class));
+        assertEquals(0, r1.getOrdinal());
+    }
+
+    @Test
+    public void removingASubjectWithdrawsItsStudents() {
+        Registry reg = new ConcurrentRegistry();
+        Subject maths = new Subject("Mathematical Methods", "Numbers.", reg);
+        Student ann = new Student(1000000001L, "Ann", "Lee", 1, 2, 2007, "Blue", reg);
+        ann.addSubject(maths);
+        reg.remove("NO SUCH SUBJECT", Subject.class);
+        assertTrue(ann.takes(maths));
+        reg.remove(maths.getId(), Subject.class);
+        Subject english = new Subject("English", "Words.", reg);
+        assertFalse(ann.takes(english));
+        assertEquals(0, ann.subjectCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void duplicateIdRejected() {
+        Registry reg = new ConcurrentRegistry();
+        new Room("R1", reg);
+        new Room("R1", reg);
+    }
+
+    @Test
+    public void stressConcurrentAddersAndReaders() throws Exception {
+        Registry reg = new ConcurrentRegistry();
+        ExecutorService pool = Executors.newFixedThreadPool(ADDERS + READERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean adding = new AtomicBoolean(true);
+        List<Future<?>> adders = new ArrayList<>();
+        List<Future<?>> readers = new ArrayList<>();
+
+        for (int a = 0; a < ADDERS; a++) {
+            final int adder = a;
+            adders.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < ROOMS_PER_ADDER; i++) {
+                    new Room("A" + adder + "-" + i, reg);
+                }
+                return null;
+            }));
+        }
+        for (int r = 0; r < READERS; r++) {
+            readers.add(pool.submit(() -> {
+                start.await();
+                while (adding.get()) {
+                    int count = reg.count(Room.class);
+                    if (count > 0) {
+                        assertNotNull(reg.getAt(count - 1, Room.class));
+                    }
+                    for (Room room : reg.getAll(Room.class)) {
+                        assertSame(room, reg.find(room.getId(), Room.class));
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> f : adders) {
+            f.get(60, TimeUnit.SECONDS);
+        }
+        adding.set(false);
+        for (Future<?> f : readers) {
+            f.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(ADDERS * ROOMS_PER_ADDER, reg.count(Room.class));
+        List<Room> all = reg.getAll(Room.class);
+        assertEquals(ADDERS * ROOMS_PER_ADDER, all.size());
+        Set<String> ids = new HashSet<>();
+        for (Room room : all) {
+            assertTrue(ids.add(room.getId()));
+        }
+    }
+}
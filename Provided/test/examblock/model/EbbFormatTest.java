@@ -0,0 +1,135 @@
+package examblock.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class EbbFormatTest {
+
+    private static final String BLOCK = String.join("\n",
+            "Title: Term 1 Block",
+            "Version: 0.5",
+            "[Begin]",
+            "[Subjects: 2]",
+            "1. ENGLISH",
+            "English",
+            "\"Language and literature.\"",
+            "2. MATHEMATICAL METHODS",
+            "Mathematical Methods",
+            "\"Calculus and statistics.\"",
+            "[Units: 1]",
+            "1. MATHEMATICAL_METHODS",
+            "Mathematical Methods, Unit 3: Further calculus",
+            "\"Derivatives and integrals.\"",
+            "[Students: 2]",
+            "1. ZOË KOVÁCS",
+            "LUI: 9999000001, Family Name: Kovács, Given Name(s): Zoë, "
+                    + "Date of Birth: 2007-01-31, House: Red, AARA: true",
+            "Subjects: Mathematical Methods, English",
+            "2. LIAM SMITH",
+            "LUI: 9999365663, Family Name: Smith, Given Name(s): Liam, "
+                    + "Date of Birth: 1969-12-08, House: Blue, AARA: false",
+            "Subjects: English",
+            "[Exams: 2]",
+            "1. Year 12 Internal Assessment English",
+            "Subject: English, Exam Type: INTERNAL, Unit: 3, Exam Date: 2025-03-10 08:30",
+            "2. Year 12 External Assessment Mathematical Methods Paper 1",
+            "Subject: Mathematical Methods, Exam Type: EXTERNAL, Paper: 1, "
+                    + "Subtitle: Technology Free, Exam Date: 2025-03-11 12:30",
+            "[Rooms: 2]",
+            "1. R1",
+            "2. R2",
+            "[Venues: 1]",
+            "1. V1+V2 (50 Non-AARA desks)",
+            "Room Count: 2, Rooms: R1 R2, Rows: 5, Columns: 10, Desks: 50, AARA: false",
+            "[Sessions: 1]",
+            "1. Venue: V1+V2, Session Number: 1, Day: 2025-03-10, Start: 08:30, Exams: 1",
+            "Year 12 Internal Assessment English",
+            "    [Desks: 0]",
+            "[End]",
+            "");
+
+    private static void assertSameBlock(Registry expected, Registry actual) {
+        for (Class<? extends ManageableListItem> type : List.of(Subject.class, Unit.class,
+                Student.class, Exam.class, Room.class, Venue.class, Session.class)) {
+            List<? extends ManageableListItem> want = expected.getAll(type);
+            List<? extends ManageableListItem> got = actual.getAll(type);
+            assertEquals(type.getSimpleName(), want.size(), got.size());
+            for (int i = 0; i < want.size(); i++) {
+                assertEquals(type.getSimpleName(), want.get(i).getId(), got.get(i).getId());
+            }
+        }
+    }
+
+    @Test
+    public void convertsTextToBinaryAndBackWithoutLoss() throws IOException {
+        Path text = Files.createTempFile("examblock", ".ebd");
+        Path binary = Files.createTempFile("examblock", ".ebb");
+        Path again = Files.createTempFile("examblock", ".ebd");
+        try {
+            Files.write(text, BLOCK.getBytes(StandardCharsets.UTF_8));
+            Registry original = new RegistryImpl();
+            new EbdParser(EbdTokenizer.map(text), original).parse();
+
+            EbbConverter.convert(text.toString(), binary.toString());
+            Registry loaded = new RegistryImpl();
+            EbbFormat format = new EbbFormat(loaded);
+            format.read(binary);
+            assertEquals("Term 1 Block", format.getTitle());
+            assertEquals(0.5, format.getVersion(), 0.0);
+            assertSameBlock(original, loaded);
+
+            Student zoe = loaded.findByLui(9999000001L);
+            assertEquals("Kovács", zoe.familyName());
+            assertTrue(zoe.isAara());
+            assertEquals(2, zoe.subjectCount());
+            assertEquals(1969, loaded.findByLui(9999365663L).getDob().getYear());
+            Exam methods = loaded.getAll(Exam.class).get(1);
+            assertEquals("Technology Free", methods.getSubtitle());
+            assertNull(methods.getUnit());
+            assertEquals(1, loaded.getAll(Session.class).get(0).getExams().size());
+
+            EbbConverter.convert(binary.toString(), again.toString());
+            Registry reloaded = new RegistryImpl();
+            EbdParser parser = new EbdParser(EbdTokenizer.map(again), reloaded);
+            parser.parse();
+            assertEquals("Term 1 Block", parser.getTitle());
+            assertSameBlock(original, reloaded);
+        } finally {
+            Files.deleteIfExists(text);
+            Files.deleteIfExists(binary);
+            Files.deleteIfExists(again);
+        }
+    }
+
+    @Test
+    public void bothFormatsSaveTheModelsOwnItems() throws IOException {
+        Path text = Files.createTempFile("examblock", ".ebd");
+        Path binary = Files.createTempFile("examblock", ".ebb");
+        try {
+            Files.write(text, BLOCK.getBytes(StandardCharsets.UTF_8));
+            Registry original = new RegistryImpl();
+            new EbdParser(EbdTokenizer.map(text), original).parse();
+            ExamBlockModel model = new ExamBlockModel(original);
+            assertTrue(model.saveToFile(binary.toString(), "Term 1 Block", 0.5));
+            assertTrue(model.saveToFile(text.toString(), "Term 1 Block", 0.5));
+
+            Registry fromBinary = new RegistryImpl();
+            new EbbFormat(fromBinary).read(binary);
+            assertSameBlock(original, fromBinary);
+            Registry fromText = new RegistryImpl();
+            new EbdParser(EbdTokenizer.map(text), fromText).parse();
+            assertSameBlock(original, fromText);
+        } finally {
+            Files.deleteIfExists(text);
+            Files.deleteIfExists(binary);
+        }
+    }
+}
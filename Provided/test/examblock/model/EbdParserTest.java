@@ -0,0 +1,215 @@
+package examblock.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class EbdParserTest {
+
+    private static final String BLOCK = String.join("\n",
+            "Title: Exam Block",
+            "Version: 1.2",
+            "",
+            "[Begin]",
+            "# subjects first, everything else refers to them",
+            "[Subjects: 1]",
+            "1. MATHEMATICAL METHODS",
+            "Mathematical Methods",
+            "\"Calculus and statistics.\"",
+            "",
+            "[Units: 1]",
+            "1. MATHEMATICAL_METHODS",
+            "Mathematical Methods, Unit 3: Further calculus",
+            "\"Derivatives and integrals.\"",
+            "[Students: 1]",
+            "1. LIAM SMITH",
+            "LUI: 9999365663, Family Name: Smith, Given Name(s): Liam, "
+                    + "Date of Birth: 2007-12-08, House: Blue, AARA: false",
+            "Subjects: Mathematical Methods",
+            "[Exams: 1]",
+            "1. Year 12 Internal Assessment Mathematical Methods Paper 1",
+            "Subject: Mathematical Methods, Exam Type: INTERNAL, Paper: 1, "
+                    + "Subtitle: Technology Free, Unit: 3, Exam Date: 2025-03-11 12:30",
+            "[Rooms: 1]",
+            "1. R1",
+            "[Venues: 1]",
+            "1. V1 (25 Non-AARA desks)",
+            "Room Count: 1, Rooms: R1, Rows: 5, Columns: 5, Desks: 25, AARA: false",
+            "[Sessions: 1]",
+            "1. Venue: V1, Session Number: 1, Day: 2025-03-11, Start: 12:30, Exams: 1",
+            "Year 12 Internal Assessment Mathematical Methods Paper 1",
+            "    [Desks: 1]",
+            "    Desk: 1, LUI: 9999365663, Name: Smith, Liam",
+            "[End]");
+
+    private static EbdParser parse(String text, Registry registry) throws IOException {
+        EbdParser parser = new EbdParser(new BufferedReader(new StringReader(text)), registry);
+        parser.parse();
+        return parser;
+    }
+
+    @Test
+    public void loadsEverySectionInOnePass() throws IOException {
+        Registry registry = new RegistryImpl();
+        EbdParser parser = parse(BLOCK, registry);
+
+        assertEquals("Exam Block", parser.getTitle());
+        assertEquals(1.2, parser.getVersion(), 0.0);
+        Subject methods = registry.getAll(Subject.class).get(0);
+        assertEquals("Calculus and statistics.", methods.getDescription());
+        assertEquals(methods, registry.getAll(Unit.class).get(0).getSubject());
+        Student student = registry.findByLui(9999365663L);
+        assertTrue(student.takes(methods));
+        assertEquals("Technology Free", registry.getAll(Exam.class).get(0).getSubtitle());
+        Session session = registry.getAll(Session.class).get(0);
+        assertEquals("V1#1", session.getId());
+        assertEquals(1, session.getExams().size());
+    }
+
+    private static String cohort(int size) {
+        StringBuilder text = new StringBuilder(String.join("\n",
+                "Title: Exam Block", "Version: 1.2", "[Begin]",
+                "[Subjects: 1]", "1. ENGLISH", "English", "\"Language.\"",
+                "[Students: " + size + "]", ""));
+        for (int i = 1; i <= size; i++) {
+            text.append(i).append(". STUDENT ").append(i).append('\n')
+                    .append("LUI: ").append(1000 + i).append(", Family Name: Family")
+                    .append(", Given Name(s): Given, Date of Birth: 2007-01-01, House: Blue")
+                    .append(", AARA: ").append(i % 2 == 0).append('\n')
+                    .append("Subjects: English\n");
+        }
+        return text.append("[End]\n").toString();
+    }
+
+    @Test
+    public void chunkedSectionsRegisterInFileOrder() throws IOException {
+        Registry registry = new RegistryImpl();
+        new EbdParser(new BufferedReader(new StringReader(cohort(10))), registry, 3).parse();
+
+        Subject english = registry.getAll(Subject.class).get(0);
+        List<Student> students = registry.getAll(Student.class);
+        assertEquals(10, students.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(1001L + i, (long) students.get(i).getLui());
+            assertTrue(students.get(i).takes(english));
+        }
+
+        try {
+            String text = cohort(10).replace("LUI: 1008,", "LUI: x,");
+            new EbdParser(new BufferedReader(new StringReader(text)), new RegistryImpl(), 3)
+                    .parse();
+            fail("a malformed student should not load");
+        } catch (RuntimeException e) {
+            assertEquals("Line 31, column 6: expected a number", e.getMessage());
+        }
+    }
+
+    @Test
+    public void mappedFilesAreReadAsUtf8Bytes() throws IOException {
+        Path file = Files.createTempFile("examblock", ".ebd");
+        try {
+            String block = BLOCK.replace("Family Name: Smith", "Family Name: Müller");
+            Files.write(file, block.getBytes(StandardCharsets.UTF_8));
+            Registry registry = new RegistryImpl();
+            new EbdParser(EbdTokenizer.map(file), registry).parse();
+            assertEquals("Müller", registry.findByLui(9999365663L).familyName());
+            assertEquals(1, registry.getAll(Session.class).size());
+
+            Files.write(file, block.replace("AARA: false\n", "AARA: maybe\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            try {
+                new EbdParser(EbdTokenizer.map(file), new RegistryImpl()).parse();
+                fail("a malformed student should not load");
+            } catch (RuntimeException e) {
+                assertEquals("Line 17, column 106: expected 'true' or 'false'",
+                        e.getMessage());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void indexedFilesLeaveStudentsAndSessionsForLater() throws IOException {
+        Path file = Files.createTempFile("examblock", ".ebd");
+        try {
+            Registry original = new RegistryImpl();
+            EbdParser parser = parse(BLOCK, original);
+            new ExamBlockModel(original).saveToFile(file.toString(),
+                    parser.getTitle(), parser.getVersion());
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            assertTrue(lines.get(lines.size() - 1).startsWith(EbdIndex.PREFIX));
+
+            Registry registry = new RegistryImpl();
+            ExamBlockModel model = new ExamBlockModel(registry);
+            model.load(registry, file.toString());
+            assertEquals("Exam Block", model.getTitle());
+            assertEquals(1, model.getVenues().size());
+            assertTrue(registry.getAll(Student.class).isEmpty());
+            assertTrue(registry.getAll(Session.class).isEmpty());
+            Exam exam = model.getExams().all().get(0);
+            assertEquals(1, Student.countEnrolled(registry, exam.getSubject(), false));
+            assertTrue(registry.getAll(Session.class).isEmpty());
+            assertEquals(1, model.getSessions().size());
+            assertEquals(1, model.getSessions().all().get(0).getExams().size());
+
+            lines.add(0, "# edited by hand");
+            Files.write(file, lines, StandardCharsets.UTF_8);
+            Registry edited = new RegistryImpl();
+            new ExamBlockModel(edited).load(edited, file.toString());
+            assertFalse(edited.getAll(Student.class).isEmpty());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void aMalformedLaterSectionIsReportedOnceAndDropped() throws IOException {
+        Path file = Files.createTempFile("examblock", ".ebd");
+        try {
+            Registry original = new RegistryImpl();
+            EbdParser parser = parse(BLOCK, original);
+            new ExamBlockModel(original).saveToFile(file.toString(),
+                    parser.getTitle(), parser.getVersion());
+            String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            Files.write(file, text.replace("LUI: 9999365663,", "LUI: 9999365663;")
+                    .getBytes(StandardCharsets.UTF_8));
+
+            Registry registry = new RegistryImpl();
+            ExamBlockModel model = new ExamBlockModel(registry);
+            model.load(registry, file.toString());
+            assertEquals(1, model.getVenues().size());
+            try {
+                model.getStudents();
+                fail("a malformed student should be reported");
+            } catch (RuntimeException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("expected ','"));
+            }
+            assertTrue(model.getStudents().all().isEmpty());
+            assertTrue(model.getSessions().all().isEmpty());
+            assertEquals(1, model.getRegistry().getAll(Exam.class).size());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void reportsTheLineAndColumnOfAnError() throws IOException {
+        try {
+            parse(BLOCK.replace("Rows: 5", "Rows: five"), new RegistryImpl());
+            fail("a malformed venue should not load");
+        } catch (RuntimeException e) {
+            assertEquals("Line 26, column 33: expected a number", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package examblock.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+public class JournalingRegistryTest {
+
+    /**
+     * Makes changes of every journaled kind, then closes the journal.
+     */
+    private static void record(Path file, boolean checkpoint) throws IOException {
+        try (JournalingRegistry reg = new JournalingRegistry(new RegistryImpl(), file)) {
+            Subject maths = new Subject("Mathematical Methods", "Numbers.", reg);
+            Subject art = new Subject("Visual Art", "Pictures.", reg);
+            Exam exam = new Exam(maths, Exam.ExamType.EXTERNAL, '1', "Technology Free",
+                    null, 20, 10, 2025, 9, 0, reg);
+            Student ann = new Student(1000000001L, "Ann", "Lee", 1, 2, 2007, "Blue", reg);
+            ann.addSubject(maths);
+            ann.addSubject(art);
+            ann.addExam(exam);
+            ann.removeSubject(art);
+            Student bob = new Student(1000000002L, "Bob", "Ray", 3, 4, 2007, "Red", reg);
+            reg.remove(bob.getId(), Student.class);
+            Room room = new Room("W1", reg);
+            RoomList rooms = new RoomList(reg);
+            rooms.add(room);
+            Venue venue = new Venue("W1", 1, rooms, 5, 4, 20, false, reg);
+            Session session = new Session(venue, 1, LocalDate.of(2025, 10, 20),
+                    LocalTime.of(9, 0), reg);
+            if (checkpoint) {
+                reg.checkpoint();
+            }
+            session.scheduleExam(exam);
+        }
+    }
+
+    private static void assertRecovered(Registry reg) {
+        assertEquals(2, reg.count(Subject.class));
+        assertEquals(1, reg.count(Exam.class));
+        assertEquals(1, reg.count(Student.class));
+        assertNull(reg.findByLui(1000000002L));
+        Student ann = reg.findByLui(1000000001L);
+        assertNotNull(ann);
+        assertEquals(1, ann.getSubjects().size());
+        assertEquals("Mathematical Methods", ann.getSubjects().all().get(0).getTitle());
+        assertEquals(1, ann.getExams().size());
+        Session session = reg.get("W1#1", Session.class);
+        assertEquals(1, session.getExams().size());
+        assertEquals(1, session.countStudents());
+    }
+
+    @Test
+    public void replaysJournalIntoEmptyRegistry() throws IOException {
+        Path file = Files.createTempFile("examblock", ".journal");
+        try {
+            record(file, false);
+            try (JournalingRegistry reg = new JournalingRegistry(new RegistryImpl(), file)) {
+                reg.recover(() -> { });
+                assertRecovered(reg);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void checkpointCompactsAndTornTailIsIgnored() throws IOException {
+        Path file = Files.createTempFile("examblock", ".journal");
+        try {
+            record(file, true);
+            // a crash part-way through the next record
+            Files.write(file, "ADD Room\n|W2\n".getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.APPEND);
+            try (JournalingRegistry reg = new JournalingRegistry(new RegistryImpl(), file)) {
+                // the image plus the one schedule after it
+                assertEquals(1 + 2 + 1 + 1 + 1 + 1 + 1 + 1, reg.recover(() -> { }));
+                assertRecovered(reg);
+                assertEquals(1, reg.count(Room.class));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void tornTailIsCutOffBeforeAppending() throws IOException {
+        Path file = Files.createTempFile("examblock", ".journal");
+        try {
+            try (JournalingRegistry reg = new JournalingRegistry(new RegistryImpl(), file)) {
+                new Subject("English", "Words.", reg);
+            }
+            // a crash part-way through the next record
+            Files.write(file, "ADD Subject\n|Eng".getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.APPEND);
+            try (JournalingRegistry reg = new JournalingRegistry(new RegistryImpl(), file)) {
+                assertEquals(1, reg.recover(() -> { }));
+                new Subject("Physics", "Forces.", reg);
+            }
+            try (JournalingRegistry reg = new JournalingRegistry(new RegistryImpl(), file)) {
+                assertEquals(2, reg.recover(() -> { }));
+                assertEquals(2, reg.count(Subject.class));
+                assertEquals("English", reg.getAt(0, Subject.class).getTitle());
+                assertEquals("Physics", reg.getAt(1, Subject.class).getTitle());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void schedulingIsJournaledThroughOtherDecorators() throws IOException {
+        Path file = Files.createTempFile("examblock", ".journal");
+        try {
+            try (JournalingRegistry journal = new JournalingRegistry(new RegistryImpl(), file)) {
+                Registry reg = new MeteredRegistry(journal);
+                Subject maths = new Subject("Mathematical Methods", "Numbers.", reg);
+                Exam exam = new Exam(maths, Exam.ExamType.EXTERNAL, '1', "Technology Free",
+                        null, 20, 10, 2025, 9, 0, reg);
+                Room room = new Room("W1", reg);
+                RoomList rooms = new RoomList(reg);
+                rooms.add(room);
+                Venue venue = new Venue("W1", 1, rooms, 5, 4, 20, false, reg);
+                new Session(venue, 1, LocalDate.of(2025, 10, 20), LocalTime.of(9, 0), reg)
+                        .scheduleExam(exam);
+            }
+            try (JournalingRegistry reg = new JournalingRegistry(new RegistryImpl(), file)) {
+                reg.recover(() -> { });
+                assertEquals(1, reg.get("W1#1", Session.class).getExams().size());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void replayedExamRemovalsUpdateTheExamIndex() throws IOException {
+        Path file = Files.createTempFile("examblock", ".journal");
+        try {
+            try (JournalingRegistry reg = new JournalingRegistry(new RegistryImpl(), file)) {
+                Subject maths = new Subject("Mathematical Methods", "Numbers.", reg);
+                Exam exam = new Exam(maths, Exam.ExamType.EXTERNAL, '1', "Technology Free",
+                        null, 20, 10, 2025, 9, 0, reg);
+                Student ann = new Student(1000000001L, "Ann", "Lee", 1, 2, 2007, "Blue", reg);
+                ann.addExam(exam);
+                ann.removeExam(exam);
+            }
+            try (JournalingRegistry reg = new JournalingRegistry(new RegistryImpl(), file)) {
+                RegistryIndex<Student, Exam> byExam = Student.examIndex(reg);
+                reg.recover(() -> { });
+                Exam exam = reg.getAll(Exam.class).get(0);
+                assertEquals(0, reg.findByLui(1000000001L).getExams().size());
+                assertEquals(0, reg.lookup(byExam, exam).size());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
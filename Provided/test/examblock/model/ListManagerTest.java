@@ -0,0 +1,196 @@
+package examblock.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+public class ListManagerTest {
+
+    @Test
+    public void findsByIdAfterAddsRemovesAndIdChanges() {
+        Registry reg = new RegistryImpl();
+        StudentList list = new StudentList(reg);
+        Student ann = new Student(1000000001L, "Ann", "Lee", 1, 2, 2007, "Blue", reg);
+        Student bob = new Student(1000000002L, "Bob", "Ray", 3, 4, 2007, "Red", reg);
+        list.add(ann);
+        list.add(bob);
+        list.add(ann);
+        assertEquals(2, list.size());
+        assertTrue(list.contains(ann));
+        assertSame(bob, list.get("1000000002"));
+        assertNull(list.find("1000000003"));
+
+        ann.changeLui(1000000003L);
+        assertSame(ann, list.find("1000000003"));
+        assertNull(list.find("1000000001"));
+
+        list.remove(bob);
+        assertFalse(list.contains(bob));
+        assertNull(list.find("1000000002"));
+        assertEquals(1, list.size());
+
+        list.clear();
+        assertNull(list.find("1000000003"));
+    }
+
+    @Test
+    public void modelListsAreCachedUntilRegistryChanges() {
+        ExamBlockModel model = new ExamBlockModel();
+        Registry reg = model.getRegistry();
+        Student ann = new Student(1000000001L, "Ann", "Lee", 1, 2, 2007, "Blue", reg);
+        StudentList students = model.getStudents();
+        assertEquals(1, students.size());
+        assertSame(students, model.getStudents());
+
+        long stamp = reg.modCount(Student.class);
+        ann.addSubject(new Subject("Visual Art", "Pictures.", reg));
+        assertEquals(stamp, reg.modCount(Student.class));
+
+        new Student(1000000002L, "Bob", "Ray", 3, 4, 2007, "Red", reg);
+        assertSame(students, model.getStudents());
+        assertEquals(2, students.size());
+        reg.remove(ann.getId(), Student.class);
+        assertEquals(1, model.getStudents().size());
+        assertNull(students.find(ann.getId()));
+    }
+
+    @Test
+    public void viewIsSharedReadOnlyAndLive() {
+        Registry reg = new RegistryImpl();
+        SubjectList list = new SubjectList(reg);
+        List<Subject> view = list.view();
+        Subject art = new Subject("Visual Art", "Pictures.", reg);
+        list.add(art);
+        assertSame(view, list.view());
+        assertEquals(1, view.size());
+        List<Subject> seen = new ArrayList<>();
+        list.forEach(seen::add);
+        assertEquals(view, seen);
+        try {
+            view.clear();
+            fail("view should be read-only");
+        } catch (UnsupportedOperationException expected) {
+            assertEquals(1, list.size());
+        }
+    }
+
+    @Test
+    public void parallelStreamsMatchSequentialOnLargeLists() {
+        Registry reg = new RegistryImpl();
+        Subject art = new Subject("Visual Art", "Pictures.", reg);
+        StudentList list = new StudentList(reg);
+        int size = RegistryQuery.PARALLEL_THRESHOLD + 100;
+        for (int i = 0; i < size; i++) {
+            Student student = new Student(1000000000L + i, "Given", "Family", 1, 1, 2007,
+                    "Blue", i % 3 == 0, reg);
+            if (i % 2 == 0) {
+                student.addSubject(art);
+            }
+        }
+        list.addAll(new ArrayList<>(reg.getAll(Student.class)));
+        Spliterator<Student> all = list.spliterator();
+        assertTrue(all.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertEquals(size, all.estimateSize());
+        assertEquals(size, list.parallelStream().count());
+        assertEquals(list.stream().map(Student::getId).collect(Collectors.toList()),
+                list.parallelStream().map(Student::getId).collect(Collectors.toList()));
+
+        // a list that is not the whole cohort counts by streaming
+        list.remove(list.view().get(0));
+        long expected = list.stream()
+                .filter(s -> !s.isAara() && s.getSubjects().view().contains(art)).count();
+        assertEquals(expected, list.countStudents(art, false));
+    }
+
+    @Test
+    public void onlyModelListsAnswerFromTheRegistry() {
+        ExamBlockModel model = new ExamBlockModel();
+        Registry reg = model.getRegistry();
+        Subject art = new Subject("Visual Art", "Pictures.", reg);
+        Student ann = new Student(1000000001L, "Ann", "Lee", 1, 2, 2007, "Blue", reg);
+        Student bob = new Student(1000000002L, "Bob", "Ray", 3, 4, 2007, "Red", reg);
+        bob.addSubject(art);
+        StudentList byHand = new StudentList(reg);
+        byHand.add(ann);
+        byHand.add(bob);
+
+        // same size as the registry, but no longer the same students
+        reg.remove(bob.getId(), Student.class);
+        new Student(1000000003L, "Cy", "Fox", 5, 6, 2007, "Red", reg);
+        assertEquals(1, byHand.countStudents(art, false));
+        assertSame(bob, byHand.byLui(1000000002L));
+        assertEquals(0, model.getStudents().countStudents(art, false));
+    }
+
+    @Test
+    public void timetableFindsExamsBySlotDayAndRange() {
+        Registry reg = new RegistryImpl();
+        Subject maths = new Subject("Mathematical Methods", "Numbers.", reg);
+        Subject art = new Subject("Visual Art", "Pictures.", reg);
+        Subject music = new Subject("Music", "Sounds.", reg);
+        ExamList exams = new ExamList(reg);
+        Exam mathsAm = new Exam(maths, Exam.ExamType.EXTERNAL, 20, 10, 2025, 9, 0, reg);
+        Exam artAm = new Exam(art, Exam.ExamType.EXTERNAL, 20, 10, 2025, 9, 0, reg);
+        Exam musicPm = new Exam(music, Exam.ExamType.EXTERNAL, 20, 10, 2025, 13, 30, reg);
+        Exam mathsLater = new Exam(maths, Exam.ExamType.EXTERNAL, 22, 10, 2025, 9, 0, reg);
+        exams.add(mathsLater);
+        exams.add(musicPm);
+        exams.add(mathsAm);
+        exams.add(artAm);
+        LocalDate monday = LocalDate.of(2025, 10, 20);
+        assertEquals(List.of(mathsAm, artAm), exams.examsAt(monday, LocalTime.of(9, 0)));
+        assertEquals(List.of(mathsAm, artAm, musicPm), exams.examsOn(monday));
+        assertEquals(List.of(musicPm, mathsLater), exams.examsBetween(
+                LocalDateTime.of(monday, LocalTime.NOON), LocalDateTime.of(2025, 10, 22, 9, 1)));
+        exams.remove(artAm);
+        assertEquals(List.of(mathsAm), exams.examsAt(monday, LocalTime.of(9, 0)));
+        exams.clear();
+        assertTrue(exams.examsOn(monday).isEmpty());
+    }
+
+    @Test
+    public void titleLookupsFollowAddsAndRemoves() {
+        Registry reg = new RegistryImpl();
+        Subject maths = new Subject("Mathematical Methods", "Numbers.", reg);
+        Subject art = new Subject("Visual Art", "Pictures.", reg);
+        SubjectList subjects = new SubjectList(reg);
+        subjects.add(maths);
+        assertSame(maths, subjects.byTitle("Mathematical Methods"));
+        subjects.add(art);
+        assertSame(art, subjects.byTitle("Visual Art"));
+        subjects.remove(art);
+        try {
+            subjects.byTitle("Visual Art");
+            fail("removed subject found");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        Exam paper1 = new Exam(maths, Exam.ExamType.EXTERNAL, '1', "Technology Free",
+                null, 20, 10, 2025, 9, 0, reg);
+        Exam paper2 = new Exam(maths, Exam.ExamType.EXTERNAL, '2', "Technology Active",
+                null, 21, 10, 2025, 9, 0, reg);
+        ExamList exams = new ExamList(reg);
+        exams.add(paper1);
+        exams.add(paper2);
+        assertSame(paper2, exams.byShortTitle(paper2.getShortTitle()));
+        assertSame(paper1, exams.bySubjectTitle("Mathematical Methods"));
+        exams.remove(paper1);
+        assertSame(paper2, exams.bySubjectTitle("Mathematical Methods"));
+        Unit unit = new Unit(maths, '3', "Further calculus", "Integrals.", reg);
+        UnitList units = new UnitList(reg);
+        units.add(unit);
+        assertSame(unit, units.getUnit("Mathematical Methods", '3'));
+    }
+}
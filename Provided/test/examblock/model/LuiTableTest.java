@@ -0,0 +1,59 @@
+package examblock.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class LuiTableTest {
+
+    @Test
+    public void matchesHashMapUnderRandomPutsAndRemoves() {
+        Registry reg = new RegistryImpl();
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            // LUIs in one dense run, as they are issued
+            students.add(new Student(1000000000L + i, "Given", "Family", 1, 1, 2007,
+                    "Blue", reg));
+        }
+        LuiTable table = new LuiTable();
+        Map<Long, Student> expected = new HashMap<>();
+        Random random = new Random(6006);
+        for (int round = 0; round < 20000; round++) {
+            Student student = students.get(random.nextInt(students.size()));
+            if (random.nextBoolean()) {
+                table.put(student.getLui(), student);
+                expected.put(student.getLui(), student);
+            } else {
+                table.remove(student.getLui());
+                expected.remove(student.getLui());
+            }
+        }
+        assertEquals(expected.size(), table.size());
+        for (Student student : students) {
+            assertSame(expected.get(student.getLui()), table.get(student.getLui()));
+        }
+        assertNull(table.get(42L));
+    }
+
+    @Test
+    public void registryFindsStudentsByLui() {
+        Registry reg = new RegistryImpl();
+        Student ann = new Student(1000000001L, "Ann", "Lee", 1, 2, 2007, "Blue", reg);
+        Student bob = new Student(1000000002L, "Bob", "Ray", 3, 4, 2007, "Red", reg);
+        assertSame(ann, reg.findByLui(1000000001L));
+        assertSame(bob, reg.findByLui(1000000002L));
+        reg.remove(ann.getId(), Student.class);
+        assertNull(reg.findByLui(1000000001L));
+        bob.changeLui(1000000003L);
+        assertNull(reg.findByLui(1000000002L));
+        assertSame(bob, reg.findByLui(1000000003L));
+        assertSame(bob, reg.find("1000000003", Student.class));
+    }
+}
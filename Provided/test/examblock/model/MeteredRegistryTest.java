@@ -0,0 +1,57 @@
+package examblock.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class MeteredRegistryTest {
+
+    @Test
+    public void histogramBucketsStayWithinAnEighth() {
+        for (long value = 0; value < 1_000_000; value = value * 3 / 2 + 1) {
+            long highest = LatencyHistogram.highestIn(LatencyHistogram.bucketOf(value));
+            assertTrue(highest >= value);
+            assertTrue(highest - value <= value / 8);
+        }
+        assertEquals(Long.MAX_VALUE,
+                LatencyHistogram.highestIn(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void histogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.count());
+        assertEquals(1_000_000, histogram.max());
+        long median = histogram.valueAtPercentile(50);
+        assertTrue(median >= 500_000 && median <= 500_000 * 9 / 8);
+        assertEquals(1_000_000, histogram.valueAtPercentile(100));
+    }
+
+    @Test
+    public void countsCallsPerTypeAndOperation() {
+        MeteredRegistry reg = new MeteredRegistry(new RegistryImpl());
+        Student ann = new Student(1000000001L, "Ann", "Lee", 1, 2, 2007, "Blue", reg);
+        for (int i = 0; i < 3; i++) {
+            assertSame(ann, reg.find(ann.getId(), Student.class));
+        }
+        reg.getAll(Subject.class);
+        RegistryStats stats = reg.getStats();
+        assertEquals(3, stats.getCalls("Student", "find"));
+        assertEquals(1, stats.getCalls("Subject", "getAll"));
+        assertTrue(stats.getCalls("Student", "add") >= 1);
+        assertTrue(reg.dumpStats().contains("Student.find"));
+        stats.reset();
+        assertEquals(0, stats.getTotalCalls());
+    }
+
+    @Test
+    public void disabledSwitchLeavesRegistryUnwrapped() {
+        Registry reg = new RegistryImpl();
+        System.clearProperty(MeteredRegistry.ENABLED_PROPERTY);
+        assertSame(reg, MeteredRegistry.wrap(reg));
+    }
+}
@@ -0,0 +1,294 @@
+package examblock.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class RegistryImplTest {
+
+    @Test
+    public void rowsFollowInsertionOrderAfterRemoves() {
+        Registry reg = new RegistryImpl();
+        List<Room> expected = new ArrayList<>();
+        Random random = new Random(7023);
+        int next = 0;
+        for (int round = 0; round < 2000; round++) {
+            if (expected.isEmpty() || random.nextInt(3) > 0) {
+                expected.add(new Room("R" + next++, reg));
+            } else {
+                Room gone = expected.remove(random.nextInt(expected.size()));
+                reg.remove(gone.getId(), Room.class);
+                assertFalse(reg.contains(gone.getId(), Room.class));
+            }
+            if (round % 97 == 0) {
+                assertEquals(expected, reg.getAll(Room.class));
+            }
+        }
+        assertEquals(expected.size(), reg.count(Room.class));
+        for (int row = 0; row < expected.size(); row++) {
+            assertSame(expected.get(row), reg.getAt(row, Room.class));
+        }
+        assertNull(reg.getAt(expected.size(), Room.class));
+        assertNull(reg.getAt(-1, Room.class));
+    }
+
+    @Test
+    public void removeEverythingThenAddAgain() {
+        Registry reg = new RegistryImpl();
+        for (int i = 0; i < 100; i++) {
+            new Room("R" + i, reg);
+        }
+        for (int i = 0; i < 100; i++) {
+            reg.remove("R" + i, Room.class);
+        }
+        assertEquals(0, reg.count(Room.class));
+        Room again = new Room("R5", reg);
+        assertSame(again, reg.getAt(0, Room.class));
+        assertTrue(reg.contains("R5", Room.class));
+    }
+
+    @Test
+    public void lookupOfUnknownTypeIsEmpty() {
+        Registry reg = new RegistryImpl();
+        assertNull(reg.find("X", Exam.class));
+        assertEquals(0, reg.count(Exam.class));
+        assertTrue(reg.getAll(Exam.class).isEmpty());
+    }
+
+    @Test
+    public void indexFollowsAddsRemovesAndReindex() {
+        Registry reg = new RegistryImpl();
+        Subject maths = new Subject("Maths", "Numbers", reg);
+        Subject english = new Subject("English", "Words", reg);
+        RegistryIndex<Student, Subject> bySubject = Student.subjectIndex(reg);
+        Student ann = new Student(1000000001L, "Ann", "Lee", 1, 2, 2007, "Blue", reg);
+        Student bob = new Student(1000000002L, "Bob", "Ray", 3, 4, 2007, "Red", true, reg);
+        ann.addSubject(maths);
+        bob.addSubject(maths);
+        bob.addSubject(english);
+        assertEquals(List.of(ann, bob), reg.lookup(bySubject, maths));
+        assertEquals(List.of(bob), reg.lookup(bySubject, english));
+
+        bob.removeSubject(maths);
+        assertEquals(List.of(ann), reg.lookup(bySubject, maths));
+        reg.remove(ann.getId(), Student.class);
+        assertTrue(reg.lookup(bySubject, maths).isEmpty());
+        assertSame(bySubject, Student.subjectIndex(reg));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void uniqueIndexRejectsSecondItemWithSameKey() {
+        Registry reg = new RegistryImpl();
+        reg.createUniqueIndex(Student.class, "family", Student::familyName);
+        new Student(1000000001L, "Ann", "Lee", 1, 2, 2007, "Blue", reg);
+        new Student(1000000002L, "Bob", "Lee", 3, 4, 2007, "Red", reg);
+    }
+
+    @Test
+    public void snapshotIgnoresLaterWrites() {
+        Registry reg = new RegistryImpl();
+        for (int i = 0; i < 50; i++) {
+            new Room("R" + i, reg);
+        }
+        Registry before = reg.snapshot();
+        List<Room> expected = reg.getAll(Room.class);
+        for (int i = 0; i < 40; i++) {
+            reg.remove("R" + i, Room.class);
+        }
+        new Room("NEW", reg);
+
+        assertEquals(expected, before.getAll(Room.class));
+        assertEquals(50, before.count(Room.class));
+        assertSame(expected.get(3), before.getAt(3, Room.class));
+        assertNull(before.find("NEW", Room.class));
+        assertEquals(11, reg.count(Room.class));
+        assertSame(reg.find("R45", Room.class), reg.getAt(5, Room.class));
+    }
+
+    @Test
+    public void snapshotStillFindsItemsRemovedLater() {
+        Registry reg = new RegistryImpl();
+        Room first = new Room("A", reg);
+        new Room("B", reg);
+        Registry before = reg.snapshot();
+        reg.remove("A", Room.class);
+
+        assertEquals(2, before.count(Room.class));
+        assertEquals(2, before.getAll(Room.class).size());
+        assertSame(first, before.find("A", Room.class));
+        assertTrue(before.contains("A", Room.class));
+        assertFalse(reg.contains("A", Room.class));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void snapshotIsReadOnly() {
+        Registry reg = new RegistryImpl();
+        new Room("R1", reg);
+        new Room("R2", reg.snapshot());
+    }
+
+    @Test
+    public void ordinalsAreDenseAndReused() {
+        Registry reg = new RegistryImpl();
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rooms.add(new Room("R" + i, reg));
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, rooms.get(i).getOrdinal());
+            assertSame(rooms.get(i), reg.byOrdinal(i, Room.class));
+        }
+        for (int i = 0; i < 60; i++) {
+            reg.remove("R" + i, Room.class);
+            assertEquals(-1, rooms.get(i).getOrdinal());
+        }
+        for (int i = 0; i < 60; i++) {
+            Room room = new Room("N" + i, reg);
+            assertTrue(room.getOrdinal() < 100);
+            assertSame(room, reg.byOrdinal(room.getOrdinal(), Room.class));
+        }
+        assertEquals(100, reg.ordinalBound(Room.class));
+        for (Room room : reg.getAll(Room.class)) {
+            assertSame(room, reg.byOrdinal(room.getOrdinal(), Room.class));
+        }
+    }
+
+    @Test
+    public void bulkLoadIsInvisibleUntilCommit() {
+        Registry reg = new RegistryImpl();
+        new Room("R0", reg);
+        reg.beginBulk(Room.class, 1000);
+        List<Room> expected = new ArrayList<>(reg.getAll(Room.class));
+        for (int i = 1; i <= 1000; i++) {
+            Room room = new Room("R" + i, reg);
+            reg.add(room, Room.class); // added twice, stored once
+            expected.add(room);
+        }
+        assertEquals(1, reg.count(Room.class));
+        assertNull(reg.find("R5", Room.class));
+        reg.commitBulk();
+        assertEquals(expected, reg.getAll(Room.class));
+        assertSame(expected.get(700), reg.getAt(700, Room.class));
+        new Room("After", reg);
+        assertEquals(1002, reg.count(Room.class));
+    }
+
+    @Test
+    public void failedBulkCommitStoresNothing() {
+        Registry reg = new RegistryImpl();
+        new Room("R1", reg);
+        reg.beginBulk(Room.class, 2);
+        new Room("R2", reg);
+        new Room("R1", reg);
+        try {
+            reg.commitBulk();
+        } catch (IllegalStateException expected) {
+            assertEquals(1, reg.count(Room.class));
+            assertFalse(reg.contains("R2", Room.class));
+            return;
+        }
+        throw new AssertionError("duplicate ID was not rejected");
+    }
+
+    @Test
+    public void enrolmentsArePartitionedAndSorted() {
+        Registry reg = new RegistryImpl();
+        Subject maths = new Subject("Mathematical Methods", "Numbers.", reg);
+        Student cy = new Student(1000000003L, "Cy", "Lee", 1, 2, 2007, "Blue", reg);
+        Student ann = new Student(1000000001L, "Ann", "Lee", 1, 2, 2007, "Blue", reg);
+        Student bob = new Student(1000000002L, "Bob", "Day", 1, 2, 2007, "Red", true, reg);
+        cy.addSubject(maths);
+        ann.addSubject(maths);
+        bob.addSubject(maths);
+        assertEquals(2, Student.countEnrolled(reg, maths, false));
+        assertEquals(1, Student.countEnrolled(reg, maths, true));
+        assertEquals(List.of(ann, cy), Student.enrolled(reg, maths, false));
+        ann.removeSubject(maths);
+        assertEquals(List.of(cy), Student.enrolled(reg, maths, false));
+        assertEquals(List.of(cy), reg.snapshot().lookup(Student.enrolmentIndex(reg),
+                new Student.Enrolment(maths, false)));
+    }
+
+    @Test
+    public void subjectMembershipSpansBitsetWords() {
+        Registry reg = new RegistryImpl();
+        List<Subject> subjects = new ArrayList<>();
+        for (int i = 0; i < 70; i++) {
+            subjects.add(new Subject("Subject " + i, "Topic " + i + ".", reg));
+        }
+        Student ann = new Student(1000000001L, "Ann", "Lee", 1, 2, 2007, "Blue", reg);
+        ann.addSubject(subjects.get(66));
+        ann.addSubject(subjects.get(3));
+        ann.addSubject(subjects.get(3));
+        assertTrue(ann.takes(subjects.get(66)));
+        assertFalse(ann.takes(subjects.get(4)));
+        assertEquals(2, ann.subjectCount());
+        assertEquals(List.of(subjects.get(3), subjects.get(66)), ann.getSubjects().all());
+        ann.removeSubject(subjects.get(66));
+        assertEquals(List.of(subjects.get(3)), ann.subjectsTaken());
+        assertEquals(List.of(ann), reg.lookup(Student.subjectIndex(reg), subjects.get(3)));
+    }
+
+    @Test
+    public void removedSubjectsAreNotPassedOnWithTheirOrdinal() {
+        Registry reg = new RegistryImpl();
+        Subject maths = new Subject("Mathematical Methods", "Numbers.", reg);
+        Subject art = new Subject("Visual Art", "Pictures.", reg);
+        Student ann = new Student(1000000001L, "Ann", "Lee", 1, 2, 2007, "Blue", reg);
+        ann.addSubject(maths);
+        ann.addSubject(art);
+        assertSame(ann.getSubjects(), ann.getSubjects());
+        int ordinal = maths.getOrdinal();
+        reg.remove(maths.getId(), Subject.class);
+        Subject english = new Subject("English", "Words.", reg);
+        assertEquals(ordinal, english.getOrdinal());
+        assertFalse(ann.takes(english));
+        assertEquals(List.of(art), ann.getSubjects().all());
+        assertTrue(reg.lookup(Student.subjectIndex(reg), english).isEmpty());
+        ann.addSubject(english);
+        assertEquals(List.of(english, art), ann.getSubjects().all());
+    }
+
+    @Test
+    public void lookupsAreUnaffectedByLaterChanges() {
+        Registry reg = new RegistryImpl();
+        Subject maths = new Subject("Mathematical Methods", "Numbers.", reg);
+        Student ann = new Student(1000000001L, "Ann", "Lee", 1, 2, 2007, "Blue", reg);
+        Student bob = new Student(1000000002L, "Bob", "Kay", 1, 2, 2007, "Red", reg);
+        ann.addSubject(maths);
+        bob.addSubject(maths);
+        List<Student> enrolled = Student.enrolled(reg, maths, false);
+        for (Student student : enrolled) {
+            student.removeSubject(maths);
+        }
+        assertEquals(List.of(bob, ann), enrolled);
+        assertTrue(Student.enrolled(reg, maths, false).isEmpty());
+    }
+
+    @Test
+    public void cachedNamesFollowSetters() {
+        Registry reg = new RegistryImpl();
+        Subject maths = new Subject("Mathematical Methods", "Numbers.", reg);
+        Student ann = new Student(1000000001L, "Ann  Maree", "Lee", 1, 2, 2007, "Blue", reg);
+        Student bob = new Student(1000000002L, "Bob", "Kay", 1, 2, 2007, "Red", reg);
+        ann.addSubject(maths);
+        bob.addSubject(maths);
+        assertEquals("Ann Lee", ann.shortName());
+        assertSame(ann.shortName(), ann.shortName());
+        ann.setGiven("Anna");
+        ann.setFamily("Abbot");
+        assertEquals("Anna Abbot", ann.shortName());
+        assertEquals("Anna Abbot", ann.fullName());
+        assertEquals(List.of(ann, bob), Student.enrolled(reg, maths, false));
+        ann.changeLui(1000000009L);
+        assertEquals("1000000009", ann.getId());
+        assertSame(ann, reg.findByLui(1000000009L));
+    }
+}
@@ -0,0 +1,49 @@
+package examblock.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class RegistryQueryTest {
+
+    @Test
+    public void indexAndScanPlansAgree() {
+        Registry reg = new RegistryImpl();
+        Subject maths = new Subject("Maths", "Numbers", reg);
+        Subject english = new Subject("English", "Words", reg);
+        for (int i = 0; i < 5000; i++) {
+            Student student = new Student(1000000000L + i, "Given", "Family", 1, 1, 2007,
+                    "Blue", i % 7 == 0, reg);
+            student.addSubject(i % 3 == 0 ? maths : english);
+        }
+
+        RegistryQuery<Student> scan = reg.query(Student.class)
+                .where(s -> s.getSubjects().getItems().contains(maths))
+                .where(Student::isAara);
+        RegistryQuery<Student> indexed = reg.query(Student.class)
+                .where(Student.subjectIndex(reg), maths)
+                .where(Student::isAara);
+
+        assertEquals(scan.list(), indexed.list());
+        assertEquals(239, indexed.count());
+        assertTrue(scan.explain(), scan.explain().startsWith("PARALLEL SCAN Student (5000"));
+        assertTrue(indexed.explain(),
+                indexed.explain().startsWith("INDEX Student.subjects = " + maths));
+    }
+
+    @Test
+    public void groupByKeepsFirstAppearanceOrder() {
+        Registry reg = new RegistryImpl();
+        new Room("B1", reg);
+        new Room("A1", reg);
+        new Room("B2", reg);
+        Map<Character, List<Room>> groups = reg.query(Room.class)
+                .groupBy(room -> room.roomId().charAt(0));
+        assertEquals(List.of('B', 'A'), List.copyOf(groups.keySet()));
+        assertEquals(2, groups.get('B').size());
+        assertEquals("SCAN Room (3 rows)", reg.query(Room.class).explain());
+    }
+}
@@ -0,0 +1,30 @@
+package examblock.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+public class StringPoolTest {
+
+    @Test
+    public void equalValuesShareOneCopy() {
+        StringPool pool = new StringPool(8);
+        String first = pool.intern(new String("Blue"));
+        assertSame(first, pool.intern(new String("Blue")));
+        assertNull(pool.intern(null));
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    public void stopsGrowingAtCapacity() {
+        StringPool pool = new StringPool(2);
+        pool.intern("Blue");
+        pool.intern("Red");
+        String white = new String("White");
+        assertSame(white, pool.intern(white));
+        assertNotSame(white, pool.intern(new String("White")));
+        assertEquals(2, pool.size());
+    }
+}